@@ -0,0 +1,119 @@
+package com.thepixelwar.canvas;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 픽셀 한 칸의 주인이 바뀔 때 "가장 큰 연결된 땅"을 갱신하는 비용 비교
+ * - incremental: TerritoryIndex (합치기 + 잃은 칸 주변만 다시 보기)
+ * - floodFill: 바뀔 때마다 이전/새 주인의 칸을 전부 플러드 필로 다시 셈 (캔버스 전체 훑기)
+ * 주인들이 넓은 덩어리를 갖고 있는 상태에서, 경계 근처에 몰린 뺏고 뺏기기를 흉내냄
+ * ./gradlew jmh -Pjmh.includes=TerritoryIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TerritoryIndexBenchmark {
+
+    private static final int OWNERS = 8;
+
+    // 캔버스 한 변의 칸 수
+    @Param({"256", "1024"})
+    private int width;
+
+    private TerritoryIndex index;
+    private int[] grid;
+    private int[] queue;
+    private boolean[] seen;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 주인마다 세로 띠 하나씩 차지한 상태로 시작
+        index = new TerritoryIndex();
+        grid = new int[width * width];
+        queue = new int[width * width];
+        seen = new boolean[width * width];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < width; y++) {
+                int owner = x * OWNERS / width;
+                index.set(x, y, owner);
+                grid[x * width + y] = owner;
+            }
+        }
+    }
+
+    @Benchmark
+    public int incremental() {
+        int x = nextX();
+        int y = random.nextInt(width);
+        int owner = random.nextInt(OWNERS);
+        int previous = index.ownerAt(x, y);
+        index.set(x, y, owner);
+        return index.largest(owner) + (previous >= 0 ? index.largest(previous) : 0);
+    }
+
+    @Benchmark
+    public int floodFill() {
+        int x = nextX();
+        int y = random.nextInt(width);
+        int owner = random.nextInt(OWNERS);
+        int previous = grid[x * width + y];
+        grid[x * width + y] = owner;
+        return largest(owner) + largest(previous);
+    }
+
+    // 띠 경계 근처 (±8칸)
+    private int nextX() {
+        int border = (random.nextInt(OWNERS - 1) + 1) * width / OWNERS;
+        return Math.floorMod(border + random.nextInt(-8, 8), width);
+    }
+
+    private int largest(int owner) {
+        Arrays.fill(seen, false);
+        int largest = 0;
+        for (int start = 0; start < grid.length; start++) {
+            if (grid[start] != owner || seen[start]) continue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            seen[start] = true;
+            while (head < tail) {
+                int cell = queue[head++];
+                int x = cell / width;
+                int y = cell % width;
+                if (x > 0) tail = visit(cell - width, owner, tail);
+                if (x < width - 1) tail = visit(cell + width, owner, tail);
+                if (y > 0) tail = visit(cell - 1, owner, tail);
+                if (y < width - 1) tail = visit(cell + 1, owner, tail);
+            }
+            largest = Math.max(largest, tail);
+        }
+        return largest;
+    }
+
+    private int visit(int cell, int owner, int tail) {
+        if (grid[cell] == owner && !seen[cell]) {
+            seen[cell] = true;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+}
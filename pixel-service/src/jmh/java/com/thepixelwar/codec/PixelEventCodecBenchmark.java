@@ -0,0 +1,66 @@
+package com.thepixelwar.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thepixelwar.canvas.Palette;
+import com.thepixelwar.dto.PixelEvent;
+import com.thepixelwar.dto.PixelRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 픽셀 이벤트 직렬화 비교: 예전 JSON(PixelRequest + ObjectMapper) vs PixelEventCodec 바이너리
+ * ./gradlew jmh 로 실행 (gc 프로파일러로 op당 할당량도 같이 확인)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixelEventCodecBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PixelRequest request;
+    private PixelEvent event;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        request = new PixelRequest(37.5, 127.5, "#FF4500", "kakao_1234567890");
+        event = new PixelEvent(125000, 425000, Palette.indexOf("#FF4500"), "kakao_1234567890", System.currentTimeMillis());
+        json = objectMapper.writeValueAsBytes(request);
+        binary = PixelEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public PixelRequest jsonDeserialize() throws Exception {
+        return objectMapper.readValue(json, PixelRequest.class);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return PixelEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public PixelEvent binaryDeserialize() {
+        return PixelEventCodec.decode(binary);
+    }
+}
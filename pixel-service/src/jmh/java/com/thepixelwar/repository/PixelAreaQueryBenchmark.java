@@ -0,0 +1,177 @@
+package com.thepixelwar.repository;
+
+import com.thepixelwar.canvas.MortonKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * pixels 테이블 단건/사각형 조회 비교: 예전 스키마(uk_pixels_xy (x, y) 복합 인덱스) + x, y 조건 쿼리 vs cell_key 인덱스 구간 스캔
+ * 같은 데이터를 두 테이블에 넣음: pixels_xy = cell_key 전환 전 (x, y) 유니크 키, pixels = 지금 스키마
+ * 쿼리 모양은 PixelRepository와 같음 (areaSql, MAX_AREA_RANGES 재사용)
+ *
+ * 기본은 H2 메모리 DB(MySQL 모드), -Dbench.jdbc.url=jdbc:mysql://... 로 실제 MySQL에도 돌릴 수 있음
+ * ./gradlew jmh -Pjmh.includes=PixelAreaQueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PixelAreaQueryBenchmark {
+
+    // 화면 하나 정도의 사각형 (격자 칸 수)
+    private static final int VIEW_WIDTH = 100;
+    private static final int VIEW_HEIGHT = 150;
+
+    @Param({"1000000", "10000000"})
+    private int pixels;
+
+    private Connection connection;
+    private PreparedStatement byCellKey;
+    private PreparedStatement byXy;
+    private PreparedStatement areaByXy;
+    private int side;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:h2:mem:pixel-bench;MODE=MySQL;DB_CLOSE_DELAY=-1"),
+                System.getProperty("bench.jdbc.user", "sa"),
+                System.getProperty("bench.jdbc.password", ""));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists pixels");
+            statement.execute("drop table if exists pixels_xy");
+            statement.execute("create table pixels_xy (id bigint auto_increment primary key, x int not null, y int not null, "
+                    + "color_index tinyint unsigned not null, user_id varchar(255), "
+                    + "constraint uk_pixels_xy unique (x, y))");
+            statement.execute("create table pixels (id bigint auto_increment primary key, x int not null, y int not null, "
+                    + "cell_key bigint not null, color_index tinyint unsigned not null, user_id varchar(255), "
+                    + "constraint uk_pixels_cell_key unique (cell_key))");
+        }
+
+        // 한 변 side인 정사각형에 1/8 정도 밀도로 채움
+        side = (int) Math.ceil(Math.sqrt(pixels * 8.0));
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into pixels (x, y, cell_key, color_index, user_id) values (?, ?, ?, ?, ?)");
+             PreparedStatement insertXy = connection.prepareStatement(
+                     "insert into pixels_xy (x, y, color_index, user_id) values (?, ?, ?, ?)")) {
+            int inserted = 0;
+            for (int x = 0; x < side && inserted < pixels; x++) {
+                for (int y = 0; y < side && inserted < pixels; y++) {
+                    if ((((x * 31 + y * 17) ^ (x >> 3)) & 7) != 0) continue;
+                    insert.setInt(1, x);
+                    insert.setInt(2, y);
+                    insert.setLong(3, MortonKey.encode(x, y));
+                    insert.setInt(4, (x + y) & 31);
+                    insert.setString(5, "user" + (inserted % 1000));
+                    insert.addBatch();
+                    insertXy.setInt(1, x);
+                    insertXy.setInt(2, y);
+                    insertXy.setInt(3, (x + y) & 31);
+                    insertXy.setString(4, "user" + (inserted % 1000));
+                    insertXy.addBatch();
+                    if (++inserted % 10_000 == 0) {
+                        insert.executeBatch();
+                        insertXy.executeBatch();
+                        connection.commit();
+                    }
+                }
+            }
+            insert.executeBatch();
+            insertXy.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+
+        byCellKey = connection.prepareStatement("select * from pixels where cell_key = ?");
+        byXy = connection.prepareStatement("select * from pixels_xy where x = ? and y = ?");
+        areaByXy = connection.prepareStatement("select * from pixels_xy where x >= ? and x <= ? and y >= ? and y <= ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table pixels");
+            statement.execute("drop table pixels_xy");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public int lookupByCellKey() throws SQLException {
+        byCellKey.setLong(1, MortonKey.encode(random.nextInt(side), random.nextInt(side)));
+        return count(byCellKey);
+    }
+
+    @Benchmark
+    public int lookupByXyIndex() throws SQLException {
+        byXy.setInt(1, random.nextInt(side));
+        byXy.setInt(2, random.nextInt(side));
+        return count(byXy);
+    }
+
+    @Benchmark
+    public int areaByCellKeyRanges() throws SQLException {
+        int minX = random.nextInt(side - VIEW_WIDTH);
+        int minY = random.nextInt(side - VIEW_HEIGHT);
+        int maxX = minX + VIEW_WIDTH - 1;
+        int maxY = minY + VIEW_HEIGHT - 1;
+
+        List<long[]> ranges = MortonKey.ranges(minX, maxX, minY, maxY, PixelRepository.MAX_AREA_RANGES);
+        try (PreparedStatement statement = connection.prepareStatement(PixelRepository.areaSql(ranges.size()))) {
+            int index = 1;
+            for (long[] range : ranges) {
+                statement.setLong(index++, range[0]);
+                statement.setLong(index++, range[1]);
+                statement.setInt(index++, minX);
+                statement.setInt(index++, maxX);
+                statement.setInt(index++, minY);
+                statement.setInt(index++, maxY);
+            }
+            return count(statement);
+        }
+    }
+
+    @Benchmark
+    public int areaByXyIndex() throws SQLException {
+        int minX = random.nextInt(side - VIEW_WIDTH);
+        int minY = random.nextInt(side - VIEW_HEIGHT);
+        areaByXy.setInt(1, minX);
+        areaByXy.setInt(2, minX + VIEW_WIDTH - 1);
+        areaByXy.setInt(3, minY);
+        areaByXy.setInt(4, minY + VIEW_HEIGHT - 1);
+        return count(areaByXy);
+    }
+
+    private static int count(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) rows++;
+        }
+        return rows;
+    }
+}
@@ -2,10 +2,12 @@ package com.thepixelwar;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 // 해당 클래스 기준으로 하위 패키지에 @Service, @Component, @Controller 등을 모두 찾아 Spring Bean에 등록
 // 내장 서버(Tomcat)을 실행시켜 서버를 킴
 @SpringBootApplication
+@EnableScheduling // @Scheduled 주기 작업 활성화 (픽셀 브로드캐스트 flush 등)
 public class PixelServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(PixelServiceApplication.class, args); // Spring Boot를 실행시키는 명령어
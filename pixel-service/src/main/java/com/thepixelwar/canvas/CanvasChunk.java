@@ -0,0 +1,299 @@
+package com.thepixelwar.canvas;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * CHUNK_SIZE × CHUNK_SIZE 칸짜리 캔버스 조각
+ * 칸마다 색(팔레트 인덱스 1바이트)과 주인(UserIdInterner id, 0 = 빈 칸)을 기본형 배열에 행 우선으로 저장
+ * 읽기/쓰기는 청크 단위로 동기화 (한 칸의 색과 주인이 어긋나 보이지 않도록)
+ * 청크 안의 TILE_SIZE 타일마다 버전(바뀐 횟수)을 세어서 타일 캐시/ETag에 씀
+ * 타일마다 최근 CHANGE_LOG_SIZE번의 변경 위치를 링 버퍼로 남겨서 "버전 V 이후 변경분" 조회에 씀
+ * 축소 화면용으로 4×4 칸을 한 칸으로 줄인 요약(LOD)을 청크 하나가 한 칸이 될 때까지 겹겹이 유지함
+ */
+final class CanvasChunk {
+
+    static final int CELLS = CanvasGrid.CHUNK_SIZE * CanvasGrid.CHUNK_SIZE;
+    static final int TILES_PER_SIDE = CanvasGrid.CHUNK_SIZE / CanvasGrid.TILE_SIZE;
+    static final int TILE_CELLS = CanvasGrid.TILE_SIZE * CanvasGrid.TILE_SIZE;
+    static final int CHANGE_LOG_SIZE = 256;
+    // 스냅샷 파일에서 청크 하나가 차지하는 바이트 (색 1바이트 + 주인 4바이트씩)
+    static final int SNAPSHOT_BYTES = CELLS + CELLS * Integer.BYTES;
+
+    final int originX;
+    final int originY;
+
+    private final byte[] colors = new byte[CELLS];
+    private final int[] owners = new int[CELLS];
+    private final long[] tileVersions = new long[TILES_PER_SIDE * TILES_PER_SIDE];
+    // 타일별 변경 링: changeLogs[tile][version % CHANGE_LOG_SIZE] = 그 버전에서 바뀐 칸 (타일 안 인덱스), 처음 바뀔 때 할당
+    private final short[][] changeLogs = new short[TILES_PER_SIDE * TILES_PER_SIDE][];
+    // 이 버전 이전 변경은 링에 없음 (스냅샷에서 복원한 타일은 복원 시점부터 기록)
+    private final long[] changeLogFloors = new long[TILES_PER_SIDE * TILES_PER_SIDE];
+    private int paintedCount;
+
+    // 요약 레벨 L(1..LOD_LEVELS)의 칸마다 [L - 1]에 가장 많이 칠해진 색(빈 곳은 Palette.EMPTY)과 칠해진 원본 칸 수
+    // 색은 아래 레벨 16칸의 색을 칠해진 칸 수만큼 가중치로 세서 고름 (원본 전체를 세지 않아도 되도록)
+    private final byte[][] lodColors = new byte[CanvasGrid.LOD_LEVELS][];
+    private final int[][] lodCounts = new int[CanvasGrid.LOD_LEVELS][];
+    private final int[] lodHistogram = new int[Palette.size()];
+
+    CanvasChunk(int chunkX, int chunkY) {
+        this.originX = chunkX * CanvasGrid.CHUNK_SIZE;
+        this.originY = chunkY * CanvasGrid.CHUNK_SIZE;
+        for (int level = 1; level <= CanvasGrid.LOD_LEVELS; level++) {
+            int side = lodSide(level);
+            lodColors[level - 1] = new byte[side * side];
+            lodCounts[level - 1] = new int[side * side];
+            Arrays.fill(lodColors[level - 1], (byte) Palette.EMPTY);
+        }
+    }
+
+    // 레벨 L에서 청크 한 변의 요약 칸 수
+    private static int lodSide(int level) {
+        return CanvasGrid.CHUNK_SIZE / CanvasGrid.blockSize(level);
+    }
+
+    private int index(int x, int y) {
+        return (x - originX) * CanvasGrid.CHUNK_SIZE + (y - originY);
+    }
+
+    private int tileIndex(int x, int y) {
+        return ((x - originX) / CanvasGrid.TILE_SIZE) * TILES_PER_SIDE + (y - originY) / CanvasGrid.TILE_SIZE;
+    }
+
+    synchronized void set(int x, int y, int color, int owner) {
+        int i = index(x, y);
+        if (owners[i] == owner && colors[i] == (byte) color) return; // 바뀐 게 없으면 버전도 그대로
+        if (owners[i] == 0) paintedCount++;
+        colors[i] = (byte) color;
+        owners[i] = owner;
+        recordChange(x, y);
+        updateLod(x - originX, y - originY);
+    }
+
+    // 비어있는 칸만 채움 (DB 적재 중 이미 Kafka로 더 최신 값이 들어온 칸은 건드리지 않음)
+    // 칸마다 요약을 고치지 않으므로 적재가 끝나면 rebuildLod()를 한 번 불러야 함
+    synchronized boolean setIfEmpty(int x, int y, int color, int owner) {
+        int i = index(x, y);
+        if (owners[i] != 0) return false;
+        paintedCount++;
+        colors[i] = (byte) color;
+        owners[i] = owner;
+        recordChange(x, y);
+        return true;
+    }
+
+    private void recordChange(int x, int y) {
+        int tile = tileIndex(x, y);
+        long version = ++tileVersions[tile];
+        if (changeLogs[tile] == null) changeLogs[tile] = new short[CHANGE_LOG_SIZE];
+        int cell = ((x - originX) % CanvasGrid.TILE_SIZE) * CanvasGrid.TILE_SIZE + (y - originY) % CanvasGrid.TILE_SIZE;
+        changeLogs[tile][(int) (version % CHANGE_LOG_SIZE)] = (short) cell;
+    }
+
+    // 바뀐 칸(청크 안 dx, dy)을 품은 요약 칸만 아래 레벨부터 다시 계산 (레벨마다 16칸씩)
+    private void updateLod(int dx, int dy) {
+        for (int level = 1; level <= CanvasGrid.LOD_LEVELS; level++) {
+            int blockSize = CanvasGrid.blockSize(level);
+            summarize(level, dx / blockSize, dy / blockSize);
+        }
+    }
+
+    // 레벨 L의 요약 칸 (bx, by)를 바로 아래 레벨의 4×4칸으로 다시 채움
+    private void summarize(int level, int bx, int by) {
+        Arrays.fill(lodHistogram, 0);
+        int painted = 0;
+        int childSide = lodSide(level - 1);
+        for (int cx = bx * 4; cx < bx * 4 + 4; cx++) {
+            for (int cy = by * 4; cy < by * 4 + 4; cy++) {
+                int child = cx * childSide + cy;
+                int weight;
+                int color;
+                if (level == 1) {
+                    weight = owners[child] == 0 ? 0 : 1;
+                    color = Byte.toUnsignedInt(colors[child]);
+                } else {
+                    weight = lodCounts[level - 2][child];
+                    color = Byte.toUnsignedInt(lodColors[level - 2][child]);
+                }
+                if (weight == 0 || color >= lodHistogram.length) continue;
+                lodHistogram[color] += weight;
+                painted += weight;
+            }
+        }
+        int dominant = Palette.EMPTY;
+        for (int color = 0; color < lodHistogram.length; color++) {
+            if (lodHistogram[color] > 0 && (dominant == Palette.EMPTY || lodHistogram[color] > lodHistogram[dominant])) {
+                dominant = color;
+            }
+        }
+        int block = bx * lodSide(level) + by;
+        lodColors[level - 1][block] = (byte) dominant;
+        lodCounts[level - 1][block] = painted;
+    }
+
+    // 스냅샷 복원/DB 적재처럼 칸을 한꺼번에 채운 뒤 요약 전체를 아래 레벨부터 다시 만듦
+    synchronized void rebuildLod() {
+        for (int level = 1; level <= CanvasGrid.LOD_LEVELS; level++) {
+            int side = lodSide(level);
+            for (int bx = 0; bx < side; bx++) {
+                for (int by = 0; by < side; by++) {
+                    summarize(level, bx, by);
+                }
+            }
+        }
+    }
+
+    // 팔레트 인덱스 (빈 칸이면 -1)
+    synchronized int colorAt(int x, int y) {
+        int i = index(x, y);
+        return owners[i] == 0 ? -1 : Byte.toUnsignedInt(colors[i]);
+    }
+
+    synchronized long tileVersion(int tileX, int tileY) {
+        return tileVersions[tileIndex(tileX * CanvasGrid.TILE_SIZE, tileY * CanvasGrid.TILE_SIZE)];
+    }
+
+    /**
+     * 타일 하나의 색을 out[dx * TILE_SIZE + dy]에 복사 (빈 칸은 Palette.EMPTY), 복사한 시점의 타일 버전을 반환
+     */
+    synchronized long copyTile(int tileX, int tileY, byte[] out) {
+        return copyTile(tileX, tileY, out, null);
+    }
+
+    // 주인 id까지 같이 복사 (ownersOut이 null이면 색만, 빈 칸은 주인 0)
+    synchronized long copyTile(int tileX, int tileY, byte[] colorsOut, int[] ownersOut) {
+        int fromX = tileX * CanvasGrid.TILE_SIZE - originX;
+        int fromY = tileY * CanvasGrid.TILE_SIZE - originY;
+        for (int dx = 0; dx < CanvasGrid.TILE_SIZE; dx++) {
+            int row = (fromX + dx) * CanvasGrid.CHUNK_SIZE + fromY;
+            for (int dy = 0; dy < CanvasGrid.TILE_SIZE; dy++) {
+                colorsOut[dx * CanvasGrid.TILE_SIZE + dy] = owners[row + dy] == 0 ? (byte) Palette.EMPTY : colors[row + dy];
+            }
+            if (ownersOut != null) System.arraycopy(owners, row, ownersOut, dx * CanvasGrid.TILE_SIZE, CanvasGrid.TILE_SIZE);
+        }
+        return tileVersion(tileX, tileY);
+    }
+
+    /**
+     * since 이후 바뀐 칸들의 현재 색 (칸마다 한 번, 최근 것부터)
+     * 링 버퍼가 이미 덮어써졌거나 since가 이상하면 타일 전체의 칠해진 칸으로 대신함 (full = true)
+     */
+    synchronized CanvasStore.TileChanges changesSince(int tileX, int tileY, long since) {
+        int tile = tileIndex(tileX * CanvasGrid.TILE_SIZE, tileY * CanvasGrid.TILE_SIZE);
+        long version = tileVersions[tile];
+        int fromX = tileX * CanvasGrid.TILE_SIZE - originX;
+        int fromY = tileY * CanvasGrid.TILE_SIZE - originY;
+        if (since < changeLogFloors[tile] || since > version || version - since > CHANGE_LOG_SIZE) {
+            return new CanvasStore.TileChanges(version, true, paintedCells(fromX, fromY));
+        }
+
+        int[] cells = new int[(int) (version - since) * 2];
+        int n = 0;
+        BitSet seen = new BitSet(TILE_CELLS);
+        for (long v = version; v > since; v--) {
+            int cell = changeLogs[tile][(int) (v % CHANGE_LOG_SIZE)];
+            if (seen.get(cell)) continue;
+            seen.set(cell);
+            int i = (fromX + cell / CanvasGrid.TILE_SIZE) * CanvasGrid.CHUNK_SIZE + fromY + cell % CanvasGrid.TILE_SIZE;
+            cells[n++] = cell;
+            cells[n++] = Byte.toUnsignedInt(colors[i]);
+        }
+        return new CanvasStore.TileChanges(version, false, Arrays.copyOf(cells, n));
+    }
+
+    // 타일 안 칠해진 칸 전부 {칸, 색, 칸, 색, ...}
+    private int[] paintedCells(int fromX, int fromY) {
+        int[] cells = new int[TILE_CELLS * 2];
+        int n = 0;
+        for (int dx = 0; dx < CanvasGrid.TILE_SIZE; dx++) {
+            int row = (fromX + dx) * CanvasGrid.CHUNK_SIZE + fromY;
+            for (int dy = 0; dy < CanvasGrid.TILE_SIZE; dy++) {
+                if (owners[row + dy] == 0) continue;
+                cells[n++] = dx * CanvasGrid.TILE_SIZE + dy;
+                cells[n++] = Byte.toUnsignedInt(colors[row + dy]);
+            }
+        }
+        return Arrays.copyOf(cells, n);
+    }
+
+    // 스냅샷에 색 배열, 주인 배열 순서로 씀 (out의 위치를 SNAPSHOT_BYTES만큼 옮김)
+    synchronized void writeTo(ByteBuffer out) {
+        out.put(colors);
+        out.asIntBuffer().put(owners);
+        out.position(out.position() + CELLS * Integer.BYTES);
+    }
+
+    /**
+     * 스냅샷에서 통째로 채움 (ownerIds: 스냅샷 안 주인 id → 이 프로세스의 id)
+     * 칠해진 칸이 있는 타일은 버전 1에서 시작하고, 그 이전 변경분은 없는 것으로 취급
+     */
+    synchronized void restore(ByteBuffer in, int[] ownerIds) {
+        in.get(colors);
+        IntBuffer snapshotOwners = in.asIntBuffer();
+        paintedCount = 0;
+        for (int i = 0; i < CELLS; i++) {
+            int owner = snapshotOwners.get(i);
+            owners[i] = owner == 0 ? 0 : ownerIds[owner];
+            if (owner == 0) continue;
+            paintedCount++;
+            int tile = (i / CanvasGrid.CHUNK_SIZE / CanvasGrid.TILE_SIZE) * TILES_PER_SIDE
+                    + (i % CanvasGrid.CHUNK_SIZE) / CanvasGrid.TILE_SIZE;
+            tileVersions[tile] = 1;
+            changeLogFloors[tile] = 1;
+        }
+        rebuildLod();
+    }
+
+    synchronized int paintedCount() {
+        return paintedCount;
+    }
+
+    /**
+     * 청크 안의 [minX, maxX] × [minY, maxY] 범위(청크 경계로 잘라서)에서 칠해진 칸만 방문
+     */
+    synchronized void forEach(int minX, int maxX, int minY, int maxY,
+                              UserIdInterner users, CanvasStore.CellVisitor visitor) {
+        if (paintedCount == 0) return;
+        int fromX = Math.max(minX, originX) - originX;
+        int toX = Math.min(maxX, originX + CanvasGrid.CHUNK_SIZE - 1) - originX;
+        int fromY = Math.max(minY, originY) - originY;
+        int toY = Math.min(maxY, originY + CanvasGrid.CHUNK_SIZE - 1) - originY;
+
+        for (int dx = fromX; dx <= toX; dx++) {
+            int row = dx * CanvasGrid.CHUNK_SIZE;
+            for (int dy = fromY; dy <= toY; dy++) {
+                int owner = owners[row + dy];
+                if (owner != 0) {
+                    visitor.visit(originX + dx, originY + dy, Byte.toUnsignedInt(colors[row + dy]), users.userId(owner));
+                }
+            }
+        }
+    }
+
+    /**
+     * 레벨 L 요약 칸 중 [minX, maxX] × [minY, maxY]에 걸친 칸을 방문 (x, y는 요약 칸이 덮는 원본 영역의 시작 칸)
+     */
+    synchronized void forEachBlock(int level, int minX, int maxX, int minY, int maxY, CanvasStore.BlockVisitor visitor) {
+        if (paintedCount == 0) return;
+        int blockSize = CanvasGrid.blockSize(level);
+        int side = lodSide(level);
+        int fromBx = (Math.max(minX, originX) - originX) / blockSize;
+        int toBx = (Math.min(maxX, originX + CanvasGrid.CHUNK_SIZE - 1) - originX) / blockSize;
+        int fromBy = (Math.max(minY, originY) - originY) / blockSize;
+        int toBy = (Math.min(maxY, originY + CanvasGrid.CHUNK_SIZE - 1) - originY) / blockSize;
+
+        for (int bx = fromBx; bx <= toBx; bx++) {
+            for (int by = fromBy; by <= toBy; by++) {
+                int painted = lodCounts[level - 1][bx * side + by];
+                if (painted > 0) {
+                    visitor.visit(originX + bx * blockSize, originY + by * blockSize,
+                            Byte.toUnsignedInt(lodColors[level - 1][bx * side + by]), painted);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.thepixelwar.canvas;
+
+/**
+ * 위도/경도 ↔ 격자 좌표 변환
+ * (script.js의 GRID_SIZE, EPSILON과 반드시 일치해야 함)
+ */
+public final class CanvasGrid {
+
+    public static final double GRID_SIZE = 0.0003;
+    public static final double EPSILON = 0.0000001;
+
+    // 실시간 전송 단위 타일 한 변의 칸 수 (script.js의 TILE_SIZE와 일치)
+    public static final int TILE_SIZE = 64;
+
+    // 메모리 캔버스(CanvasStore) 청크 한 변의 칸 수
+    public static final int CHUNK_SIZE = 256;
+
+    // 축소 화면용 요약(LOD) 단계 수: 레벨 L 칸 하나 = 원본 4^L × 4^L 칸, 가장 높은 레벨 칸 하나가 청크 하나
+    public static final int LOD_LEVELS = 4;
+
+    private CanvasGrid() {
+    }
+
+    // 실제 지도 범위 안의 좌표인지 (NaN/무한대도 거름) → 범위 밖 좌표는 찍기 전에 거절
+    public static boolean isOnMap(double lat, double lng) {
+        return lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180;
+    }
+
+    // 위도 또는 경도 → 격자 인덱스
+    public static int toCell(double degree) {
+        return (int) Math.floor((degree + EPSILON) / GRID_SIZE);
+    }
+
+    // 격자 인덱스 → 스냅된 위도 또는 경도
+    public static double toDegree(int cell) {
+        return cell * GRID_SIZE;
+    }
+
+    // 격자 인덱스 → 타일 인덱스 (음수 좌표도 아래쪽으로 내림)
+    public static int tileOf(int cell) {
+        return Math.floorDiv(cell, TILE_SIZE);
+    }
+
+    // 격자 인덱스 → 청크 인덱스 (음수 좌표도 아래쪽으로 내림)
+    public static int chunkOf(int cell) {
+        return Math.floorDiv(cell, CHUNK_SIZE);
+    }
+
+    // 레벨 L 요약 칸 한 변의 원본 칸 수 (레벨 0 = 1)
+    public static int blockSize(int level) {
+        return 1 << (2 * level);
+    }
+
+    // (x, y)를 long 하나로 묶은 맵 키 (상위 32비트 x, 하위 32비트 y)
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int keyY(long key) {
+        return (int) key;
+    }
+}
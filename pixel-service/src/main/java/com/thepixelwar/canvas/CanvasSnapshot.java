@@ -0,0 +1,155 @@
+package com.thepixelwar.canvas;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 캔버스 스냅샷 파일 (메모리 맵으로 읽고 씀, 모든 정수는 big-endian)
+ *
+ * [헤더 64바이트] magic, 포맷 버전, 만든 시각, 팔레트 크기, 청크 크기, 파티션 수, 청크 수, 유저 표 위치
+ * [파티션 표]     (partition 4, 다음에 재생할 오프셋 8) × 파티션 수
+ * [청크 색인]     (chunkX 4, chunkY 4, 데이터 위치 8) × 청크 수
+ * [청크 데이터]   청크마다 색(팔레트 인덱스) CELLS바이트 + 주인 id CELLS × 4바이트
+ * [유저 표]       개수 4 + userId(writeUTF) × 개수, 주인 id 1번부터 순서대로
+ *
+ * 오프셋은 청크를 복사하기 전에 잡은 값이라, 스냅샷 내용은 "적어도 그 오프셋까지" 반영된 상태
+ * → 그 오프셋부터 순서대로 다시 적용하면 항상 최신 상태로 수렴함
+ */
+final class CanvasSnapshot {
+
+    static final int MAGIC = 0x5058534E; // "PXSN"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    private static final int PARTITION_ENTRY_BYTES = 4 + 8;
+    private static final int CHUNK_ENTRY_BYTES = 4 + 4 + 8;
+
+    record Restored(long createdAt, Map<Integer, Long> offsets, int chunkCount) {
+    }
+
+    private CanvasSnapshot() {
+    }
+
+    /**
+     * 임시 파일에 다 쓴 뒤 원자적으로 바꿔치기 (쓰다가 죽어도 이전 스냅샷은 그대로)
+     */
+    static void write(Path path, Collection<CanvasChunk> chunks, UserIdInterner users,
+                      Map<Integer, Long> offsets) throws IOException {
+        List<CanvasChunk> painted = new ArrayList<>();
+        for (CanvasChunk chunk : chunks) {
+            if (chunk.paintedCount() > 0) painted.add(chunk);
+        }
+        Map<Integer, Long> sortedOffsets = new TreeMap<>(offsets);
+        long dataStart = HEADER_BYTES + (long) sortedOffsets.size() * PARTITION_ENTRY_BYTES
+                + (long) painted.size() * CHUNK_ENTRY_BYTES;
+        long userTableStart = dataStart + (long) painted.size() * CanvasChunk.SNAPSHOT_BYTES;
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataStart);
+            head.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(System.currentTimeMillis())
+                    .putInt(Palette.size()).putInt(CanvasGrid.CHUNK_SIZE)
+                    .putInt(sortedOffsets.size()).putInt(painted.size()).putLong(userTableStart);
+            head.position(HEADER_BYTES);
+            sortedOffsets.forEach((partition, offset) -> head.putInt(partition).putLong(offset));
+            for (int i = 0; i < painted.size(); i++) {
+                CanvasChunk chunk = painted.get(i);
+                head.putInt(chunk.originX / CanvasGrid.CHUNK_SIZE).putInt(chunk.originY / CanvasGrid.CHUNK_SIZE)
+                        .putLong(dataStart + (long) i * CanvasChunk.SNAPSHOT_BYTES);
+            }
+
+            // 청크마다 따로 매핑 (전체를 한 번에 매핑하면 2GB 제한에 걸릴 수 있음)
+            for (int i = 0; i < painted.size(); i++) {
+                painted.get(i).writeTo(channel.map(FileChannel.MapMode.READ_WRITE,
+                        dataStart + (long) i * CanvasChunk.SNAPSHOT_BYTES, CanvasChunk.SNAPSHOT_BYTES));
+            }
+
+            // 유저 표는 청크를 다 쓴 뒤에 잡음 (id는 늘어나기만 하므로 청크에 나온 id는 전부 들어있음)
+            channel.write(ByteBuffer.wrap(userTable(users.snapshot())), userTableStart);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 스냅샷을 매핑해서 청크들을 into에 채우고 (키 = CanvasGrid.key(chunkX, chunkY)), 헤더 정보를 돌려줌
+     * 형식이 다르거나(팔레트/청크 크기 변경 포함) 깨졌으면 IOException
+     */
+    static Restored read(Path path, UserIdInterner users, Map<Long, CanvasChunk> into) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new IOException("스냅샷이 너무 짧음: " + channel.size() + " bytes");
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (head.getInt() != MAGIC) throw new IOException("스냅샷 파일이 아님: " + path);
+            int version = head.getInt();
+            if (version != FORMAT_VERSION) throw new IOException("지원하지 않는 스냅샷 버전: " + version);
+            long createdAt = head.getLong();
+            int paletteSize = head.getInt();
+            int chunkSize = head.getInt();
+            if (paletteSize != Palette.size() || chunkSize != CanvasGrid.CHUNK_SIZE) {
+                throw new IOException("팔레트/청크 크기가 다른 스냅샷: palette " + paletteSize + ", chunk " + chunkSize);
+            }
+            int partitionCount = head.getInt();
+            int chunkCount = head.getInt();
+            long userTableStart = head.getLong();
+
+            MappedByteBuffer tables = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+                    (long) partitionCount * PARTITION_ENTRY_BYTES + (long) chunkCount * CHUNK_ENTRY_BYTES);
+            Map<Integer, Long> offsets = new TreeMap<>();
+            for (int i = 0; i < partitionCount; i++) {
+                offsets.put(tables.getInt(), tables.getLong());
+            }
+
+            int[] ownerIds = ownerIds(channel, userTableStart, users);
+            for (int i = 0; i < chunkCount; i++) {
+                int chunkX = tables.getInt();
+                int chunkY = tables.getInt();
+                long dataOffset = tables.getLong();
+                CanvasChunk chunk = new CanvasChunk(chunkX, chunkY);
+                chunk.restore(channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, CanvasChunk.SNAPSHOT_BYTES), ownerIds);
+                into.put(CanvasGrid.key(chunkX, chunkY), chunk);
+            }
+            return new Restored(createdAt, offsets, chunkCount);
+        }
+    }
+
+    private static byte[] userTable(String[] userIds) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(userIds.length - 1);
+        for (int id = 1; id < userIds.length; id++) {
+            out.writeUTF(userIds[id]);
+        }
+        return bytes.toByteArray();
+    }
+
+    // 스냅샷 안 주인 id → 이 프로세스의 UserIdInterner id
+    private static int[] ownerIds(FileChannel channel, long userTableStart, UserIdInterner users) throws IOException {
+        MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, userTableStart, channel.size() - userTableStart);
+        byte[] bytes = new byte[table.remaining()];
+        table.get(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int count = in.readInt();
+        int[] ids = new int[count + 1];
+        for (int id = 1; id <= count; id++) {
+            ids[id] = users.idOf(in.readUTF());
+        }
+        return ids;
+    }
+}
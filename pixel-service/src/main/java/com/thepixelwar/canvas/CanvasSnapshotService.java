@@ -0,0 +1,216 @@
+package com.thepixelwar.canvas;
+
+import com.thepixelwar.dto.PixelEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 캔버스 스냅샷으로 빠르게 기동하기
+ * - 주기적으로(+ 종료 직전에) 메모리 캔버스를 스냅샷 파일로 저장
+ * - 기동 시 스냅샷이 있으면 매핑해서 올리고, 스냅샷에 적힌 오프셋부터 pixel-updates를 끝까지 재생
+ * - 스냅샷이 없거나 못 쓰는 경우(깨짐, 팔레트 변경, 오프셋이 보존 기간 밖)는 예전처럼 DB에서 적재
+ *
+ * 복원하는 동안 PixelViewConsumer가 반영하려는 변경은 CanvasStore가 모아뒀다가 재생이 끝난 뒤 순서대로 반영함
+ * (재생과 실시간 반영이 뒤섞여 옛 값이 새 값을 덮는 일이 없도록)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CanvasSnapshotService {
+
+    static final String TOPIC = "pixel-updates";
+    static final String CONSUMER_GROUP = "pixel-war-group"; // DB에 저장하는 PixelConsumer의 그룹 (커밋된 오프셋 조회용)
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final CanvasStore canvasStore;
+    private final ConsumerFactory<String, PixelEvent> consumerFactory;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "canvas-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean writing = new AtomicBoolean();
+
+    @Value("${pixel.snapshot.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${pixel.snapshot.path:data/canvas.snapshot}")
+    private String path = "data/canvas.snapshot";
+
+    // 재생이 이 시간 안에 끝나지 않으면 포기하고 DB에서 적재
+    @Value("${pixel.snapshot.replay-timeout-ms:120000}")
+    private long replayTimeoutMs = 120000;
+
+    // 컨슈머가 캔버스를 건드리기 전에 (리스너 컨테이너는 빈 초기화가 모두 끝난 뒤 시작됨)
+    @PostConstruct
+    void holdUpdatesIfSnapshotExists() {
+        if (enabled && Files.isRegularFile(snapshotPath())) {
+            canvasStore.holdUpdates();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE) // 캔버스를 쓰는 다른 기동 작업보다 먼저
+    public void warmStart() {
+        if (enabled && Files.isRegularFile(snapshotPath())) {
+            try {
+                restoreAndReplay();
+                return;
+            } catch (Exception e) {
+                log.warn("캔버스 스냅샷 복원 실패, DB에서 다시 적재합니다: {}", e.getMessage());
+                canvasStore.clear();
+            }
+        }
+        canvasStore.releaseUpdates();
+        if (enabled) recordCommittedOffsets();
+        canvasStore.load();
+    }
+
+    // 스냅샷 저장은 수백 ms 걸리므로 스케줄러 스레드(50ms 브로드캐스트 flush 등과 공유)가 아닌 전용 스레드에서
+    @Scheduled(fixedDelayString = "${pixel.snapshot.interval-ms:60000}",
+            initialDelayString = "${pixel.snapshot.interval-ms:60000}")
+    public void scheduleSnapshot() {
+        if (!writing.compareAndSet(false, true)) return; // 이전 저장이 아직 안 끝남
+        try {
+            writer.execute(() -> {
+                try {
+                    writeSnapshot();
+                } finally {
+                    writing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            writing.set(false); // 종료 중
+        }
+    }
+
+    public void writeSnapshot() {
+        if (!enabled || !canvasStore.isReady()) return;
+        long start = System.currentTimeMillis();
+        try {
+            int chunks = canvasStore.writeSnapshot(snapshotPath());
+            log.info("캔버스 스냅샷 저장: 청크 {}개 ({}ms)", chunks, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.warn("캔버스 스냅샷 저장 실패", e);
+        }
+    }
+
+    // 배포로 내려갈 때 마지막 상태를 남겨서 다음 기동의 재생 구간을 줄임 (리스너는 이미 멈춘 뒤)
+    @PreDestroy
+    void writeSnapshotOnShutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(30, TimeUnit.SECONDS); // 진행 중인 주기 저장과 겹치지 않게
+        writeSnapshot();
+    }
+
+    private void restoreAndReplay() throws IOException {
+        long start = System.currentTimeMillis();
+        CanvasSnapshot.Restored restored = canvasStore.restoreSnapshot(snapshotPath());
+        long mapped = System.currentTimeMillis();
+        long replayed = replay(restored.offsets());
+        canvasStore.releaseUpdates();
+        canvasStore.markReady();
+        log.info("캔버스 스냅샷 복원 완료: 청크 {}개 ({}ms), 재생 {}건 ({}ms), 스냅샷 시각 {}",
+                restored.chunkCount(), mapped - start, replayed, System.currentTimeMillis() - mapped, restored.createdAt());
+    }
+
+    /**
+     * 파티션마다 스냅샷 오프셋부터, 재생을 시작한 시점의 끝 오프셋까지 순서대로 다시 적용
+     * 스냅샷에 없는 파티션은 처음부터 (앞쪽부터 순서대로 다시 적용하는 건 항상 안전함)
+     */
+    private long replay(Map<Integer, Long> offsets) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "5000");
+        try (Consumer<String, PixelEvent> consumer = consumerFactory.createConsumer(null, "canvas-replay", null, overrides)) {
+            List<TopicPartition> partitions = consumer.partitionsFor(TOPIC).stream()
+                    .map(info -> new TopicPartition(TOPIC, info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+            Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+
+            Set<TopicPartition> remaining = new HashSet<>();
+            for (TopicPartition partition : partitions) {
+                long from = offsets.getOrDefault(partition.partition(), beginning.get(partition));
+                if (from < beginning.get(partition) || from > end.get(partition)) {
+                    // 그 사이 메시지가 지워졌거나 토픽이 다시 만들어짐 → 이어받을 수 없음
+                    throw new IllegalStateException("재생할 수 없는 오프셋: " + partition + "@" + from
+                            + " (범위 " + beginning.get(partition) + "~" + end.get(partition) + ")");
+                }
+                consumer.seek(partition, from);
+                if (from < end.get(partition)) remaining.add(partition);
+            }
+
+            long deadline = System.currentTimeMillis() + replayTimeoutMs;
+            long replayed = 0;
+            while (!remaining.isEmpty()) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("재생 시간 초과, 남은 파티션: " + remaining);
+                }
+                for (ConsumerRecord<String, PixelEvent> record : consumer.poll(POLL_TIMEOUT)) {
+                    PixelEvent event = record.value();
+                    if (event != null) {
+                        canvasStore.replay(event.x(), event.y(), event.color(), event.userId());
+                        replayed++;
+                    }
+                    canvasStore.markApplied(record.partition(), record.offset() + 1);
+                }
+                remaining.removeIf(partition -> consumer.position(partition) >= end.get(partition));
+            }
+            return replayed;
+        }
+    }
+
+    /**
+     * DB에서 적재할 때: PixelConsumer 그룹이 커밋한 오프셋 이전 변경은 DB에 이미 들어있음
+     * → 다음 스냅샷이 처음부터가 아니라 여기서부터 재생하도록 기록해둠 (실패해도 적재에는 지장 없음)
+     */
+    private void recordCommittedOffsets() {
+        try (Consumer<String, PixelEvent> consumer = consumerFactory.createConsumer(CONSUMER_GROUP, "canvas-baseline", null, new Properties())) {
+            Set<TopicPartition> partitions = new HashSet<>();
+            consumer.partitionsFor(TOPIC).forEach(info -> partitions.add(new TopicPartition(TOPIC, info.partition())));
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(partitions);
+            committed.forEach((partition, offset) -> {
+                if (offset != null) canvasStore.markApplied(partition.partition(), offset.offset());
+            });
+        } catch (Exception e) {
+            log.warn("커밋된 오프셋 조회 실패, 다음 스냅샷은 파티션 처음부터 재생합니다: {}", e.getMessage());
+        }
+    }
+
+    private Path snapshotPath() {
+        return Path.of(path);
+    }
+}
@@ -0,0 +1,289 @@
+package com.thepixelwar.canvas;
+
+import com.thepixelwar.repository.PixelRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 프로세스 메모리에 올려둔 전체 캔버스
+ * CHUNK_SIZE × CHUNK_SIZE 청크를 청크 좌표(CanvasGrid.key(cx, cy))로 찾아가고, 칠해진 적 있는 청크만 만듦
+ *
+ * 기동 시 스냅샷 복원 + Kafka 재생(CanvasSnapshotService) 또는 DB에서 한 번 적재하고,
+ * 이후에는 PixelViewConsumer가 인스턴스별 컨슈머 그룹으로 모든 파티션을 읽어 갱신함
+ * 적재가 끝나기 전(isReady() == false)에는 조회 쪽에서 DB로 돌아가야 함
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CanvasStore {
+
+    // 칠해진 칸 하나를 받는 콜백 (조회 시 중간 컬렉션을 만들지 않기 위함)
+    @FunctionalInterface
+    public interface CellVisitor {
+        void visit(int x, int y, int color, String userId); // color: 팔레트 인덱스
+    }
+
+    // 요약(LOD) 칸 하나를 받는 콜백: (x, y)부터 blockSize(level)칸 정사각형, 가장 많은 색과 칠해진 칸 수
+    @FunctionalInterface
+    public interface BlockVisitor {
+        void visit(int x, int y, int color, int painted);
+    }
+
+    // 타일 변경분: cells = {타일 안 칸 인덱스(dx * TILE_SIZE + dy), 팔레트 인덱스, ...}, full이면 타일 전체
+    public record TileChanges(long version, boolean full, int[] cells) {
+    }
+
+    private final PixelRepository pixelRepository;
+
+    private static final int LOAD_FETCH_SIZE = 5000;
+
+    private final Map<Long, CanvasChunk> chunks = new ConcurrentHashMap<>();
+    private final UserIdInterner users = new UserIdInterner();
+    private volatile boolean ready;
+
+    // 파티션별로 캔버스에 반영한 다음 오프셋 (스냅샷에 같이 저장 → 재시작 시 여기서부터 재생)
+    private final Map<Integer, Long> appliedOffsets = new ConcurrentHashMap<>();
+
+    // 스냅샷 복원 중에 들어온 실시간 변경 (null이면 바로 반영)
+    private record PendingSet(int x, int y, int color, String userId) {
+    }
+
+    private final Object pendingLock = new Object();
+    private volatile List<PendingSet> pending;
+
+    // 이 프로세스의 캔버스 식별값 (재시작하면 타일 버전이 0부터 다시 세므로 ETag에 같이 넣음)
+    private final long epoch = System.currentTimeMillis();
+
+    /**
+     * DB → 메모리 적재 (이미 Kafka로 들어온 칸은 더 최신이므로 덮어쓰지 않음)
+     * 엔티티 목록을 만들지 않고 커서로 한 줄씩 읽음
+     */
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+        int[] counts = new int[2]; // 적재, 건너뜀
+        pixelRepository.scanAll(LOAD_FETCH_SIZE, (x, y, color, userId) -> {
+            if (!Palette.isValid(color) || userId == null) {
+                counts[1]++;
+                return;
+            }
+            chunk(x, y).setIfEmpty(x, y, color, users.idOf(userId));
+            counts[0]++;
+        });
+        // 칸마다 요약(LOD)을 고치지 않고 청크마다 한 번에 다시 만듦
+        chunks.values().forEach(CanvasChunk::rebuildLod);
+        int loaded = counts[0];
+        int skipped = counts[1];
+        ready = true;
+        log.info("캔버스 적재 완료: {}칸, 청크 {}개, 건너뜀 {}칸 ({}ms)",
+                loaded, chunks.size(), skipped, System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void set(int x, int y, int color, String userId) {
+        if (pending != null && hold(x, y, color, userId)) return;
+        chunk(x, y).set(x, y, color, users.idOf(userId));
+    }
+
+    // PixelViewConsumer가 배치를 캔버스에 반영한 뒤 호출 (nextOffset = 마지막 오프셋 + 1)
+    public void markApplied(int partition, long nextOffset) {
+        appliedOffsets.merge(partition, nextOffset, Math::max);
+    }
+
+    public Map<Integer, Long> appliedOffsets() {
+        return Map.copyOf(appliedOffsets);
+    }
+
+    /**
+     * 스냅샷 파일로 저장, 저장한 청크 수를 반환
+     * 오프셋을 청크 복사보다 먼저 잡아서, 스냅샷은 항상 "적어도 그 오프셋까지" 반영된 상태가 됨
+     */
+    public int writeSnapshot(Path path) throws IOException {
+        Map<Integer, Long> offsets = appliedOffsets();
+        CanvasSnapshot.write(path, chunks.values(), users, offsets);
+        return chunks.size();
+    }
+
+    // 스냅샷을 통째로 올림 (실패하면 기존 청크는 그대로)
+    CanvasSnapshot.Restored restoreSnapshot(Path path) throws IOException {
+        Map<Long, CanvasChunk> restored = new HashMap<>();
+        CanvasSnapshot.Restored result = CanvasSnapshot.read(path, users, restored);
+        chunks.clear();
+        chunks.putAll(restored);
+        result.offsets().forEach(this::markApplied);
+        return result;
+    }
+
+    // 재생: 복원 중에도 보류하지 않고 바로 반영
+    void replay(int x, int y, int color, String userId) {
+        chunk(x, y).set(x, y, color, users.idOf(userId));
+    }
+
+    // 복원이 끝날 때까지 set()을 보류 (컨슈머가 시작되기 전에 호출해야 함)
+    void holdUpdates() {
+        synchronized (pendingLock) {
+            if (pending == null) pending = new ArrayList<>();
+        }
+    }
+
+    // 보류한 변경을 들어온 순서대로 반영하고 이후로는 바로 반영
+    void releaseUpdates() {
+        synchronized (pendingLock) {
+            if (pending == null) return;
+            for (PendingSet held : pending) {
+                chunk(held.x(), held.y()).set(held.x(), held.y(), held.color(), users.idOf(held.userId()));
+            }
+            log.info("복원 중 보류한 실시간 변경 {}건 반영", pending.size());
+            pending = null;
+        }
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    // 복원 실패 시 반쯤 올라간 상태를 버림
+    void clear() {
+        chunks.clear();
+        appliedOffsets.clear();
+    }
+
+    private boolean hold(int x, int y, int color, String userId) {
+        synchronized (pendingLock) {
+            if (pending == null) return false;
+            pending.add(new PendingSet(x, y, color, userId));
+            return true;
+        }
+    }
+
+    // 팔레트 인덱스 (빈 칸이면 -1)
+    public int colorAt(int x, int y) {
+        CanvasChunk chunk = chunks.get(CanvasGrid.key(CanvasGrid.chunkOf(x), CanvasGrid.chunkOf(y)));
+        return chunk == null ? -1 : chunk.colorAt(x, y);
+    }
+
+    /**
+     * [minX, maxX] × [minY, maxY] (양 끝 포함) 안의 칠해진 칸을 방문
+     * 범위에 걸친 청크 좌표만 돌면서 없는 청크는 건너뜀
+     */
+    public void forEachInBounds(int minX, int maxX, int minY, int maxY, CellVisitor visitor) {
+        forEachChunkInBounds(minX, maxX, minY, maxY, chunk -> chunk.forEach(minX, maxX, minY, maxY, users, visitor));
+    }
+
+    /**
+     * 요약 레벨 level(1..LOD_LEVELS)에서 범위에 걸친 칠해진 요약 칸을 방문
+     * 칸 수가 원본의 1/16^level이라 넓은 범위도 좁은 범위와 비슷한 비용으로 훑음
+     */
+    public void forEachBlockInBounds(int level, int minX, int maxX, int minY, int maxY, BlockVisitor visitor) {
+        forEachChunkInBounds(minX, maxX, minY, maxY, chunk -> chunk.forEachBlock(level, minX, maxX, minY, maxY, visitor));
+    }
+
+    private void forEachChunkInBounds(int minX, int maxX, int minY, int maxY, Consumer<CanvasChunk> action) {
+        int minChunkX = CanvasGrid.chunkOf(minX);
+        int maxChunkX = CanvasGrid.chunkOf(maxX);
+        int minChunkY = CanvasGrid.chunkOf(minY);
+        int maxChunkY = CanvasGrid.chunkOf(maxY);
+
+        // 범위가 너무 넓으면 청크 좌표를 다 찍어보는 것보다 있는 청크를 훑는 게 빠름
+        if ((long) (maxChunkX - minChunkX + 1) * (maxChunkY - minChunkY + 1) > chunks.size()) {
+            chunks.values().forEach(action);
+            return;
+        }
+        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+            for (int cy = minChunkY; cy <= maxChunkY; cy++) {
+                CanvasChunk chunk = chunks.get(CanvasGrid.key(cx, cy));
+                if (chunk != null) action.accept(chunk);
+            }
+        }
+    }
+
+    /**
+     * 캔버스 전체를 타일 단위로 방문 (같은 타일의 칸은 연달아 나옴)
+     * 타일 하나씩 복사해두고 락 밖에서 visitor를 부름 → visitor가 느려도(응답 스트리밍 등) 쓰기를 막지 않음
+     */
+    public void forEach(CellVisitor visitor) {
+        int tileCells = CanvasGrid.TILE_SIZE * CanvasGrid.TILE_SIZE;
+        byte[] tileColors = new byte[tileCells];
+        int[] tileOwners = new int[tileCells];
+        for (CanvasChunk chunk : chunks.values()) {
+            if (chunk.paintedCount() == 0) continue;
+            int firstTileX = chunk.originX / CanvasGrid.TILE_SIZE;
+            int firstTileY = chunk.originY / CanvasGrid.TILE_SIZE;
+            for (int tileX = firstTileX; tileX < firstTileX + CanvasChunk.TILES_PER_SIDE; tileX++) {
+                for (int tileY = firstTileY; tileY < firstTileY + CanvasChunk.TILES_PER_SIDE; tileY++) {
+                    if (chunk.tileVersion(tileX, tileY) == 0) continue;
+                    chunk.copyTile(tileX, tileY, tileColors, tileOwners);
+                    for (int i = 0; i < tileCells; i++) {
+                        if (tileOwners[i] == 0) continue;
+                        visitor.visit(tileX * CanvasGrid.TILE_SIZE + i / CanvasGrid.TILE_SIZE,
+                                tileY * CanvasGrid.TILE_SIZE + i % CanvasGrid.TILE_SIZE,
+                                Byte.toUnsignedInt(tileColors[i]), users.userId(tileOwners[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    // 타일 버전 (한 번도 칠해진 적 없는 타일은 0)
+    public long tileVersion(int tileX, int tileY) {
+        CanvasChunk chunk = chunks.get(tileChunkKey(tileX, tileY));
+        return chunk == null ? 0 : chunk.tileVersion(tileX, tileY);
+    }
+
+    /**
+     * 타일 하나를 팔레트 인덱스 바이트로 복사 (out 길이 TILE_SIZE², 인덱스 dx * TILE_SIZE + dy, 빈 칸은 Palette.EMPTY)
+     * 반환: 복사한 내용의 타일 버전
+     */
+    public long readTile(int tileX, int tileY, byte[] out) {
+        CanvasChunk chunk = chunks.get(tileChunkKey(tileX, tileY));
+        if (chunk == null) {
+            Arrays.fill(out, (byte) Palette.EMPTY);
+            return 0;
+        }
+        return chunk.copyTile(tileX, tileY, out);
+    }
+
+    /**
+     * 타일의 since 버전 이후 변경분 (링 버퍼를 넘어섰으면 타일 전체로 대신함)
+     */
+    public TileChanges changesSince(int tileX, int tileY, long since) {
+        CanvasChunk chunk = chunks.get(tileChunkKey(tileX, tileY));
+        if (chunk == null) {
+            return new TileChanges(0, since != 0, new int[0]); // 한 번도 칠해진 적 없는 타일
+        }
+        return chunk.changesSince(tileX, tileY, since);
+    }
+
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    private static long tileChunkKey(int tileX, int tileY) {
+        return CanvasGrid.key(CanvasGrid.chunkOf(tileX * CanvasGrid.TILE_SIZE), CanvasGrid.chunkOf(tileY * CanvasGrid.TILE_SIZE));
+    }
+
+    private CanvasChunk chunk(int x, int y) {
+        int chunkX = CanvasGrid.chunkOf(x);
+        int chunkY = CanvasGrid.chunkOf(y);
+        return chunks.computeIfAbsent(CanvasGrid.key(chunkX, chunkY), key -> new CanvasChunk(chunkX, chunkY));
+    }
+}
@@ -0,0 +1,108 @@
+package com.thepixelwar.canvas;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 격자 좌표 (x, y) ↔ Z-order(Morton) 셀 키
+ * x, y에 2^30을 더해 음수를 없앤 뒤 비트를 번갈아 섞음 (x가 홀수 비트, y가 짝수 비트) → 62비트, 항상 양수
+ * 가까운 칸은 키도 대체로 가까워서, 사각형 조회를 몇 개의 연속 키 구간 스캔으로 바꿀 수 있음
+ */
+public final class MortonKey {
+
+    // 좌표 허용 범위: [-2^30, 2^30) (위도/경도 격자 인덱스는 ±60만 정도)
+    public static final int BIAS = 1 << 30;
+    private static final int ROOT_LEVEL = 31;
+
+    private MortonKey() {
+    }
+
+    public static long encode(int x, int y) {
+        if (x < -BIAS || x >= BIAS || y < -BIAS || y >= BIAS) {
+            throw new IllegalArgumentException("셀 키 범위를 벗어난 좌표: " + x + ", " + y);
+        }
+        return interleave(x + (long) BIAS, y + (long) BIAS);
+    }
+
+    public static int decodeX(long key) {
+        return (int) (compact(key >>> 1) - BIAS);
+    }
+
+    public static int decodeY(long key) {
+        return (int) (compact(key) - BIAS);
+    }
+
+    /**
+     * [minX, maxX] × [minY, maxY] (양 끝 포함)을 덮는 키 구간 목록 {from, to} (오름차순, 양 끝 포함)
+     * 구간이 maxRanges개를 넘으면 가장자리 칸을 조금 넓게 잡아서 구간 수를 줄임
+     * → 결과 구간에는 사각형 밖 칸이 섞일 수 있으므로 조회 쪽에서 x, y 조건을 같이 걸어야 함
+     */
+    public static List<long[]> ranges(int minX, int maxX, int minY, int maxY, int maxRanges) {
+        long fromX = Math.max(minX, -BIAS) + (long) BIAS;
+        long toX = Math.min(maxX, BIAS - 1) + (long) BIAS;
+        long fromY = Math.max(minY, -BIAS) + (long) BIAS;
+        long toY = Math.min(maxY, BIAS - 1) + (long) BIAS;
+        if (fromX > toX || fromY > toY) return List.of();
+
+        // 구간 수는 대략 둘레 / 최소 칸 크기 → 그 근처에서 시작해서, 구간이 너무 많으면 최소 칸 크기를 2배씩 키움
+        long perRange = (toX - fromX + toY - fromY + 2) / Math.max(maxRanges, 1);
+        int startLevel = perRange == 0 ? 0 : 63 - Long.numberOfLeadingZeros(perRange);
+        for (int minLevel = startLevel; ; minLevel++) {
+            List<long[]> ranges = new ArrayList<>();
+            collect(0, 0, ROOT_LEVEL, minLevel, fromX, toX, fromY, toY, ranges);
+            if (ranges.size() <= maxRanges || minLevel == ROOT_LEVEL) return ranges;
+        }
+    }
+
+    // 한 변 2^level짜리 정렬된 정사각형 (ox, oy)를 사각형과 비교해서 구간을 모음 (자식은 키 순서대로 방문)
+    private static void collect(long ox, long oy, int level, int minLevel,
+                                long fromX, long toX, long fromY, long toY, List<long[]> ranges) {
+        long side = 1L << level;
+        if (ox > toX || ox + side - 1 < fromX || oy > toY || oy + side - 1 < fromY) return;
+
+        boolean inside = ox >= fromX && ox + side - 1 <= toX && oy >= fromY && oy + side - 1 <= toY;
+        if (inside || level <= minLevel) {
+            long start = interleave(ox, oy);
+            long end = start + (1L << (2 * level)) - 1;
+            long[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last[1] + 1 == start) {
+                last[1] = end; // 바로 이어지면 합침
+            } else {
+                ranges.add(new long[]{start, end});
+            }
+            return;
+        }
+
+        long half = side >> 1;
+        collect(ox, oy, level - 1, minLevel, fromX, toX, fromY, toY, ranges);
+        collect(ox, oy + half, level - 1, minLevel, fromX, toX, fromY, toY, ranges);
+        collect(ox + half, oy, level - 1, minLevel, fromX, toX, fromY, toY, ranges);
+        collect(ox + half, oy + half, level - 1, minLevel, fromX, toX, fromY, toY, ranges);
+    }
+
+    private static long interleave(long x, long y) {
+        return (spread(x) << 1) | spread(y);
+    }
+
+    // 하위 32비트를 짝수 비트 자리로 벌림
+    private static long spread(long v) {
+        v &= 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    // spread의 역변환 (짝수 비트만 모아서 32비트로)
+    private static long compact(long v) {
+        v &= 0x5555555555555555L;
+        v = (v | (v >>> 1)) & 0x3333333333333333L;
+        v = (v | (v >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v >>> 4)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v >>> 8)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v >>> 16)) & 0x00000000FFFFFFFFL;
+        return v;
+    }
+}
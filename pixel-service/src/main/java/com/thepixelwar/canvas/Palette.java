@@ -0,0 +1,95 @@
+package com.thepixelwar.canvas;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 서버가 정한 색상 팔레트 (최대 255색 → 색 하나가 1바이트, 0xFF는 타일 바이트의 빈 칸 표시)
+ * 내부(DB, Redis, Kafka, 메모리 캔버스)에서는 팔레트 인덱스만 쓰고,
+ * "#RRGGBB" 문자열은 API 입출력에서만 변환함
+ *
+ * 항목은 뒤에 추가만 해야 함 (순서를 바꾸면 저장된 인덱스의 색이 바뀜)
+ */
+public final class Palette {
+
+    // 타일 바이트(/api/tiles)에서 빈 칸
+    public static final int EMPTY = 0xFF;
+
+    private static final String[] HEX = {
+            "#6D001A", "#BE0039", "#FF4500", "#FFA800", "#FFD635", "#FFF8B8", "#00A368", "#00CC78",
+            "#7EED56", "#00756F", "#009EAA", "#00CCC0", "#2450A4", "#3690EA", "#51E9F4", "#493AC1",
+            "#6A5CFF", "#94B3FF", "#811E9F", "#B44AC0", "#E4ABFF", "#DE107F", "#FF3881", "#FF99AA",
+            "#6D482F", "#9C6926", "#FFB470", "#000000", "#515252", "#898D90", "#D4D7D9", "#FFFFFF"
+    };
+
+    private static final int[] RGB = new int[HEX.length];
+    private static final Map<String, Integer> INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < HEX.length; i++) {
+            RGB[i] = parseRgb(HEX[i]);
+            INDEX.put(HEX[i], i);
+        }
+    }
+
+    private Palette() {
+    }
+
+    public static int size() {
+        return HEX.length;
+    }
+
+    public static boolean isValid(int index) {
+        return index >= 0 && index < HEX.length;
+    }
+
+    // "#RRGGBB" (대소문자 무시) → 인덱스, 팔레트에 없으면 -1
+    public static int indexOf(String hex) {
+        if (hex == null) return -1;
+        Integer index = INDEX.get(hex.toUpperCase(Locale.ROOT));
+        return index == null ? -1 : index;
+    }
+
+    public static String hex(int index) {
+        return HEX[index];
+    }
+
+    public static int rgb(int index) {
+        return RGB[index];
+    }
+
+    // 0xRRGGBB와 가장 가까운 팔레트 인덱스 (팔레트 도입 전 데이터 변환용)
+    public static int nearest(int rgb) {
+        int best = 0;
+        long bestDistance = Long.MAX_VALUE;
+        for (int i = 0; i < RGB.length; i++) {
+            int dr = ((rgb >> 16) & 0xFF) - ((RGB[i] >> 16) & 0xFF);
+            int dg = ((rgb >> 8) & 0xFF) - ((RGB[i] >> 8) & 0xFF);
+            int db = (rgb & 0xFF) - (RGB[i] & 0xFF);
+            long distance = (long) dr * dr + (long) dg * dg + (long) db * db;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public static List<String> colors() {
+        return List.of(HEX);
+    }
+
+    // "#RRGGBB" → 0xRRGGBB (형식이 다르면 -1)
+    public static int parseRgb(String color) {
+        if (color == null || color.length() != 7 || color.charAt(0) != '#') return -1;
+        int rgb = 0;
+        for (int i = 1; i < 7; i++) {
+            int digit = Character.digit(color.charAt(i), 16);
+            if (digit < 0) return -1;
+            rgb = (rgb << 4) | digit;
+        }
+        return rgb;
+    }
+}
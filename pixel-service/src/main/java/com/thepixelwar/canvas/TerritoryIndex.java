@@ -0,0 +1,446 @@
+package com.thepixelwar.canvas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 주인(int id)별 "가장 큰 연결된 땅" (상하좌우로 이어진 같은 주인의 칸 수)
+ * 캔버스를 다시 훑지 않고 칸 주인이 바뀔 때마다 유니온 파인드로 갱신함
+ *
+ * - 칸을 얻으면: 칸 하나짜리 덩어리를 만들고 같은 주인의 이웃 덩어리와 합침 (거의 O(1))
+ * - 칸을 잃으면: 유니온 파인드는 나누기를 못 하므로 잃은 칸 주변만 다시 봄
+ *   같은 주인 이웃이 1개 이하면 끊어질 일이 없으므로 개수만 줄임
+ *   2개 이상이면 이웃마다 번갈아 한 칸씩 넓혀가며 찾다가(다른 이웃의 탐색과 만나면 합침),
+ *   먼저 끝까지 다 퍼진 쪽(=떨어져 나간 작은 조각)만 새 덩어리로 다시 묶음 → 비용은 작은 조각 크기에 비례
+ * - 잃은 칸이나 떨어져 나간 조각의 옛 슬롯은 트리 중간 노드로 남겨두고(죽은 슬롯),
+ *   죽은 슬롯이 산 칸보다 많아지면 그 덩어리만 새로 묶어서 정리함
+ * 덩어리마다 슬롯을 원형 연결 리스트로 이어둬서(next) 정리할 때 그 덩어리만 돌 수 있음
+ *
+ * 주인별 덩어리 크기는 TreeMap(크기 → 개수)으로 들고 있어서 가장 큰 값은 lastKey
+ * 주인별 칸 목록(ownerCells)도 들고 있어서 한 주인의 칸을 돌 때 전체 슬롯을 훑지 않음
+ * 동기화하지 않음 (TerritoryService가 락을 잡고 부름)
+ */
+public final class TerritoryIndex {
+
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int COMPACT_MIN_DEAD = 32;
+
+    // 칸 키(CanvasGrid.key) → 슬롯, 열린 주소(선형 탐사) 해시 표
+    private long[] cellKeys = new long[INITIAL_CAPACITY];
+    private int[] cellSlots = filled(INITIAL_CAPACITY);
+    private int cellCount;
+
+    // 슬롯 (size/dead는 루트에서만 의미 있음)
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private int[] size = new int[INITIAL_CAPACITY];   // 산 칸 수
+    private int[] dead = new int[INITIAL_CAPACITY];   // 트리에 남은 죽은 슬롯 수
+    private int[] next = new int[INITIAL_CAPACITY];   // 같은 덩어리 슬롯의 원형 연결 리스트
+    private int[] owner = new int[INITIAL_CAPACITY];
+    private long[] slotKey = new long[INITIAL_CAPACITY];
+    private boolean[] alive = new boolean[INITIAL_CAPACITY];
+    private int slotCount;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int[] cellPos = new int[INITIAL_CAPACITY]; // 산 슬롯의 칸이 주인 칸 목록에서 몇 번째인지
+
+    private final Map<Integer, TreeMap<Integer, Integer>> componentSizes = new HashMap<>();
+    private final Map<Integer, OwnerCells> ownerCells = new HashMap<>();
+
+    // 주인 한 명의 칸 키 목록 (빼기는 마지막 칸을 빈자리로 옮겨서 O(1))
+    private static final class OwnerCells {
+        private long[] keys = new long[16];
+        private int count;
+    }
+
+    public interface CellVisitor {
+        void visit(int x, int y);
+    }
+
+    // (x, y)의 주인을 owner(0 이상)로 바꿈
+    public void set(int x, int y, int owner) {
+        long key = CanvasGrid.key(x, y);
+        int slot = slotOf(key);
+        if (slot != NONE) {
+            if (this.owner[slot] == owner) return;
+            remove(key, slot);
+        }
+        add(key, owner);
+    }
+
+    // (x, y)를 빈 칸으로
+    public void clear(int x, int y) {
+        long key = CanvasGrid.key(x, y);
+        int slot = slotOf(key);
+        if (slot != NONE) remove(key, slot);
+    }
+
+    // 주인 id (빈 칸이면 -1)
+    public int ownerAt(int x, int y) {
+        int slot = slotOf(CanvasGrid.key(x, y));
+        return slot == NONE ? NONE : owner[slot];
+    }
+
+    // 주인의 가장 큰 연결된 땅 (칸 수, 없으면 0)
+    public int largest(int owner) {
+        TreeMap<Integer, Integer> sizes = componentSizes.get(owner);
+        return sizes == null ? 0 : sizes.lastKey();
+    }
+
+    public int cellCount() {
+        return cellCount;
+    }
+
+    // 주인의 칸을 모두 방문 (그 주인의 칸 수에 비례, 방문 중에 이 인덱스를 바꾸면 안 됨)
+    public void forEachCell(int owner, CellVisitor visitor) {
+        OwnerCells cells = ownerCells.get(owner);
+        if (cells == null) return;
+        for (int i = 0; i < cells.count; i++) {
+            visitor.visit(CanvasGrid.keyX(cells.keys[i]), CanvasGrid.keyY(cells.keys[i]));
+        }
+    }
+
+    private void add(long key, int owner) {
+        int slot = allocate();
+        parent[slot] = slot;
+        size[slot] = 1;
+        dead[slot] = 0;
+        next[slot] = slot;
+        this.owner[slot] = owner;
+        slotKey[slot] = key;
+        alive[slot] = true;
+        cellPos[slot] = addOwnerCell(owner, key);
+        putSlot(key, slot);
+        addSize(owner, 1);
+
+        int x = CanvasGrid.keyX(key);
+        int y = CanvasGrid.keyY(key);
+        unionWith(slot, x - 1, y);
+        unionWith(slot, x + 1, y);
+        unionWith(slot, x, y - 1);
+        unionWith(slot, x, y + 1);
+    }
+
+    private void unionWith(int slot, int x, int y) {
+        int neighbour = slotOf(CanvasGrid.key(x, y));
+        if (neighbour == NONE || owner[neighbour] != owner[slot]) return;
+        int a = find(slot);
+        int b = find(neighbour);
+        if (a == b) return;
+        if (size[a] + dead[a] < size[b] + dead[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        removeSize(owner[a], size[a]);
+        removeSize(owner[a], size[b]);
+        parent[b] = a;
+        size[a] += size[b];
+        dead[a] += dead[b];
+        int nextA = next[a];
+        next[a] = next[b];
+        next[b] = nextA;
+        addSize(owner[a], size[a]);
+    }
+
+    private void remove(long key, int slot) {
+        int owner = this.owner[slot];
+        int root = find(slot);
+        removeOwnerCell(owner, cellPos[slot]);
+        removeCellKey(key);
+        alive[slot] = false;
+        removeSize(owner, size[root]);
+        size[root]--;
+        dead[root]++;
+
+        int x = CanvasGrid.keyX(key);
+        int y = CanvasGrid.keyY(key);
+        long[] neighbours = new long[4];
+        int count = 0;
+        for (long neighbour : new long[]{CanvasGrid.key(x - 1, y), CanvasGrid.key(x + 1, y), CanvasGrid.key(x, y - 1), CanvasGrid.key(x, y + 1)}) {
+            int neighbourSlot = slotOf(neighbour);
+            if (neighbourSlot != NONE && this.owner[neighbourSlot] == owner) neighbours[count++] = neighbour;
+        }
+
+        if (size[root] == 0) {
+            freeComponent(root);
+            return;
+        }
+        if (count >= 2) {
+            for (long[] piece : separate(Arrays.copyOf(neighbours, count), owner)) {
+                for (long cell : piece) alive[slotOf(cell)] = false;
+                relabel(piece, owner);
+                size[root] -= piece.length;
+                dead[root] += piece.length;
+            }
+        }
+        addSize(owner, size[root]);
+        if (dead[root] > Math.max(size[root], COMPACT_MIN_DEAD)) compact(root);
+    }
+
+    /**
+     * 잃은 칸의 같은 주인 이웃들에서 번갈아 한 칸씩 탐색
+     * 다른 이웃의 탐색과 만나면 같은 조각으로 합치고, 남은 조각이 하나가 되면 멈춤
+     * 그 전에 다 퍼진 조각(= 떨어져 나간 조각)의 칸 목록을 돌려줌 (마지막까지 남은 조각은 옛 덩어리에 그대로 둠)
+     */
+    private List<long[]> separate(long[] starts, int owner) {
+        int searches = starts.length;
+        Map<Long, Integer> visitedBy = new HashMap<>();
+        long[][] queues = new long[searches][];
+        int[] heads = new int[searches];
+        int[] tails = new int[searches];
+        int[] group = new int[searches]; // 탐색 → 조각 (작은 유니온 파인드)
+        for (int i = 0; i < searches; i++) {
+            queues[i] = new long[16];
+            queues[i][tails[i]++] = starts[i];
+            group[i] = i;
+            visitedBy.put(starts[i], i);
+        }
+
+        List<long[]> pieces = new ArrayList<>();
+        boolean[] finished = new boolean[searches];
+        int activeGroups = searches;
+
+        while (activeGroups > 1) {
+            for (int i = 0; i < searches && activeGroups > 1; i++) {
+                int g = groupOf(group, i);
+                if (finished[g] || heads[i] == tails[i]) continue;
+
+                long cell = queues[i][heads[i]++];
+                int x = CanvasGrid.keyX(cell);
+                int y = CanvasGrid.keyY(cell);
+                for (long neighbour : new long[]{CanvasGrid.key(x - 1, y), CanvasGrid.key(x + 1, y), CanvasGrid.key(x, y - 1), CanvasGrid.key(x, y + 1)}) {
+                    int slot = slotOf(neighbour);
+                    if (slot == NONE || this.owner[slot] != owner) continue;
+                    Integer seen = visitedBy.get(neighbour);
+                    if (seen == null) {
+                        visitedBy.put(neighbour, i);
+                        if (tails[i] == queues[i].length) queues[i] = Arrays.copyOf(queues[i], tails[i] * 2);
+                        queues[i][tails[i]++] = neighbour;
+                    } else {
+                        int other = groupOf(group, seen);
+                        g = groupOf(group, i);
+                        if (other != g) {
+                            group[other] = g;
+                            activeGroups--;
+                        }
+                    }
+                }
+
+                // 이 조각의 탐색이 모두 끝났으면 떨어져 나간 조각
+                g = groupOf(group, i);
+                if (activeGroups > 1 && exhausted(group, heads, tails, g)) {
+                    finished[g] = true;
+                    activeGroups--;
+                    pieces.add(cellsOf(visitedBy, group, g));
+                }
+            }
+        }
+        return pieces;
+    }
+
+    private static int groupOf(int[] group, int search) {
+        while (group[search] != search) search = group[search];
+        return search;
+    }
+
+    private static boolean exhausted(int[] group, int[] heads, int[] tails, int g) {
+        for (int i = 0; i < group.length; i++) {
+            if (groupOf(group, i) == g && heads[i] != tails[i]) return false;
+        }
+        return true;
+    }
+
+    private static long[] cellsOf(Map<Long, Integer> visitedBy, int[] group, int g) {
+        List<Long> cells = new ArrayList<>();
+        visitedBy.forEach((cell, search) -> {
+            if (groupOf(group, search) == g) cells.add(cell);
+        });
+        long[] result = new long[cells.size()];
+        for (int i = 0; i < result.length; i++) result[i] = cells.get(i);
+        return result;
+    }
+
+    // 칸들을 새 슬롯으로 옮겨 새 덩어리 하나로 묶음 (옛 슬롯은 부르는 쪽에서 죽은 슬롯으로 만들거나 반납)
+    private void relabel(long[] cells, int owner) {
+        // 새 슬롯을 받기 전에 목록 위치를 먼저 읽어둠 (compact에서는 옛 슬롯이 바로 다시 쓰일 수 있음)
+        int[] positions = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) positions[i] = cellPos[slotOf(cells[i])];
+        int root = NONE;
+        for (int i = 0; i < cells.length; i++) {
+            long cell = cells[i];
+            int slot = allocate();
+            this.owner[slot] = owner;
+            slotKey[slot] = cell;
+            alive[slot] = true;
+            cellPos[slot] = positions[i];
+            putSlot(cell, slot);
+            if (root == NONE) {
+                root = slot;
+                parent[slot] = slot;
+                next[slot] = slot;
+                size[slot] = 0;
+                dead[slot] = 0;
+            } else {
+                parent[slot] = root;
+                next[slot] = next[root];
+                next[root] = slot;
+            }
+            size[root]++;
+        }
+        addSize(owner, cells.length);
+    }
+
+    // 죽은 슬롯이 많아진 덩어리를 산 칸만으로 다시 묶고 옛 슬롯은 모두 반납
+    private void compact(int root) {
+        int owner = this.owner[root];
+        long[] cells = new long[size[root]];
+        int count = 0;
+        int slot = root;
+        do {
+            if (alive[slot]) cells[count++] = slotKey[slot];
+            slot = next[slot];
+        } while (slot != root);
+
+        removeSize(owner, size[root]);
+        freeComponent(root);
+        relabel(cells, owner);
+    }
+
+    private void freeComponent(int root) {
+        int slot = root;
+        do {
+            int following = next[slot];
+            alive[slot] = false;
+            if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            freeSlots[freeCount++] = slot;
+            slot = following;
+        } while (slot != root);
+    }
+
+    // 경로 절반 압축 (죽은 슬롯도 그대로 지나감)
+    private int find(int slot) {
+        while (parent[slot] != slot) {
+            parent[slot] = parent[parent[slot]];
+            slot = parent[slot];
+        }
+        return slot;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+        if (slotCount == parent.length) {
+            int capacity = slotCount * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            size = Arrays.copyOf(size, capacity);
+            dead = Arrays.copyOf(dead, capacity);
+            next = Arrays.copyOf(next, capacity);
+            owner = Arrays.copyOf(owner, capacity);
+            slotKey = Arrays.copyOf(slotKey, capacity);
+            alive = Arrays.copyOf(alive, capacity);
+            cellPos = Arrays.copyOf(cellPos, capacity);
+        }
+        return slotCount++;
+    }
+
+    // --- 주인별 칸 목록 ---
+
+    private int addOwnerCell(int owner, long key) {
+        OwnerCells cells = ownerCells.computeIfAbsent(owner, o -> new OwnerCells());
+        if (cells.count == cells.keys.length) cells.keys = Arrays.copyOf(cells.keys, cells.count * 2);
+        cells.keys[cells.count] = key;
+        return cells.count++;
+    }
+
+    // position 자리를 마지막 칸으로 채우고, 옮겨진 칸의 위치를 고침
+    private void removeOwnerCell(int owner, int position) {
+        OwnerCells cells = ownerCells.get(owner);
+        long last = cells.keys[--cells.count];
+        if (position != cells.count) {
+            cells.keys[position] = last;
+            cellPos[slotOf(last)] = position;
+        }
+        if (cells.count == 0) ownerCells.remove(owner);
+    }
+
+    private void addSize(int owner, int componentSize) {
+        componentSizes.computeIfAbsent(owner, o -> new TreeMap<>()).merge(componentSize, 1, Integer::sum);
+    }
+
+    private void removeSize(int owner, int componentSize) {
+        TreeMap<Integer, Integer> sizes = componentSizes.get(owner);
+        if (sizes.merge(componentSize, -1, Integer::sum) == 0) sizes.remove(componentSize);
+        if (sizes.isEmpty()) componentSizes.remove(owner);
+    }
+
+    // --- 칸 키 → 슬롯 해시 표 ---
+
+    private int slotOf(long key) {
+        int mask = cellKeys.length - 1;
+        for (int i = mix(key) & mask; cellSlots[i] != NONE; i = (i + 1) & mask) {
+            if (cellKeys[i] == key) return cellSlots[i];
+        }
+        return NONE;
+    }
+
+    private void putSlot(long key, int slot) {
+        if ((cellCount + 1) * 2 > cellKeys.length) rehash(cellKeys.length * 2);
+        int mask = cellKeys.length - 1;
+        int i = mix(key) & mask;
+        for (; cellSlots[i] != NONE; i = (i + 1) & mask) {
+            if (cellKeys[i] == key) {
+                cellSlots[i] = slot;
+                return;
+            }
+        }
+        cellKeys[i] = key;
+        cellSlots[i] = slot;
+        cellCount++;
+    }
+
+    // 선형 탐사 표에서 지우기: 뒤에 밀려 있던 항목을 빈자리로 당겨옴 (묘비 없음)
+    private void removeCellKey(long key) {
+        int mask = cellKeys.length - 1;
+        int i = mix(key) & mask;
+        while (cellSlots[i] != NONE && cellKeys[i] != key) i = (i + 1) & mask;
+        if (cellSlots[i] == NONE) return;
+        cellSlots[i] = NONE;
+        cellCount--;
+        for (int j = (i + 1) & mask; cellSlots[j] != NONE; j = (j + 1) & mask) {
+            int home = mix(cellKeys[j]) & mask;
+            // j의 원래 자리가 (i, j] 구간 밖이면 i로 당겨옴
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                cellKeys[i] = cellKeys[j];
+                cellSlots[i] = cellSlots[j];
+                cellSlots[j] = NONE;
+                i = j;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = cellKeys;
+        int[] oldSlots = cellSlots;
+        cellKeys = new long[capacity];
+        cellSlots = filled(capacity);
+        cellCount = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] != NONE) putSlot(oldKeys[i], oldSlots[i]);
+        }
+    }
+
+    private static int[] filled(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, NONE);
+        return slots;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
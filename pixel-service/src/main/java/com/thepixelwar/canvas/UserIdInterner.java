@@ -0,0 +1,44 @@
+package com.thepixelwar.canvas;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * userId 문자열 ↔ int id 사전 (프로세스 안에서만 유효)
+ * 캔버스 칸마다 문자열 참조 대신 int 하나만 들고 있기 위함, 0번은 "빈 칸"으로 예약
+ * 등록은 동기화, id → userId 조회는 락 없이 배열 읽기 한 번
+ */
+final class UserIdInterner {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private volatile String[] userIds = new String[1024];
+    private int size = 1;
+
+    synchronized int idOf(String userId) {
+        Integer id = ids.get(userId);
+        if (id != null) return id;
+
+        String[] table = userIds;
+        if (size == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[size] = userId;
+        userIds = table; // volatile 쓰기로 새 항목 공개
+        ids.put(userId, size);
+        return size++;
+    }
+
+    String userId(int id) {
+        return userIds[id];
+    }
+
+    // 지금까지 등록된 userId (인덱스 = id, 0번은 null)
+    synchronized String[] snapshot() {
+        return Arrays.copyOf(userIds, size);
+    }
+
+    synchronized int size() {
+        return size - 1;
+    }
+}
@@ -0,0 +1,124 @@
+package com.thepixelwar.codec;
+
+import com.thepixelwar.canvas.Palette;
+import com.thepixelwar.dto.PixelEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 픽셀 이벤트 바이너리 포맷 (big-endian)
+ *
+ * 1) Kafka 이벤트 1건 (20 + userId 바이트)
+ *    [version:1][x:4][y:4][color:1][timestamp:8][userIdLength:2][userId:UTF-8]
+ *    color는 팔레트 인덱스 (version 1은 color 자리에 rgb:4 → 읽을 때 가장 가까운 팔레트 색으로 변환)
+ *
+ * 2) WebSocket 타일 프레임 (픽셀당 5바이트)
+ *    [version:1][tileX:4][tileY:4]
+ *    [userCount:2] { [length:2][userId:UTF-8] } * userCount      ← 프레임 안 유저 사전
+ *    [pixelCount:2] { [dx:1][dy:1][color:1][userRef:2] } * pixelCount
+ *    dx, dy는 타일 원점 기준 오프셋 (0 ~ TILE_SIZE-1), userRef는 유저 사전 인덱스
+ */
+public final class PixelEventCodec {
+
+    public static final byte VERSION = 2;
+    private static final byte VERSION_RGB = 1;
+
+    // 요청에서 받는 userId 상한 (UTF-8 바이트), 포맷의 길이 자리(2바이트) 상한보다 훨씬 작게 둠
+    public static final int MAX_USER_ID_BYTES = 255;
+
+    private static final int EVENT_FIXED_BYTES = 1 + 4 + 4 + 1 + 8 + 2;
+    private static final int FRAME_PIXEL_BYTES = 5;
+    private static final int MAX_LENGTH_FIELD = 0xFFFF;
+
+    private PixelEventCodec() {
+    }
+
+    // 컨트롤러에서 Redis/Kafka에 닿기 전에 거르는 용도 (비었거나 너무 긴 userId는 false)
+    public static boolean isValidUserId(String userId) {
+        return userId != null && !userId.isBlank() && userId.getBytes(StandardCharsets.UTF_8).length <= MAX_USER_ID_BYTES;
+    }
+
+    public static byte[] encode(PixelEvent event) {
+        byte[] userId = userIdBytes(event.userId());
+        return ByteBuffer.allocate(EVENT_FIXED_BYTES + userId.length)
+                .put(VERSION)
+                .putInt(event.x())
+                .putInt(event.y())
+                .put((byte) event.color())
+                .putLong(event.timestamp())
+                .putShort((short) userId.length)
+                .put(userId)
+                .array();
+    }
+
+    // 길이 자리(2바이트, 부호 없음)에 들어가지 않으면 잘라 쓰지 않고 거절
+    private static byte[] userIdBytes(String userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId가 없습니다.");
+        }
+        byte[] bytes = userId.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_LENGTH_FIELD) {
+            throw new IllegalArgumentException("userId가 너무 깁니다: " + bytes.length + "바이트");
+        }
+        return bytes;
+    }
+
+    public static PixelEvent decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte version = buffer.get();
+        if (version != VERSION && version != VERSION_RGB) {
+            throw new IllegalArgumentException("지원하지 않는 픽셀 이벤트 버전: " + version);
+        }
+        int x = buffer.getInt();
+        int y = buffer.getInt();
+        int color = version == VERSION ? Byte.toUnsignedInt(buffer.get()) : Palette.nearest(buffer.getInt());
+        if (!Palette.isValid(color)) {
+            throw new IllegalArgumentException("팔레트에 없는 색상 인덱스: " + color);
+        }
+        long timestamp = buffer.getLong();
+        int userIdLength = Short.toUnsignedInt(buffer.getShort());
+        String userId = new String(data, buffer.position(), userIdLength, StandardCharsets.UTF_8);
+        return new PixelEvent(x, y, color, userId, timestamp);
+    }
+
+    /**
+     * 타일 하나의 변경 묶음을 WebSocket 바이너리 프레임으로 인코딩
+     * 같은 유저가 여러 칸을 찍었으면 userId는 프레임 안에서 한 번만 씀
+     */
+    public static byte[] encodeTileFrame(int tileX, int tileY, int tileSize,
+                                         int[] x, int[] y, int[] color, String[] userIds) {
+        int count = x.length;
+        Map<String, Integer> userRefs = new HashMap<>();
+        byte[][] userBytes = new byte[count][];
+        int[] refs = new int[count];
+        int userBytesTotal = 0;
+        for (int i = 0; i < count; i++) {
+            Integer ref = userRefs.get(userIds[i]);
+            if (ref == null) {
+                ref = userRefs.size();
+                userRefs.put(userIds[i], ref);
+                userBytes[ref] = userIdBytes(userIds[i]);
+                userBytesTotal += 2 + userBytes[ref].length;
+            }
+            refs[i] = ref;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 2 + userBytesTotal + 2 + count * FRAME_PIXEL_BYTES);
+        buffer.put(VERSION).putInt(tileX).putInt(tileY);
+        buffer.putShort((short) userRefs.size());
+        for (int i = 0; i < userRefs.size(); i++) {
+            buffer.putShort((short) userBytes[i].length).put(userBytes[i]);
+        }
+        buffer.putShort((short) count);
+        for (int i = 0; i < count; i++) {
+            buffer.put((byte) (x[i] - tileX * tileSize))
+                    .put((byte) (y[i] - tileY * tileSize))
+                    .put((byte) color[i])
+                    .putShort((short) refs[i]);
+        }
+        return buffer.array();
+    }
+}
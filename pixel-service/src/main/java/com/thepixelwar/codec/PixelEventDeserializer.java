@@ -0,0 +1,48 @@
+package com.thepixelwar.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.canvas.Palette;
+import com.thepixelwar.dto.PixelEvent;
+import com.thepixelwar.dto.PixelRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka value deserializer: 바이너리 → PixelEvent
+ * 배포 전환 중 토픽에 남아있는 예전 JSON(PixelRequest) 메시지도 읽을 수 있음 (색은 가장 가까운 팔레트 색으로)
+ * 읽을 수 없는 메시지는 null을 돌려주고, 컨슈머가 건너뜀 (배치 전체가 막히지 않도록)
+ */
+@Slf4j
+public class PixelEventDeserializer implements Deserializer<PixelEvent> {
+
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+
+    @Override
+    public PixelEvent deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) return null;
+        try {
+            if (data[0] == '{') {
+                return fromLegacyJson(data);
+            }
+            return PixelEventCodec.decode(data);
+        } catch (Exception e) {
+            log.error("픽셀 이벤트 역직렬화 실패 ({} bytes)", data.length, e);
+            return null;
+        }
+    }
+
+    private static PixelEvent fromLegacyJson(byte[] data) throws Exception {
+        PixelRequest request = LEGACY_MAPPER.readValue(data, PixelRequest.class);
+        int rgb = Palette.parseRgb(request.color());
+        if (rgb < 0) {
+            throw new IllegalArgumentException("잘못된 색상: " + request.color());
+        }
+        return new PixelEvent(
+                CanvasGrid.toCell(request.lat()),
+                CanvasGrid.toCell(request.lng()),
+                Palette.nearest(rgb),
+                request.userId(),
+                0L);
+    }
+}
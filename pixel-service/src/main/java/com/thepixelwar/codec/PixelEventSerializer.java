@@ -0,0 +1,15 @@
+package com.thepixelwar.codec;
+
+import com.thepixelwar.dto.PixelEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer: PixelEvent → 바이너리 (PixelEventCodec)
+ */
+public class PixelEventSerializer implements Serializer<PixelEvent> {
+
+    @Override
+    public byte[] serialize(String topic, PixelEvent event) {
+        return event == null ? null : PixelEventCodec.encode(event);
+    }
+}
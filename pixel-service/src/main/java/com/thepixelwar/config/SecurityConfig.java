@@ -32,10 +32,11 @@ public class SecurityConfig {
                 // permitAll() -> 누구에게나 허락, authenticated() -> 로그인 된 유저에게만 허락
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/", "/index.html", "/style.css", "/script.js", "/favicon.ico").permitAll()
-                        .requestMatchers("/api/ranks").permitAll()
-                        .requestMatchers("/ws-pixel/**").permitAll()
+                        .requestMatchers("/api/ranks", "/api/ranks/guilds").permitAll() // /api/ranks/me는 로그인 필요
+                        .requestMatchers("/ws-pixel/**", "/ws-pixel-bin/**").permitAll()
 
                         .requestMatchers(HttpMethod.GET, "/api/pixels/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/tiles/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/pixels/**").authenticated()
 
                         .anyRequest().authenticated() // 위에 통제하지 않은 요청은 로그인 된 유저에게만 허락
@@ -5,6 +5,7 @@ import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -21,5 +22,17 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws-pixel")
                 .setAllowedOriginPatterns("*") // 모든 도메인 허용
                 .withSockJS(); // SockJS 지원
+
+        // 바이너리 타일 프레임(/sub/pixel-bin/..)용 순수 WebSocket 엔드포인트 (SockJS는 텍스트만 전달 가능)
+        registry.addEndpoint("/ws-pixel-bin")
+                .setAllowedOriginPatterns("*");
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 픽셀은 타일 단위로만 오므로 정상 클라이언트의 송신 대기열은 작음
+        // 느린 클라이언트 때문에 대기열이 무한정 쌓이지 않도록 상한을 두고, 넘으면 세션을 끊음
+        registration.setSendBufferSizeLimit(512 * 1024);
+        registration.setSendTimeLimit(10 * 1000);
     }
 }
\ No newline at end of file
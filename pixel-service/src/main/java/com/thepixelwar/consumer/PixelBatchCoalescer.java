@@ -0,0 +1,59 @@
+package com.thepixelwar.consumer;
+
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.entity.PixelEntity;
+import com.thepixelwar.service.RankingDeltaAccumulator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 한 배치 안에서 같은 좌표에 들어온 이벤트를 마지막 것 하나로 합침 (last-writer-wins)
+ * 중간 상태는 DB에도, WebSocket에도 나가지 않음 → 쓰기/전송 횟수가 "찍힌 좌표 수"에 비례
+ */
+public class PixelBatchCoalescer {
+
+    // CanvasGrid.key(x, y) → 해당 좌표의 마지막 이벤트 (처음 등장한 순서 유지)
+    private final Map<Long, PixelEntity> latest = new LinkedHashMap<>();
+    private int receivedCount;
+
+    public void add(PixelEntity pixel) {
+        receivedCount++;
+        latest.put(CanvasGrid.key(pixel.getX(), pixel.getY()), pixel);
+    }
+
+    // 좌표별 최종 상태
+    public List<PixelEntity> pixels() {
+        return new ArrayList<>(latest.values());
+    }
+
+    public boolean isEmpty() {
+        return latest.isEmpty();
+    }
+
+    public int receivedCount() {
+        return receivedCount;
+    }
+
+    /**
+     * 배치 전 주인과 최종 주인만 비교해서 유저별 순 점수 변화를 계산
+     * 좌표 하나에서 A → B → C로 바뀌었다면 중간(B)의 +1/-1은 상쇄되므로
+     * "A -1, C +1"만 남고, 이벤트를 하나씩 처리했을 때의 합계와 정확히 같음
+     *
+     * @param ownersBefore CanvasGrid.key(x, y) → 배치 전 주인 (빈 땅은 없음)
+     * @param deltas       순 변화량을 모을 누적기
+     */
+    public void collectOwnershipDeltas(Map<Long, String> ownersBefore, RankingDeltaAccumulator deltas) {
+        for (Map.Entry<Long, PixelEntity> entry : latest.entrySet()) {
+            String before = ownersBefore.get(entry.getKey());
+            String after = entry.getValue().getUserId();
+            if (Objects.equals(before, after)) continue;
+
+            if (before != null) deltas.decrease(before);
+            deltas.increase(after);
+        }
+    }
+}
@@ -1,77 +1,136 @@
 package com.thepixelwar.consumer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.thepixelwar.dto.PixelRequest;
+import com.thepixelwar.dto.PixelEvent;
 import com.thepixelwar.entity.PixelEntity;
 import com.thepixelwar.repository.PixelRepository;
+import com.thepixelwar.service.RankingDeltaAccumulator;
 import com.thepixelwar.service.RankingService; // [추가]
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class PixelConsumer {
 
-    private final ObjectMapper objectMapper;
     private final PixelRepository pixelRepository;
-    private final SimpMessagingTemplate messagingTemplate;
     private final RankingService rankingService; // [추가] 랭킹 서비스 주입
+    // 메모리 캔버스/WebSocket 전송/연결된 땅은 PixelViewConsumer가 인스턴스별 그룹으로 모든 파티션을 읽어 반영
+
+    /**
+     * 1. 배치 모드 (기본): 한 번 poll 한 메시지들을 좌표별 마지막 상태로 합친 뒤
+     * 트랜잭션 하나에서 주인 조회 1번 + multi-row upsert 1번으로 처리
+     * 랭킹은 커밋이 확정된 뒤에만 (롤백되어 배치가 재전달되면 아무것도 반영되지 않음)
+     * 커밋 뒤 재전달되면 주인 조회가 이미 바뀐 주인을 돌려주므로 변화량이 다시 생기지 않고, 같은 오프셋은 Redis에서도 한 번 더 걸러냄
+     */
+    @KafkaListener(id = "pixel-batch-consumer", topics = "pixel-updates", groupId = "pixel-war-group",
+            batch = "true", autoStartup = "${pixel.consumer.batch:true}")
+    @Transactional
+    public void consumeBatch(List<ConsumerRecord<String, PixelEvent>> records) {
+        PixelBatchCoalescer coalescer = new PixelBatchCoalescer();
+        for (ConsumerRecord<String, PixelEvent> record : records) {
+            // 역직렬화에 실패한 메시지는 값이 null → 배치 전체가 재시도되지 않도록 건너뜀
+            PixelEvent event = record.value();
+            if (event == null) continue;
+            coalescer.add(new PixelEntity(event.x(), event.y(), event.color(), event.userId()));
+        }
+        if (coalescer.isEmpty()) return;
+
+        List<PixelEntity> pixels = coalescer.pixels();
+
+        // 배치에 등장하는 좌표들의 현재 주인을 한 번에 조회
+        Map<Long, String> owners = pixelRepository.findOwnersByCoords(pixels);
+
+        // DB 저장 (실패하면 예외가 그대로 올라가 트랜잭션 롤백 후 배치 재전달)
+        pixelRepository.upsertAll(pixels);
 
-    // [설정] PixelService와 반드시 일치해야 함
-    private static final double GRID_SIZE = 0.0003;
-    private static final double EPSILON = 0.0000001;
+        // 배치 전/후 주인만 비교한 순 점수 변화 (반영은 커밋 뒤)
+        RankingDeltaAccumulator deltas = new RankingDeltaAccumulator();
+        coalescer.collectOwnershipDeltas(owners, deltas);
 
-    @KafkaListener(topics = "pixel-updates", groupId = "pixel-war-group")
+        afterCommit(() -> rankingService.applyDeltas(deltas, nextOffsets(records)));
+
+        if (coalescer.receivedCount() > pixels.size()) {
+            log.debug("픽셀 배치 병합: {}건 → {}좌표", coalescer.receivedCount(), pixels.size());
+        }
+    }
+
+    // 파티션 → 배치 마지막 오프셋 + 1
+    private static Map<Integer, Long> nextOffsets(List<ConsumerRecord<String, PixelEvent>> records) {
+        Map<Integer, Long> offsets = new HashMap<>();
+        for (ConsumerRecord<String, PixelEvent> record : records) {
+            offsets.merge(record.partition(), record.offset() + 1, Math::max);
+        }
+        return offsets;
+    }
+
+    /**
+     * 2. 단건 모드 (pixel.consumer.batch=false): 메시지 하나당 조회 + 저장 (비교용으로 유지)
+     */
+    @KafkaListener(id = "pixel-single-consumer", topics = "pixel-updates", groupId = "pixel-war-group",
+            autoStartup = "#{!${pixel.consumer.batch:true}}")
     @Transactional
-    public void consume(String message) {
+    public void consume(@Payload(required = false) PixelEvent event) {
+        if (event == null) return; // 역직렬화 실패
         try {
-            PixelRequest request = objectMapper.readValue(message, PixelRequest.class);
-
-            // 좌표 계산 (Service와 동일)
-            int x = (int) Math.floor((request.lat() + EPSILON) / GRID_SIZE);
-            int y = (int) Math.floor((request.lng() + EPSILON) / GRID_SIZE);
+            int x = event.x();
+            int y = event.y();
+            int color = event.color(); // 팔레트 인덱스
 
             PixelEntity existingPixel = pixelRepository.findByCoords(x, y);
-            String newOwner = request.userId(); // 현재 픽셀을 찍은 사람
+            String newOwner = event.userId(); // 현재 픽셀을 찍은 사람
 
             if (existingPixel != null) {
                 // --- [CASE 1: 이미 누가 차지한 땅인 경우] ---
                 String oldOwner = existingPixel.getUserId();
 
-                // 주인이 바뀌었는가? (내 땅에 내가 다시 찍는 건 점수 변동 X)
+                // 주인이 바뀌었는가? (내 땅에 내가 다시 찍는 건 점수 변동 X), 점수는 커밋 뒤에
                 if (!oldOwner.equals(newOwner)) {
-                    rankingService.decreaseScore(oldOwner); // 옛날 주인 점수 깎기 😭
-                    rankingService.increaseScore(newOwner); // 새 주인 점수 주기 😎
+                    afterCommit(() -> {
+                        rankingService.decreaseScore(oldOwner); // 옛날 주인 점수 깎기 😭
+                        rankingService.increaseScore(newOwner); // 새 주인 점수 주기 😎
+                    });
                 }
 
                 // DB 업데이트 (더티 체킹 or Setter)
-                existingPixel.setColor(request.color());
+                existingPixel.setColor(color);
                 existingPixel.setUserId(newOwner);
 
             } else {
                 // --- [CASE 2: 빈 땅인 경우] ---
-                rankingService.increaseScore(newOwner); // 새 주인 점수 +1
+                afterCommit(() -> rankingService.increaseScore(newOwner)); // 새 주인 점수 +1
 
                 // DB 저장
-                pixelRepository.save(new PixelEntity(x, y, request.color(), newOwner));
+                pixelRepository.save(new PixelEntity(x, y, color, newOwner));
             }
 
-            // 클라이언트 화면 업데이트용 좌표 계산
-            double snappedLat = x * GRID_SIZE;
-            double snappedLng = y * GRID_SIZE;
-
-            PixelRequest snappedRequest = new PixelRequest(snappedLat, snappedLng, request.color(), newOwner);
-
-            // WebSocket 전송
-            messagingTemplate.convertAndSend("/sub/pixel", snappedRequest);
-
         } catch (Exception e) {
             log.error("Kafka Consume Error", e);
         }
     }
-}
\ No newline at end of file
+
+    // 트랜잭션이 커밋된 뒤에 실행 (트랜잭션 밖이면 바로)
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
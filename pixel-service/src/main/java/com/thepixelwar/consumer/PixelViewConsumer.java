@@ -0,0 +1,55 @@
+package com.thepixelwar.consumer;
+
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.dto.PixelEvent;
+import com.thepixelwar.entity.PixelEntity;
+import com.thepixelwar.service.PixelBroadcaster;
+import com.thepixelwar.service.TerritoryService;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 인스턴스마다 들고 있는 뷰 갱신: 메모리 캔버스, WebSocket 전송, 연결된 땅
+ * PixelConsumer(DB/랭킹)는 모든 인스턴스가 같은 그룹(pixel-war-group)이라 파티션을 나눠 가짐 → 한 인스턴스는 일부 파티션만 봄
+ * 뷰는 인스턴스마다 전체가 필요하므로 인스턴스별 그룹(pixel-war-view-{instance-id})으로 모든 파티션을 읽음
+ *
+ * DB 커밋을 기다리지 않고 로그 순서대로 반영 (스냅샷 재생과 같은 기준, 같은 좌표는 같은 파티션이라 순서가 지켜짐)
+ * instance-id는 인스턴스마다 달라야 하고, 재시작해도 같으면 그 그룹이 커밋한 오프셋부터 이어서 읽음
+ */
+@Component
+@RequiredArgsConstructor
+public class PixelViewConsumer {
+
+    private final CanvasStore canvasStore;
+    private final PixelBroadcaster pixelBroadcaster;
+    private final TerritoryService territoryService;
+
+    // 한 번 poll 한 메시지들을 좌표별 마지막 상태로 합쳐서 좌표당 한 번만 반영/전송
+    @KafkaListener(id = "pixel-view-consumer", topics = "pixel-updates",
+            groupId = "pixel-war-view-${pixel.instance-id:local}", batch = "true")
+    public void consumeBatch(List<ConsumerRecord<String, PixelEvent>> records) {
+        PixelBatchCoalescer coalescer = new PixelBatchCoalescer();
+        for (ConsumerRecord<String, PixelEvent> record : records) {
+            PixelEvent event = record.value();
+            if (event == null) continue; // 역직렬화 실패
+            coalescer.add(new PixelEntity(event.x(), event.y(), event.color(), event.userId()));
+        }
+        if (!coalescer.isEmpty()) {
+            List<PixelEntity> pixels = coalescer.pixels();
+            for (PixelEntity pixel : pixels) {
+                canvasStore.set(pixel.getX(), pixel.getY(), pixel.getColor(), pixel.getUserId());
+                pixelBroadcaster.broadcast(pixel.getX(), pixel.getY(), pixel.getColor(), pixel.getUserId());
+            }
+            territoryService.apply(pixels);
+        }
+
+        // 캔버스 스냅샷이 어디까지 반영했는지 기록 (재시작 시 이 오프셋부터 재생)
+        for (ConsumerRecord<String, PixelEvent> record : records) {
+            canvasStore.markApplied(record.partition(), record.offset() + 1);
+        }
+    }
+}
@@ -1,46 +1,96 @@
 package com.thepixelwar.controller;
 
+import com.thepixelwar.canvas.Palette;
+import com.thepixelwar.codec.PixelEventCodec;
+import com.thepixelwar.dto.HeatmapResponse;
+import com.thepixelwar.dto.PixelArea;
 import com.thepixelwar.dto.PixelRequest;
+import com.thepixelwar.service.HeatmapService;
+import com.thepixelwar.service.PixelExportService;
 import com.thepixelwar.service.PixelService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Locale;
 
 @RestController // @Controller + @ResponseBody 해당 컨트롤러는 json 형태의 테이터를 반환해주는 클래스로 지정, bean에 등록
 @RequestMapping("/api/pixels") // 해당 주소로 오는 요청은 해당 컨트롤러가 처리
 @RequiredArgsConstructor // final이 붙은 변수를 매개변수로 갖는 생성자를 자동으로 만들어줌
 public class PixelController {
 
+    public static final String BLOCK_SIZE_HEADER = "X-Block-Size";
+
     private final PixelService pixelService; // 의존성 주입
+    private final PixelExportService pixelExportService;
+    private final HeatmapService heatmapService;
 
     @PostMapping // http 메서드 post만 처리
     public String updatePixel(@RequestBody PixelRequest request) { // 받은 요청을 PixelRequest 객체로 변환
-        return pixelService.updatePixel(request); // 서비스로직의 업데이트 픽셀 함수 호출
+        // 색상은 여기서 팔레트 인덱스로 바꿔서 넘김 (이후 Redis/Kafka/DB에는 인덱스만 흐름)
+        int color = Palette.indexOf(request.color());
+        if (color < 0) {
+            return "팔레트에 없는 색상입니다.";
+        }
+        // userId도 여기서 거름 (스크립트가 쿨타임/픽셀을 바꾼 뒤에 이벤트 인코딩이 실패하지 않도록)
+        if (!PixelEventCodec.isValidUserId(request.userId())) {
+            return "잘못된 사용자입니다.";
+        }
+        return pixelService.updatePixel(request.lat(), request.lng(), color, request.userId()); // 서비스로직의 업데이트 픽셀 함수 호출
+    }
+
+    // 선택 가능한 색상 목록 ("#RRGGBB", 순서가 곧 팔레트 인덱스)
+    @GetMapping("/palette")
+    public List<String> getPalette() {
+        return Palette.colors();
     }
     @GetMapping("/{x}/{y}")
     public String getPixel(@PathVariable int x, @PathVariable int y) {
         return pixelService.getPixelColor(x, y);
     }
 
-    @GetMapping
-    public List<PixelRequest> getPixels(
-            @RequestParam(required = false) Double minLat,
-            @RequestParam(required = false) Double maxLat,
-            @RequestParam(required = false) Double minLng,
-            @RequestParam(required = false) Double maxLng
+    // 범위 조회: 해당 부분만 잘라서 줍니다
+    // 너무 넓으면 요약 칸으로 주고 한 칸의 크기(원본 칸 수)를 X-Block-Size 헤더로 알려줌 (본문 모양은 그대로)
+    @GetMapping(params = {"minLat", "maxLat", "minLng", "maxLng"})
+    public ResponseEntity<List<PixelRequest>> getPixels(
+            @RequestParam double minLat,
+            @RequestParam double maxLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLng
     ) {
-        // 1. 범위 정보가 없으면? -> 그냥 다 줍니다 (기존 방식 호환)
-        if (minLat == null || maxLat == null || minLng == null || maxLng == null) {
-            return pixelService.getAllPixels();
-        }
+        PixelArea area = pixelService.getPixelsInBounds(minLat, maxLat, minLng, maxLng);
+        return ResponseEntity.ok()
+                .header(BLOCK_SIZE_HEADER, String.valueOf(area.blockSize()))
+                .body(area.pixels());
+    }
 
-        // 2. 범위 정보가 있으면? -> 해당 부분만 잘라서 줍니다 (최적화!)
-        return pixelService.getPixelsInBounds(minLat, maxLat, minLng, maxLng);
+    /**
+     * 범위 정보가 없으면 전체 내보내기 (목록을 만들지 않고 응답에 바로 스트리밍)
+     * format: json(기존과 같은 배열, 기본) | ndjson | binary(타일 프레임)
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportPixels(@RequestParam(defaultValue = "json") String format) {
+        PixelExportService.Format exportFormat = switch (format.toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> PixelExportService.Format.NDJSON;
+            case "binary" -> PixelExportService.Format.BINARY;
+            default -> PixelExportService.Format.JSON;
+        };
+        MediaType contentType = switch (exportFormat) {
+            case JSON -> MediaType.APPLICATION_JSON;
+            case NDJSON -> MediaType.APPLICATION_NDJSON;
+            case BINARY -> MediaType.APPLICATION_OCTET_STREAM;
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(out -> pixelExportService.export(exportFormat, out));
     }
+
+    // 히트맵: 주기적으로 미리 만들어둔 상위 좌표 + 밀도 격자
     @GetMapping("/hot")
-    public ResponseEntity<List<PixelRequest>> getHotPixels() {
-        return ResponseEntity.ok(pixelService.getHotPixels());
+    public ResponseEntity<HeatmapResponse> getHotPixels() {
+        return ResponseEntity.ok(heatmapService.snapshot());
     }
 }
\ No newline at end of file
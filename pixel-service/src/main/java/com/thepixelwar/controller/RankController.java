@@ -1,10 +1,21 @@
 package com.thepixelwar.controller;
 
+import com.thepixelwar.dto.CustomUserDetails;
+import com.thepixelwar.dto.GuildRankResponse;
+import com.thepixelwar.dto.RankAround;
 import com.thepixelwar.dto.RankResponse;
+import com.thepixelwar.dto.TerritoryResponse;
+import com.thepixelwar.service.GuildRankingService;
+import com.thepixelwar.service.LeaderboardPublisher;
+import com.thepixelwar.service.GuildService;
 import com.thepixelwar.service.RankingService;
+import com.thepixelwar.service.TerritoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -14,10 +25,43 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RankController {
 
+    public static final String VERSION_HEADER = "X-Rank-Version";
+
+    private final LeaderboardPublisher leaderboardPublisher;
+    private final GuildRankingService guildRankingService;
     private final RankingService rankingService;
+    private final TerritoryService territoryService;
+    private final GuildService guildService;
 
+    // 서버가 주기마다 읽어둔 Top N (이후 변경분은 /sub/ranks로 받고, 버전으로 이어붙임)
     @GetMapping
-    public List<RankResponse> getTopRanks() {
-        return rankingService.getTopRanks();
+    public ResponseEntity<List<RankResponse>> getTopRanks() {
+        LeaderboardPublisher.Leaderboard leaderboard = leaderboardPublisher.snapshot();
+        return ResponseEntity.ok()
+                .header(VERSION_HEADER, String.valueOf(leaderboard.version()))
+                .body(leaderboard.ranks());
+    }
+
+    // 내 순위와 위아래 k명 (전체 랭킹을 받지 않아도 되도록)
+    @GetMapping("/me")
+    public ResponseEntity<RankAround> getMyRank(@AuthenticationPrincipal CustomUserDetails principal,
+                                                @RequestParam(defaultValue = "5") int k) {
+        if (principal == null) return ResponseEntity.status(401).build();
+        return ResponseEntity.ok(rankingService.getRanksAround(principal.getNickname(), k));
+    }
+
+    // 내 가장 큰 연결된 땅 + 내 길드의 가장 큰 연결된 땅
+    @GetMapping("/territory/me")
+    public ResponseEntity<TerritoryResponse> getMyTerritory(@AuthenticationPrincipal CustomUserDetails principal) {
+        if (principal == null) return ResponseEntity.status(401).build();
+        Long guildId = guildService.getMyGuildId(principal.getName());
+        return ResponseEntity.ok(new TerritoryResponse(territoryService.largestOf(principal.getNickname()),
+                guildId, territoryService.largestOfGuild(guildId)));
+    }
+
+    // 길드 랭킹 Top 10 (길드원들이 가진 땅의 합)
+    @GetMapping("/guilds")
+    public List<GuildRankResponse> getTopGuilds() {
+        return guildRankingService.getTopGuilds();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.thepixelwar.controller;
+
+import com.thepixelwar.dto.TileChangesResponse;
+import com.thepixelwar.service.TileService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/tiles")
+@RequiredArgsConstructor
+public class TileController {
+
+    public static final String EPOCH_HEADER = "X-Canvas-Epoch";
+    public static final String VERSION_HEADER = "X-Tile-Version";
+
+    private final TileService tileService;
+
+    /**
+     * 타일 하나 (기본: 팔레트 인덱스 바이트, format=png: PNG 이미지)
+     * ETag = 타일 버전 → 클라이언트가 If-None-Match로 보내면 바뀌지 않은 타일은 304로 끝남
+     */
+    @GetMapping("/{tx}/{ty}")
+    public ResponseEntity<byte[]> getTile(@PathVariable int tx, @PathVariable int ty,
+                                          @RequestParam(defaultValue = "raw") String format,
+                                          WebRequest webRequest) {
+        // 메모리 캔버스 적재 전에는 잠깐 뒤에 다시 오도록
+        if (!tileService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+
+        TileService.Format tileFormat = "png".equalsIgnoreCase(format) ? TileService.Format.PNG : TileService.Format.RAW;
+        if (webRequest.checkNotModified(tileService.etag(tx, ty, tileService.currentVersion(tx, ty), tileFormat))) {
+            return null; // 304 Not Modified (헤더는 checkNotModified가 채움)
+        }
+
+        TileService.RenderedTile tile = tileService.render(tx, ty, tileFormat);
+        return ResponseEntity.ok()
+                .eTag(tileService.etag(tx, ty, tile.version(), tileFormat))
+                .header(EPOCH_HEADER, String.valueOf(tileService.epoch())) // 변경분 조회(/changes)에 넘길 값
+                .header(VERSION_HEADER, String.valueOf(tile.version()))
+                .cacheControl(CacheControl.noCache()) // 브라우저 캐시는 쓰되 매번 ETag로 재검증
+                .contentType(tileFormat == TileService.Format.PNG ? MediaType.IMAGE_PNG : MediaType.APPLICATION_OCTET_STREAM)
+                .body(tile.body());
+    }
+
+    /**
+     * 이미 가진 타일의 since 버전 이후 변경분만 (재연결/되돌아온 타일 동기화용)
+     * 링 버퍼를 넘어섰거나 epoch가 다르면 full = true로 타일 전체를 내려줌
+     */
+    @GetMapping("/{tx}/{ty}/changes")
+    public ResponseEntity<TileChangesResponse> getTileChanges(@PathVariable int tx, @PathVariable int ty,
+                                                              @RequestParam long since,
+                                                              @RequestParam long epoch) {
+        if (!tileService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        return ResponseEntity.ok(tileService.changesSince(tx, ty, epoch, since));
+    }
+}
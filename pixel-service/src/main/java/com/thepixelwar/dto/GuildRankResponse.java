@@ -0,0 +1,5 @@
+package com.thepixelwar.dto;
+
+// 길드 랭킹 한 줄 (score = 길드원들이 가진 땅의 합)
+public record GuildRankResponse(int rank, Long guildId, String name, long score) {
+}
@@ -0,0 +1,17 @@
+package com.thepixelwar.dto;
+
+/**
+ * 히트맵 (최근 N분, 오래된 클릭일수록 작은 점수)
+ * 상위 좌표는 열 단위 배열: i번째 칸 = (lat[i], lng[i]), 점수 score[i] (점수 높은 순)
+ * density는 전체 히트맵을 거친 격자로 합친 것 (축소 화면용)
+ */
+public record HeatmapResponse(long computedAt, int windowMinutes,
+                              double[] lat, double[] lng, float[] score, Density density) {
+
+    /**
+     * 거친 밀도 격자 중 점수가 있는 칸만: i번째 칸의 남서쪽 모서리 = (lat[i], lng[i]), 한 변 cellDegrees, 점수 heat[i]
+     * 칸 수는 합친 좌표 수(scan-limit) 이하라서 좌표가 아무리 멀리 흩어져 있어도 응답 크기가 커지지 않음
+     */
+    public record Density(double cellDegrees, double[] lat, double[] lng, float[] heat) {
+    }
+}
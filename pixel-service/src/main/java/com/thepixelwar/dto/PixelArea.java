@@ -0,0 +1,11 @@
+package com.thepixelwar.dto;
+
+import java.util.List;
+
+/**
+ * 영역 조회 결과
+ * blockSize가 1이면 pixels는 칸 하나하나, 그보다 크면 요약(LOD) 칸: (lat, lng)부터 blockSize × blockSize칸을 한 색으로
+ * 요약 칸은 주인 정보가 없음 (userId = null)
+ */
+public record PixelArea(int blockSize, List<PixelRequest> pixels) {
+}
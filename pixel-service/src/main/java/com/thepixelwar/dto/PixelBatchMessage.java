@@ -0,0 +1,9 @@
+package com.thepixelwar.dto;
+
+/**
+ * 타일 하나에 대한 픽셀 묶음 (WebSocket 1프레임)
+ * 픽셀마다 객체를 만들지 않고 열(column) 단위 배열로 보내서 JSON 키 반복을 없앰
+ * x, y는 격자 인덱스 (위도/경도 = 인덱스 * GRID_SIZE)
+ */
+public record PixelBatchMessage(int[] x, int[] y, String[] color, String[] userId) {
+}
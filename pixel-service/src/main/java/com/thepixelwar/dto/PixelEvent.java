@@ -0,0 +1,17 @@
+package com.thepixelwar.dto;
+
+import com.thepixelwar.canvas.Palette;
+
+/**
+ * Kafka로 흐르는 픽셀 점령 이벤트 (격자 좌표 기준)
+ * PixelRequest(위도/경도 double + 색상 문자열)와 달리 고정 길이 필드 위주라 바이너리로 작게 직렬화됨
+ *
+ * @param color     팔레트 인덱스 (Palette)
+ * @param timestamp 점령 시각 (epoch millis)
+ */
+public record PixelEvent(int x, int y, int color, String userId, long timestamp) {
+
+    public String colorHex() {
+        return Palette.hex(color);
+    }
+}
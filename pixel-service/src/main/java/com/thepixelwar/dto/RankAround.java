@@ -0,0 +1,7 @@
+package com.thepixelwar.dto;
+
+import java.util.List;
+
+// 내 순위(순위권 밖이면 0)와 위아래 K명씩 (ranks는 순위 순서, 나도 포함)
+public record RankAround(int myRank, List<RankResponse> ranks) {
+}
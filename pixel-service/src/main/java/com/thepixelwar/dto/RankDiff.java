@@ -0,0 +1,11 @@
+package com.thepixelwar.dto;
+
+import java.util.List;
+
+/**
+ * /sub/ranks로 보내는 리더보드 변경분
+ * 클라이언트가 가진 버전이 fromVersion이면: 목록을 size개로 자르고 changed의 각 항목을 rank 자리에 덮어씀
+ * 버전이 다르면(놓친 변경분이 있으면) REST(/api/ranks)로 전체를 다시 받음
+ */
+public record RankDiff(long fromVersion, long version, int size, List<RankResponse> changed) {
+}
@@ -0,0 +1,5 @@
+package com.thepixelwar.dto;
+
+// 가장 큰 연결된 땅 (칸 수): 내 땅 / 내 길드 땅 (길드가 없으면 guildId null, guildLargest 0)
+public record TerritoryResponse(int largest, Long guildId, int guildLargest) {
+}
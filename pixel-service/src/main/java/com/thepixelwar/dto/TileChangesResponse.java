@@ -0,0 +1,10 @@
+package com.thepixelwar.dto;
+
+/**
+ * 타일 하나의 "버전 V 이후 변경분"
+ * cell: 타일 안 칸 인덱스 (dx * TILE_SIZE + dy), color: 팔레트 인덱스 (PixelBatchMessage처럼 열 단위 배열)
+ * full이면 변경분 대신 타일의 칠해진 칸 전부 (링 버퍼가 넘쳤거나 epoch가 달라서 이어받을 수 없음)
+ * 클라이언트는 epoch, version을 들고 있다가 다음 조회의 since로 보냄
+ */
+public record TileChangesResponse(long epoch, long version, boolean full, int[] cell, int[] color) {
+}
@@ -32,6 +32,11 @@ public class GuildEntity {
     @OneToMany(mappedBy = "guild", cascade = CascadeType.ALL)
     private List<MemberEntity> members = new ArrayList<>();
 
+    // 길드원 수 (목록/상세에서 members를 읽지 않도록 따로 들고 있음)
+    // 가입/탈퇴 시 GuildRepository의 조건부 UPDATE로만 바꿈 → 엔티티 저장이 옛 값으로 덮어쓰지 않도록 updatable = false
+    @Column(nullable = false, updatable = false, columnDefinition = "int not null default 0")
+    private int memberCount;
+
     @Builder
     public GuildEntity(String name, String description, String masterProviderId) {
         this.name = name;
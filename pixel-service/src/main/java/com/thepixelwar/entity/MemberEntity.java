@@ -6,7 +6,10 @@ import lombok.*;
 @Entity
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@Table(name = "members")
+@Table(name = "members", indexes = {
+        // 길드원 수 세기, 길드장 넘길 때 가장 먼저 가입한 길드원 찾기
+        @Index(name = "idx_members_guild_id", columnList = "guild_id, id")
+})
 public class MemberEntity {
 
     @Id
@@ -1,5 +1,6 @@
 package com.thepixelwar.entity;
 
+import com.thepixelwar.canvas.MortonKey;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -8,7 +9,10 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "pixels")
+@Table(name = "pixels", uniqueConstraints = {
+        // 좌표당 한 줄만 존재 (배치 컨슈머의 INSERT ... ON DUPLICATE KEY UPDATE 대상 키, 좌표/영역 조회 인덱스)
+        @UniqueConstraint(name = "uk_pixels_cell_key", columnNames = {"cell_key"})
+})
 @Getter @Setter
 @NoArgsConstructor
 public class PixelEntity {
@@ -19,13 +23,27 @@ public class PixelEntity {
     // private LocalDateTime createdAt; // 성능 테스트를 위해 추가된 변수
     private int x;
     private int y;
-    private String color;
+
+    // (x, y)의 Z-order 키 (MortonKey), x/y가 바뀌면 저장 직전에 다시 계산
+    @Column(name = "cell_key", nullable = false)
+    private long cellKey;
+
+    // 팔레트 인덱스 (Palette), "#RRGGBB"는 API 응답을 만들 때만 변환
+    @Column(name = "color_index", columnDefinition = "tinyint unsigned not null")
+    private int color;
     private String userId;
 
-    public PixelEntity(int x, int y, String color, String userId) {
+    public PixelEntity(int x, int y, int color, String userId) {
         this.x = x;
         this.y = y;
         this.color = color;
         this.userId = userId;
+        this.cellKey = MortonKey.encode(x, y);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateCellKey() {
+        this.cellKey = MortonKey.encode(x, y);
     }
 }
\ No newline at end of file
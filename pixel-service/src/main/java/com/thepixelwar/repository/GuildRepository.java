@@ -1,10 +1,40 @@
 package com.thepixelwar.repository;
 
 import com.thepixelwar.entity.GuildEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.Optional;
 
 public interface GuildRepository extends JpaRepository<GuildEntity, Long> {
     Optional<GuildEntity> findByName(String name);
     boolean existsByName(String name);
-}
\ No newline at end of file
+
+    // 자리가 있을 때만 +1 (행 잠금 안에서 조건을 다시 보므로 동시에 가입해도 max를 넘지 않음), 0이면 꽉 참
+    @Modifying
+    @Query("update GuildEntity g set g.memberCount = g.memberCount + 1 where g.id = :guildId and g.memberCount < :max")
+    int incrementMemberCount(@Param("guildId") Long guildId, @Param("max") int max);
+
+    @Modifying
+    @Query("update GuildEntity g set g.memberCount = g.memberCount - 1 where g.id = :guildId and g.memberCount > 0")
+    int decrementMemberCount(@Param("guildId") Long guildId);
+
+    // 잠금 읽기로 길드가 지금 있는지 (같은 트랜잭션에서 앞서 읽은 스냅샷이 아니라 커밋된 최신 행을 봄)
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select g.id from GuildEntity g where g.id = :guildId")
+    Optional<Long> findIdForShare(@Param("guildId") Long guildId);
+
+    // 길드원이 없을 때만 삭제 (그 사이 누가 가입했으면 0)
+    @Modifying
+    @Query("delete from GuildEntity g where g.id = :guildId and g.memberCount = 0")
+    int deleteIfEmpty(@Param("guildId") Long guildId);
+
+    // 길드원 수를 실제 길드원으로 다시 맞춤 (컬럼이 새로 생겼을 때 채우기)
+    @Modifying
+    @Query(value = "update guilds g set g.member_count = (select count(*) from members m where m.guild_id = g.id)", nativeQuery = true)
+    int syncMemberCounts();
+}
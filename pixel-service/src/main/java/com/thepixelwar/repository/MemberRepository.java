@@ -1,9 +1,29 @@
 package com.thepixelwar.repository;
 
+import com.thepixelwar.entity.GuildEntity;
 import com.thepixelwar.entity.MemberEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface MemberRepository extends JpaRepository<MemberEntity, Long> {
     Optional<MemberEntity> findByProviderId(String providerId);
-}
\ No newline at end of file
+
+    // 가입/탈퇴 중에는 같은 유저의 요청이 겹치지 않도록 행 잠금 (중복 가입으로 길드원 수가 두 번 오르지 않게)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from MemberEntity m where m.providerId = :providerId")
+    Optional<MemberEntity> findForUpdateByProviderId(@Param("providerId") String providerId);
+
+    // 가장 먼저 가입한(id가 가장 작은) 길드원 (idx_members_guild_id)
+    Optional<MemberEntity> findFirstByGuildOrderByIdAsc(GuildEntity guild);
+
+    // 픽셀 주인(userId = 닉네임)들의 길드를 한 번에 조회 (길드 랭킹 매핑 채우기용)
+    @Query("select m from MemberEntity m left join fetch m.guild where m.nickname in :nicknames")
+    List<MemberEntity> findAllWithGuildByNicknameIn(@Param("nicknames") Collection<String> nicknames);
+}
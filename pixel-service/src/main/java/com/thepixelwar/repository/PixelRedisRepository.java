@@ -0,0 +1,191 @@
+package com.thepixelwar.repository;
+
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.canvas.Palette;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Redis 실시간 픽셀 상태 (칸마다 문자열 키 대신 청크당 해시 하나)
+ * 키: pixel:{cx:cy} → 중괄호 해시 태그라 Redis Cluster에서도 청크 하나는 한 슬롯에 모임
+ * 필드: 청크 안 오프셋 (dx * CHUNK_SIZE + dy), 값: 팔레트 인덱스
+ *
+ * 청크를 32 × 32(1024칸)로 작게 잡아서 해시가 listpack 인코딩으로 남게 함 (redis hash-max-listpack-entries 1024)
+ * → 칸당 10바이트 안팎 (칸마다 키를 만들던 때는 키/값 객체만 70바이트 이상)
+ * 값에는 주인을 넣지 않으므로 Redis에서 읽은 픽셀은 userId가 없음
+ */
+@Repository
+@RequiredArgsConstructor
+public class PixelRedisRepository {
+
+    public static final int CHUNK_SIZE = 32;
+
+    // 캔버스 전체가 한 번 채워졌다는 표시 (없으면 Redis 조회 결과를 믿을 수 없으므로 DB로)
+    static final String SEEDED_KEY = "pixel:seeded";
+
+    // 영역 조회 시 한 번에 읽을 최대 청크 수 (너무 축소된 화면은 Redis 대신 DB로)
+    static final int MAX_AREA_CHUNKS = 1024;
+
+    private static final int SEED_BATCH_CELLS = 20000;
+
+    // 청크 해시 이전에 칸마다 만들던 문자열 키 (pixel:x:y, TTL 없음) → 한 번 지우고 나면 표시를 남김
+    static final String LEGACY_CLEANED_KEY = "pixel:legacy-cleaned";
+    private static final Pattern LEGACY_KEY = Pattern.compile("pixel:-?\\d+:-?\\d+");
+    private static final int LEGACY_SCAN_COUNT = 1000;
+
+    // 채우기: 이미 있는 필드는 건드리지 않음 (그 사이 스크립트로 찍힌 더 최신 값 보존)
+    private static final String SEED_SCRIPT = """
+            for i = 1, #ARGV, 2 do
+                redis.call('HSETNX', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            return 0
+            """;
+
+    private final StringRedisTemplate redisTemplate;
+
+    public static String chunkKey(int x, int y) {
+        return "pixel:{" + Math.floorDiv(x, CHUNK_SIZE) + ":" + Math.floorDiv(y, CHUNK_SIZE) + "}";
+    }
+
+    public static String field(int x, int y) {
+        return String.valueOf(Math.floorMod(x, CHUNK_SIZE) * CHUNK_SIZE + Math.floorMod(y, CHUNK_SIZE));
+    }
+
+    public void save(int x, int y, int color) {
+        redisTemplate.opsForHash().put(chunkKey(x, y), field(x, y), String.valueOf(color));
+    }
+
+    // 팔레트 인덱스 (빈 칸이면 -1)
+    public int findColor(int x, int y) {
+        Object color = redisTemplate.opsForHash().get(chunkKey(x, y), field(x, y));
+        return color == null ? -1 : Integer.parseInt(color.toString());
+    }
+
+    public boolean isSeeded() {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(SEEDED_KEY));
+    }
+
+    /**
+     * [minX, maxX] × [minY, maxY] 안의 칸을 방문 (걸친 청크마다 HGETALL 한 번, 전부 파이프라인 1회)
+     * 청크가 MAX_AREA_CHUNKS개를 넘으면 읽지 않고 false
+     */
+    public boolean findByArea(int minX, int maxX, int minY, int maxY, CanvasStore.CellVisitor visitor) {
+        int minChunkX = Math.floorDiv(minX, CHUNK_SIZE);
+        int maxChunkX = Math.floorDiv(maxX, CHUNK_SIZE);
+        int minChunkY = Math.floorDiv(minY, CHUNK_SIZE);
+        int maxChunkY = Math.floorDiv(maxY, CHUNK_SIZE);
+        if ((long) (maxChunkX - minChunkX + 1) * (maxChunkY - minChunkY + 1) > MAX_AREA_CHUNKS) return false;
+
+        List<int[]> origins = new ArrayList<>();
+        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+            for (int cy = minChunkY; cy <= maxChunkY; cy++) {
+                origins.add(new int[]{cx * CHUNK_SIZE, cy * CHUNK_SIZE});
+            }
+        }
+        List<Object> chunks = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (int[] origin : origins) {
+                stringConnection.hGetAll(chunkKey(origin[0], origin[1]));
+            }
+            return null;
+        });
+
+        for (int i = 0; i < origins.size(); i++) {
+            if (!(chunks.get(i) instanceof Map<?, ?> cells)) continue;
+            int[] origin = origins.get(i);
+            for (Map.Entry<?, ?> cell : cells.entrySet()) {
+                int offset = Integer.parseInt(cell.getKey().toString());
+                int x = origin[0] + offset / CHUNK_SIZE;
+                int y = origin[1] + offset % CHUNK_SIZE;
+                int color = Integer.parseInt(cell.getValue().toString());
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY && Palette.isValid(color)) {
+                    visitor.visit(x, y, color, null);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 메모리 캔버스 전체를 Redis 청크 해시로 채우고 완료 표시를 남김
+     * 청크별로 모아서 SEED_BATCH_CELLS칸마다 파이프라인 1번 (청크마다 스크립트 1번)
+     */
+    public int seed(CanvasStore canvasStore) {
+        Map<String, List<String>> pending = new LinkedHashMap<>();
+        int[] counts = new int[2]; // 모아둔 칸 수, 전체 칸 수
+        canvasStore.forEach((x, y, color, userId) -> {
+            List<String> args = pending.computeIfAbsent(chunkKey(x, y), key -> new ArrayList<>());
+            args.add(field(x, y));
+            args.add(String.valueOf(color));
+            counts[1]++;
+            if (++counts[0] >= SEED_BATCH_CELLS) {
+                flushSeed(pending);
+                counts[0] = 0;
+            }
+        });
+        flushSeed(pending);
+        redisTemplate.opsForValue().set(SEEDED_KEY, String.valueOf(System.currentTimeMillis()));
+        return counts[1];
+    }
+
+    public boolean isLegacyCleaned() {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(LEGACY_CLEANED_KEY));
+    }
+
+    /**
+     * 예전 칸별 문자열 키를 SCAN으로 훑으며 LEGACY_SCAN_COUNT개씩 UNLINK (Redis를 오래 막지 않도록 KEYS/DEL 대신)
+     * 다 지우면 완료 표시를 남겨서 다음 기동부터는 건너뜀, 지운 키 수를 돌려줌
+     */
+    public long deleteLegacyKeys() {
+        ScanOptions options = ScanOptions.scanOptions().match("pixel:*").count(LEGACY_SCAN_COUNT).build();
+        List<String> batch = new ArrayList<>(LEGACY_SCAN_COUNT);
+        long deleted = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                if (!LEGACY_KEY.matcher(key).matches()) continue; // 청크 해시(pixel:{..}), 락, 표시 키는 그대로
+                batch.add(key);
+                if (batch.size() >= LEGACY_SCAN_COUNT) {
+                    deleted += unlink(batch);
+                }
+            }
+        }
+        deleted += unlink(batch);
+        redisTemplate.opsForValue().set(LEGACY_CLEANED_KEY, String.valueOf(System.currentTimeMillis()));
+        return deleted;
+    }
+
+    private long unlink(List<String> keys) {
+        if (keys.isEmpty()) return 0;
+        Long unlinked = redisTemplate.unlink(keys);
+        keys.clear();
+        return unlinked == null ? 0 : unlinked;
+    }
+
+    private void flushSeed(Map<String, List<String>> pending) {
+        if (pending.isEmpty()) return;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            pending.forEach((key, args) -> {
+                String[] keysAndArgs = new String[args.size() + 1];
+                keysAndArgs[0] = key;
+                for (int i = 0; i < args.size(); i++) keysAndArgs[i + 1] = args.get(i);
+                stringConnection.eval(SEED_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs);
+            });
+            return null;
+        });
+        pending.clear();
+    }
+}
@@ -1,12 +1,21 @@
 package com.thepixelwar.repository;
 
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.canvas.MortonKey;
 import com.thepixelwar.entity.PixelEntity;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Repository // 데이터를 저장하는 클래스로 bean에 등록
 @RequiredArgsConstructor // final이 붙은 객체에 의존성 주입
@@ -31,23 +40,159 @@ public class PixelRepository {
                 .getResultList();
     }
 
+    /**
+     * 전체 픽셀을 cell_key 순서로 한 칸씩 visitor에 흘려보냄 (목록을 만들지 않음)
+     * forward-only 커서로 fetchSize줄씩 읽고, 엔티티 대신 값만 골라서 영속성 컨텍스트도 커지지 않음
+     * (MySQL은 URL에 useCursorFetch=true가 있어야 fetchSize대로 나눠 읽음)
+     * cell_key가 Z-order라 같은 타일(정렬된 2^n 정사각형)의 칸은 연달아 나옴
+     * 트랜잭션 안에서 불러야 함
+     */
+    @SuppressWarnings("unchecked")
+    public void scanAll(int fetchSize, CanvasStore.CellVisitor visitor) {
+        org.hibernate.query.Query<Object[]> query = em.createQuery(
+                        "select p.x, p.y, p.color, p.userId from PixelEntity p order by p.cellKey", Object[].class)
+                .unwrap(org.hibernate.query.Query.class);
+        try (ScrollableResults<Object[]> rows = query
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                Object[] row = rows.get();
+                visitor.visit((Integer) row[0], (Integer) row[1], (Integer) row[2], (String) row[3]);
+            }
+        }
+    }
+
+    // 픽셀 id 범위 {최소, 최대} (비어 있으면 null), 랭킹 재계산을 id 구간으로 나눌 때 씀
+    public long[] findIdRange() {
+        Object[] row = em.createQuery("select min(p.id), max(p.id) from PixelEntity p", Object[].class)
+                .getSingleResult();
+        return row[0] == null ? null : new long[]{(Long) row[0], (Long) row[1]};
+    }
+
+    /**
+     * id가 [fromId, toId)인 픽셀의 주인만 한 칸씩 흘려보냄 (랭킹 재계산용, 정렬 없이 forward-only 커서로 fetchSize줄씩)
+     * PK 구간이라 구간마다 클러스터 인덱스의 연속된 부분만 읽음 → 구간별로 다른 스레드/트랜잭션에서 나눠 읽을 수 있음
+     * 트랜잭션 안에서 불러야 함
+     */
+    @SuppressWarnings("unchecked")
+    public void scanOwners(long fromId, long toId, int fetchSize, Consumer<String> visitor) {
+        org.hibernate.query.Query<String> query = em.createQuery(
+                        "select p.userId from PixelEntity p where p.id >= :fromId and p.id < :toId", String.class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .unwrap(org.hibernate.query.Query.class);
+        try (ScrollableResults<String> rows = query
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                visitor.accept(rows.get());
+            }
+        }
+    }
+
+    // 사각형 조회를 몇 개의 키 구간으로 나눌지 상한 (많을수록 정확하지만 SQL이 길어짐)
+    static final int MAX_AREA_RANGES = 32;
+
     public PixelEntity findByCoords(int x, int y) {
         return em.createQuery(
-                        "select p from PixelEntity p where p.x = :x and p.y = :y", PixelEntity.class)
-                .setParameter("x", x)
-                .setParameter("y", y)
+                        "select p from PixelEntity p where p.cellKey = :cellKey", PixelEntity.class)
+                .setParameter("cellKey", MortonKey.encode(x, y))
                 .getResultStream().findFirst().orElse(null);
     }
+
+    /**
+     * 사각형 [minX, maxX] × [minY, maxY] 조회
+     * 사각형을 Z-order 키 구간 몇 개로 나눠 구간마다 uk_pixels_cell_key 인덱스 구간 스캔을 하고,
+     * 구간에 섞여 들어온 사각형 밖 칸은 x, y 조건으로 걸러냄
+     */
+    @SuppressWarnings("unchecked")
     public List<PixelEntity> findByArea(int minX, int maxX, int minY, int maxY) {
-        return em.createQuery(
-                        "select p from PixelEntity p where p.x >= :minX and p.x <= :maxX and p.y >= :minY and p.y <= :maxY", PixelEntity.class)
-                .setParameter("minX", minX)
-                .setParameter("maxX", maxX)
-                .setParameter("minY", minY)
-                .setParameter("maxY", maxY)
-                .getResultList();
+        List<long[]> ranges = MortonKey.ranges(minX, maxX, minY, maxY, MAX_AREA_RANGES);
+        if (ranges.isEmpty()) return List.of();
+
+        Query query = em.createNativeQuery(areaSql(ranges.size()), PixelEntity.class);
+        int index = 1;
+        for (long[] range : ranges) {
+            query.setParameter(index++, range[0]);
+            query.setParameter(index++, range[1]);
+            query.setParameter(index++, minX);
+            query.setParameter(index++, maxX);
+            query.setParameter(index++, minY);
+            query.setParameter(index++, maxY);
+        }
+        return query.getResultList();
     }
-    
+
+    /**
+     * 구간 하나당 select 하나를 union all로 이어붙임
+     * (OR로 묶으면 옵티마이저에 따라 인덱스 대신 전체 스캔을 고르기도 함, 구간끼리는 겹치지 않아 중복 없음)
+     * 파라미터 순서: 구간마다 (from, to, minX, maxX, minY, maxY)
+     */
+    static String areaSql(int rangeCount) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < rangeCount; i++) {
+            if (i > 0) sql.append(" union all ");
+            sql.append("select * from pixels where cell_key between ? and ? and x between ? and ? and y between ? and ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 여러 좌표의 현재 주인을 한 번의 쿼리로 조회 (uk_pixels_cell_key 인덱스 사용)
+     * 반환: CanvasGrid.key(x, y) → userId (빈 땅은 맵에 없음)
+     */
+    public Map<Long, String> findOwnersByCoords(List<PixelEntity> pixels) {
+        Map<Long, String> owners = new HashMap<>();
+        if (pixels.isEmpty()) return owners;
+
+        StringBuilder sql = new StringBuilder("select x, y, user_id from pixels where cell_key in (");
+        for (int i = 0; i < pixels.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        Query query = em.createNativeQuery(sql.toString());
+        int index = 1;
+        for (PixelEntity pixel : pixels) {
+            query.setParameter(index++, MortonKey.encode(pixel.getX(), pixel.getY()));
+        }
+
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            int x = ((Number) columns[0]).intValue();
+            int y = ((Number) columns[1]).intValue();
+            owners.put(CanvasGrid.key(x, y), (String) columns[2]);
+        }
+        return owners;
+    }
+
+    /**
+     * 여러 픽셀을 multi-row INSERT ... ON DUPLICATE KEY UPDATE 한 문장으로 저장
+     * 같은 좌표가 여러 번 들어있으면 뒤에 있는 값이 최종 값이 됨
+     */
+    public int upsertAll(List<PixelEntity> pixels) {
+        if (pixels.isEmpty()) return 0;
+
+        StringBuilder sql = new StringBuilder("insert into pixels (x, y, cell_key, color_index, user_id) values ");
+        for (int i = 0; i < pixels.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        sql.append(" on duplicate key update color_index = values(color_index), user_id = values(user_id)");
+
+        Query query = em.createNativeQuery(sql.toString());
+        int index = 1;
+        for (PixelEntity pixel : pixels) {
+            query.setParameter(index++, pixel.getX());
+            query.setParameter(index++, pixel.getY());
+            query.setParameter(index++, MortonKey.encode(pixel.getX(), pixel.getY()));
+            query.setParameter(index++, pixel.getColor());
+            query.setParameter(index++, pixel.getUserId());
+        }
+        return query.executeUpdate();
+    }
+
     //성능 테스트를 위해 추가된 함수
 //    public PixelEntity findTopByUserIdOrderByCreatedAtDesc(String userId) {
 //        return em.createQuery(
@@ -0,0 +1,167 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.dto.GuildRankResponse;
+import com.thepixelwar.entity.GuildEntity;
+import com.thepixelwar.entity.MemberEntity;
+import com.thepixelwar.repository.GuildRepository;
+import com.thepixelwar.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 길드 랭킹 (길드원들이 가진 땅의 합)
+ * MySQL에서 픽셀과 길드를 조인하지 않고, 컨슈머가 이미 계산하는 주인 변화량으로 같이 갱신함
+ *
+ * - GUILD_OF_KEY: userId(닉네임) → guildId 해시 (길드 없으면 ""), MySQL 길드원 정보의 캐시
+ *   RankingService의 반영 스크립트가 이 해시를 읽어서 유저 점수와 길드 점수를 한 번에 올림
+ *   해시에 없는 유저는 스크립트가 돌려주고, 여기서 DB로 채운 뒤 그 유저의 현재 점수를 길드에 얹음 (attach)
+ * - 가입/탈퇴 시에는 해시를 바꾸면서 그 유저의 현재 점수를 옛 길드에서 새 길드로 옮김 (moveMember)
+ * 매핑 변경과 점수 이동이 모두 Redis 스크립트 안에서 일어나므로 컨슈머 반영과 순서가 섞여도 합이 어긋나지 않음
+ * - 매핑을 바꿀 때마다 버전(GUILD_OF_VERSION_KEY)을 올리고 변경 기록(GUILD_OF_CHANGES_KEY: userId → 버전)에 남김
+ *   → 다른 인스턴스는 버전만 보고 바뀐 유저만 다시 읽음 (TerritoryService.syncGuilds)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GuildRankingService {
+
+    static final String GUILD_RANKING_KEY = "pixel-war:guild-ranking";
+    static final String GUILD_OF_KEY = "pixel-war:guild-of";
+    static final String GUILD_OF_VERSION_KEY = "pixel-war:guild-of:version";
+    static final String GUILD_OF_CHANGES_KEY = "pixel-war:guild-of:changes";
+    private static final String NO_GUILD = "";
+    private static final int TOP_N = 10;
+
+    /**
+     * 매핑이 없는 유저만 채우고, 채운 경우에만 현재 점수를 길드에 더함 (그 사이 가입/탈퇴로 이미 채워졌으면 건드리지 않음)
+     * KEYS = [유저 랭킹, 길드 랭킹, 길드 매핑], ARGV = [userId, guildId, userId, guildId, ...]
+     */
+    private static final RedisScript<Long> ATTACH_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, #ARGV, 2 do
+                if redis.call('HSETNX', KEYS[3], ARGV[i], ARGV[i + 1]) == 1 and ARGV[i + 1] ~= '' then
+                    local score = redis.call('ZSCORE', KEYS[1], ARGV[i])
+                    if score then
+                        redis.call('ZINCRBY', KEYS[2], score, ARGV[i + 1])
+                    end
+                end
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 길드 변경: 해시에 적힌 옛 길드에서 현재 점수를 빼고 새 길드에 더한 뒤 매핑을 바꾸고, 버전을 올려 변경 기록에 남김
+     * KEYS = [유저 랭킹, 길드 랭킹, 길드 매핑, 매핑 버전, 변경 기록], ARGV = [userId, 새 guildId (없으면 "")]
+     */
+    private static final RedisScript<Long> MOVE_SCRIPT = new DefaultRedisScript<>("""
+            local old = redis.call('HGET', KEYS[3], ARGV[1])
+            local score = tonumber(redis.call('ZSCORE', KEYS[1], ARGV[1]) or '0')
+            if old and old ~= '' and score ~= 0 then
+                redis.call('ZINCRBY', KEYS[2], -score, old)
+            end
+            if ARGV[2] ~= '' then
+                redis.call('ZINCRBY', KEYS[2], score, ARGV[2])
+            end
+            redis.call('HSET', KEYS[3], ARGV[1], ARGV[2])
+            local version = redis.call('INCR', KEYS[4])
+            redis.call('ZADD', KEYS[5], version, ARGV[1])
+            return version
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MemberRepository memberRepository;
+    private final GuildRepository guildRepository;
+
+    /**
+     * 반영 스크립트가 매핑을 못 찾은 유저들을 DB(쿼리 1번)로 채움
+     * 길드원이 아니거나 멤버 정보가 없는 유저도 ""로 기록해서 다음부터는 DB를 보지 않음
+     */
+    public void attach(Collection<String> userIds) {
+        if (userIds.isEmpty()) return;
+        Map<String, String> guildOf = new HashMap<>();
+        for (MemberEntity member : memberRepository.findAllWithGuildByNicknameIn(userIds)) {
+            if (member.getGuild() != null) guildOf.putIfAbsent(member.getNickname(), String.valueOf(member.getGuild().getId()));
+        }
+        List<String> args = new ArrayList<>(userIds.size() * 2);
+        for (String userId : userIds) {
+            args.add(userId);
+            args.add(guildOf.getOrDefault(userId, NO_GUILD));
+        }
+        redisTemplate.execute(ATTACH_SCRIPT, keys(), args.toArray());
+    }
+
+    // 길드 가입/탈퇴/생성 (guildId가 null이면 탈퇴)
+    public void moveMember(String userId, Long guildId) {
+        List<String> keys = List.of(RankingService.RANKING_KEY, GUILD_RANKING_KEY, GUILD_OF_KEY, GUILD_OF_VERSION_KEY, GUILD_OF_CHANGES_KEY);
+        redisTemplate.execute(MOVE_SCRIPT, keys, userId, guildId == null ? NO_GUILD : String.valueOf(guildId));
+    }
+
+    // 길드 매핑 버전 (가입/탈퇴마다 1씩, 아직 없으면 0)
+    public long guildOfVersion() {
+        String version = redisTemplate.opsForValue().get(GUILD_OF_VERSION_KEY);
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    // version 이후에 길드가 바뀐 유저들 (같은 유저가 여러 번 바뀌어도 한 번)
+    public Set<String> changedSince(long version) {
+        Set<String> changed = redisTemplate.opsForZSet().rangeByScore(GUILD_OF_CHANGES_KEY, version + 1, Double.POSITIVE_INFINITY);
+        return changed == null ? Set.of() : changed;
+    }
+
+    /**
+     * 길드 매핑 캐시(해시)에서 여러 유저의 길드를 한 번에 (HMGET)
+     * 매핑이 있는 유저만 담고, 길드가 없으면 0
+     */
+    public Map<String, Long> findGuildIds(List<String> userIds) {
+        Map<String, Long> result = new HashMap<>();
+        if (userIds.isEmpty()) return result;
+        List<Object> values = redisTemplate.opsForHash().multiGet(GUILD_OF_KEY, new ArrayList<>(userIds));
+        for (int i = 0; i < userIds.size(); i++) {
+            Object value = values.get(i);
+            if (value == null) continue;
+            result.put(userIds.get(i), value.toString().isEmpty() ? 0L : Long.parseLong(value.toString()));
+        }
+        return result;
+    }
+
+    // 길드가 없어지면 랭킹에서도 제거 (마지막 길드원이 나가면서 점수는 이미 0)
+    public void removeGuild(Long guildId) {
+        redisTemplate.opsForZSet().remove(GUILD_RANKING_KEY, String.valueOf(guildId));
+    }
+
+    // Top 10 길드 (점수 높은 순, 이름은 DB에서 한 번에)
+    public List<GuildRankResponse> getTopGuilds() {
+        Set<ZSetOperations.TypedTuple<String>> topGuilds =
+                redisTemplate.opsForZSet().reverseRangeWithScores(GUILD_RANKING_KEY, 0, TOP_N - 1);
+        if (topGuilds == null || topGuilds.isEmpty()) return List.of();
+
+        List<Long> ids = topGuilds.stream().map(tuple -> Long.valueOf(tuple.getValue())).toList();
+        Map<Long, String> names = guildRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(GuildEntity::getId, GuildEntity::getName));
+
+        List<GuildRankResponse> result = new ArrayList<>();
+        int rank = 1;
+        for (ZSetOperations.TypedTuple<String> tuple : topGuilds) {
+            Long guildId = Long.valueOf(tuple.getValue());
+            long score = tuple.getScore() != null ? tuple.getScore().longValue() : 0;
+            result.add(new GuildRankResponse(rank++, guildId, names.getOrDefault(guildId, "Unknown"), score));
+        }
+        return result;
+    }
+
+    private static List<String> keys() {
+        return List.of(RankingService.RANKING_KEY, GUILD_RANKING_KEY, GUILD_OF_KEY);
+    }
+}
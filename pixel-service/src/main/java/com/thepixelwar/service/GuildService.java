@@ -6,14 +6,18 @@ import com.thepixelwar.entity.MemberEntity;
 import com.thepixelwar.repository.GuildRepository;
 import com.thepixelwar.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -21,8 +25,10 @@ public class GuildService {
 
     private final GuildRepository guildRepository;
     private final MemberRepository memberRepository;
+    private final GuildRankingService guildRankingService; // 가입/탈퇴 시 길드 랭킹 점수 옮기기
+    private final TerritoryService territoryService; // 가입/탈퇴 시 길드 땅 옮기기
 
-    private static final int MAX_MEMBERS = 30;
+    static final int MAX_MEMBERS = 30;
 
     // 1. 길드 생성
     public String createGuild(GuildCreateRequest request, String providerId, String nickname) {
@@ -33,7 +39,9 @@ public class GuildService {
         if (member.getGuild() != null) return "ALREADY_HAS_GUILD";
 
         GuildEntity guild = guildRepository.save(new GuildEntity(request.name(), request.description(), providerId));
+        guildRepository.incrementMemberCount(guild.getId(), MAX_MEMBERS);
         member.joinGuild(guild);
+        afterCommit(() -> moveMember(member.getNickname(), guild.getId()));
         return "SUCCESS";
     }
 
@@ -45,37 +53,40 @@ public class GuildService {
         GuildEntity guild = guildRepository.findById(guildId)
                 .orElseThrow(() -> new IllegalArgumentException("길드가 없습니다."));
 
-        if (guild.getMembers().size() >= MAX_MEMBERS) return "GUILD_FULL";
+        // 길드원 목록을 읽지 않고 조건부 UPDATE 한 번으로 자리 확보 (동시에 가입해도 MAX_MEMBERS를 넘지 않음)
+        // 0이면 꽉 찼거나, 위에서 읽은 뒤 마지막 길드원이 나가서 길드가 지워진 경우
+        if (guildRepository.incrementMemberCount(guildId, MAX_MEMBERS) == 0) {
+            return guildRepository.findIdForShare(guildId).isPresent() ? "GUILD_FULL" : "GUILD_NOT_FOUND";
+        }
 
         member.joinGuild(guild);
+        afterCommit(() -> moveMember(member.getNickname(), guild.getId()));
         return "SUCCESS";
     }
 
     // 3. 길드 탈퇴
     public String leaveGuild(String providerId) {
-        MemberEntity member = memberRepository.findByProviderId(providerId)
+        MemberEntity member = memberRepository.findForUpdateByProviderId(providerId)
                 .orElseThrow(() -> new IllegalArgumentException("유저가 없습니다."));
 
         GuildEntity guild = member.getGuild();
         if (guild == null) return "NO_GUILD";
 
         member.joinGuild(null);
-        memberRepository.save(member);
+        memberRepository.saveAndFlush(member); // 아래 길드장 찾기 쿼리에서 나를 빼기 위해 먼저 반영
+        guildRepository.decrementMemberCount(guild.getId());
+        afterCommit(() -> moveMember(member.getNickname(), null));
 
-        List<MemberEntity> remainingMembers = memberRepository.findAll().stream()
-                .filter(m -> guild.equals(m.getGuild()))
-                .collect(Collectors.toList());
-
-        if (remainingMembers.isEmpty()) {
-            guildRepository.delete(guild);
+        // 남은 길드원이 없으면 삭제 (그 사이 누가 가입했으면 지우지 않음)
+        if (guildRepository.deleteIfEmpty(guild.getId()) == 1) {
+            afterCommit(() -> guildRankingService.removeGuild(guild.getId()));
             return "GUILD_DELETED";
-        } else {
-            if (providerId.equals(guild.getMasterProviderId())) {
-                remainingMembers.sort(Comparator.comparing(MemberEntity::getId));
-                guild.changeMaster(remainingMembers.get(0).getProviderId());
-            }
-            return "SUCCESS";
         }
+        if (providerId.equals(guild.getMasterProviderId())) {
+            memberRepository.findFirstByGuildOrderByIdAsc(guild)
+                    .ifPresent(next -> guild.changeMaster(next.getProviderId()));
+        }
+        return "SUCCESS";
     }
 
     // 🗺️ [신규] 청사진 업데이트 (길드장 전용)
@@ -110,7 +121,7 @@ public class GuildService {
                 "name", guild.getName(),
                 "description", guild.getDescription() == null ? "" : guild.getDescription(),
                 "masterName", masterName,
-                "memberCount", guild.getMembers().size(),
+                "memberCount", guild.getMemberCount(),
                 "maxMembers", MAX_MEMBERS,
                 "isMaster", providerId.equals(guild.getMasterProviderId()),
                 // 👇 청사진 정보 추가
@@ -128,7 +139,7 @@ public class GuildService {
                         "id", g.getId(),
                         "name", g.getName(),
                         "description", g.getDescription() == null ? "" : g.getDescription(),
-                        "memberCount", g.getMembers().size(),
+                        "memberCount", g.getMemberCount(),
                         "maxMembers", MAX_MEMBERS
                 ))
                 .toList();
@@ -141,8 +152,34 @@ public class GuildService {
                 .orElse(null);
     }
 
+    private void moveMember(String userId, Long guildId) {
+        guildRankingService.moveMember(userId, guildId);
+        territoryService.changeGuild(userId, guildId);
+    }
+
+    // Redis 랭킹은 DB 커밋이 확정된 뒤에 옮김 (롤백되면 옮기지 않음, 트랜잭션 밖이면 바로)
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // 기동 시 길드원 수를 실제 길드원으로 다시 맞춤 (컬럼이 새로 생긴 경우 채우기 + 혹시 모를 어긋남 바로잡기)
+    @EventListener(ApplicationReadyEvent.class)
+    public void syncMemberCounts() {
+        int guilds = guildRepository.syncMemberCounts();
+        log.info("길드원 수 맞추기 완료: 길드 {}개", guilds);
+    }
+
     private MemberEntity getOrCreateMember(String providerId, String nickname) {
-        return memberRepository.findByProviderId(providerId)
+        return memberRepository.findForUpdateByProviderId(providerId)
                 .orElseGet(() -> memberRepository.save(new MemberEntity(providerId, nickname)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.thepixelwar.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 히트맵 클릭 수를 프로세스 안에서 모아두는 카운터 (좌표 키 CanvasGrid.key(x, y) → 클릭 수, 분 단위)
+ * HeatmapService가 주기적으로 drain()해서 Redis에 파이프라인 한 번으로 더함
+ *
+ * 줄(stripe) 16개로 나눠 락 경합을 줄이고, 줄마다 long[]/int[] 열린 주소 해시 표를 써서 클릭마다 박싱/엔트리 생성 없음
+ * 분이 바뀌면 그 줄의 이전 분 표는 봉인해서 따로 두므로 flush가 늦어도 클릭이 다른 분 버킷에 섞이지 않음
+ */
+final class HeatmapCounter {
+
+    // 한 분 동안 한 줄에서 센 결과 (cells[i]가 counts[i]번)
+    record Batch(long minute, long[] cells, int[] counts) {
+    }
+
+    private static final int STRIPES = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Queue<Batch> sealed = new ConcurrentLinkedQueue<>();
+
+    HeatmapCounter() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    void add(long minute, long cell) {
+        int hash = mix(cell);
+        stripes[hash >>> 28].add(minute, cell, hash);
+    }
+
+    // 지금까지 센 것을 모두 꺼내고 비움 (분이 바뀌어 봉인된 표 + 줄마다 지금 표)
+    List<Batch> drain() {
+        List<Batch> batches = new ArrayList<>();
+        for (Batch batch; (batch = sealed.poll()) != null; ) batches.add(batch);
+        for (Stripe stripe : stripes) {
+            Batch batch = stripe.take();
+            if (batch != null) batches.add(batch);
+        }
+        return batches;
+    }
+
+    // 위쪽 4비트는 줄 번호, 아래쪽 비트는 표 안 위치로 씀
+    private static int mix(long cell) {
+        return (int) ((cell * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    private final class Stripe {
+        private long minute = Long.MIN_VALUE;
+        private long[] cells = new long[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY]; // 0이면 빈 자리
+        private int size;
+
+        synchronized void add(long minute, long cell, int hash) {
+            if (minute != this.minute) {
+                if (size > 0) sealed.add(takeLocked());
+                this.minute = minute;
+            }
+            int slot = find(cells, counts, cell, hash);
+            if (counts[slot] == 0) {
+                cells[slot] = cell;
+                size++;
+            }
+            counts[slot]++;
+            if (size * 2 > cells.length) grow();
+        }
+
+        synchronized Batch take() {
+            return size == 0 ? null : takeLocked();
+        }
+
+        private Batch takeLocked() {
+            long[] outCells = new long[size];
+            int[] outCounts = new int[size];
+            int n = 0;
+            for (int i = 0; i < cells.length; i++) {
+                if (counts[i] == 0) continue;
+                outCells[n] = cells[i];
+                outCounts[n++] = counts[i];
+            }
+            cells = new long[INITIAL_CAPACITY];
+            counts = new int[INITIAL_CAPACITY];
+            size = 0;
+            return new Batch(minute, outCells, outCounts);
+        }
+
+        private void grow() {
+            long[] newCells = new long[cells.length * 2];
+            int[] newCounts = new int[counts.length * 2];
+            for (int i = 0; i < cells.length; i++) {
+                if (counts[i] == 0) continue;
+                int slot = find(newCells, newCounts, cells[i], mix(cells[i]));
+                newCells[slot] = cells[i];
+                newCounts[slot] = counts[i];
+            }
+            cells = newCells;
+            counts = newCounts;
+        }
+
+        // cell이 있는 자리, 없으면 넣을 빈 자리 (선형 탐사)
+        private static int find(long[] cells, int[] counts, long cell, int hash) {
+            int mask = cells.length - 1;
+            int slot = hash & mask;
+            while (counts[slot] != 0 && cells[slot] != cell) slot = (slot + 1) & mask;
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.dto.HeatmapResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 최근 N분 히트맵 (1시간 단위 키 대신 1분 버킷 링)
+ * - 클릭은 요청마다 Redis에 보내지 않고 HeatmapCounter에 분/좌표별로 세어두었다가
+ *   flush()가 짧은 주기로 ZINCRBY 묶음을 파이프라인 1번으로 보냄 (더하기라 인스턴스가 여럿이어도 합계가 맞음)
+ * - 버킷 키는 분 번호 % 링 크기라 포맷터도 EXPIRE도 필요 없음
+ * - rotate()가 주기적으로 다음 분에 쓸 버킷을 미리 비우고 지금 버킷에 TTL을 걸어둠 (모든 인스턴스가 돌려도 같은 결과)
+ * - 창 안의 버킷을 오래된 것일수록 작은 가중치(반감기)로 ZUNIONSTORE 해서 씀
+ *   → 정각마다 히트맵이 비지 않고, 방금 전 클릭이 가장 크게 보이다가 서서히 식음
+ * - 조회 응답(상위 좌표 + 거친 밀도 격자)은 refresh()가 주기적으로 미리 만들어 메모리에 들고 있음
+ *   → 클라이언트가 몇 명이 폴링하든 Redis는 갱신 주기마다 합치기 1번 + 읽기 1번
+ * 키는 모두 {ring} 해시 태그라 Redis Cluster에서도 한 슬롯에서 합칠 수 있음
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HeatmapService {
+
+    static final String BUCKET_KEY_PREFIX = "heatmap:{ring}:";
+    static final String WINDOW_KEY = "heatmap:{ring}:window";
+    static final long BUCKET_MILLIS = 60_000;
+
+    private final StringRedisTemplate redisTemplate;
+
+    // 합쳐서 보여줄 최근 분 수
+    @Value("${pixel.heatmap.window-minutes:60}")
+    private int windowMinutes = 60;
+
+    // 이만큼 지난 클릭은 점수가 절반
+    @Value("${pixel.heatmap.half-life-minutes:15}")
+    private double halfLifeMinutes = 15;
+
+    // 응답에 넣을 상위 좌표 수
+    @Value("${pixel.heatmap.top-n:500}")
+    private int topN = 500;
+
+    // 밀도 격자 한 칸의 원본 칸 수
+    @Value("${pixel.heatmap.density-cell-size:256}")
+    private int densityCellSize = 256;
+
+    // 밀도 격자를 만들 때 읽을 최대 좌표 수 (점수 높은 순, 이보다 식은 좌표는 빠짐)
+    @Value("${pixel.heatmap.scan-limit:100000}")
+    private int scanLimit = 100000;
+
+    // 미리 만든 응답이 이보다 오래되면 (갱신 작업이 밀렸을 때) 조회 요청이 직접 다시 만듦
+    @Value("${pixel.heatmap.cache-ttl-ms:10000}")
+    private long cacheTtlMs = 10000;
+
+    private volatile HeatmapResponse snapshot;
+
+    private final HeatmapCounter counter = new HeatmapCounter();
+
+    // 격자 좌표 (x, y) 클릭 1번 (메모리에서만 셈, Redis 반영은 flush 주기마다)
+    public void record(int x, int y) {
+        record(System.currentTimeMillis(), x, y);
+    }
+
+    void record(long now, int x, int y) {
+        counter.add(minuteOf(now), CanvasGrid.key(x, y));
+    }
+
+    /**
+     * 모아둔 클릭 수를 분 버킷마다 ZINCRBY로 더함 (전부 파이프라인 1번)
+     * 창을 벗어난 분의 몫은 버림 (다른 분이 쓰고 있는 링 칸을 건드리지 않도록)
+     * 실패하면 그 몫은 버림 (히트맵은 통계라 재시도로 요청 경로를 붙잡지 않음)
+     */
+    @Scheduled(fixedDelayString = "${pixel.heatmap.flush-interval-ms:1000}")
+    public void flush() {
+        flush(System.currentTimeMillis());
+    }
+
+    void flush(long now) {
+        long minute = minuteOf(now);
+        List<HeatmapCounter.Batch> batches = counter.drain();
+        batches.removeIf(batch -> minute - batch.minute() >= windowMinutes);
+        if (batches.isEmpty()) return;
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (HeatmapCounter.Batch batch : batches) {
+                    String key = bucketKey(batch.minute());
+                    for (int i = 0; i < batch.cells().length; i++) {
+                        long cell = batch.cells()[i];
+                        stringConnection.zIncrBy(key, batch.counts()[i], CanvasGrid.keyX(cell) + ":" + CanvasGrid.keyY(cell));
+                    }
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("히트맵 반영 실패, 이번 주기 클릭 수는 버립니다: {}", e.getMessage());
+        }
+    }
+
+    // 내려가기 전에 남은 클릭 수를 보냄
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 다음 분 버킷 비우기 + 지금 버킷 TTL (한 분에 여러 번 돌아도 같은 결과, 분이 바뀌기 전에 최소 한 번은 돌아야 함)
+     * TTL은 인스턴스가 모두 내려가 있어서 비우지 못한 버킷이 다음 바퀴에 섞이지 않게 하는 안전장치
+     */
+    @Scheduled(fixedDelayString = "${pixel.heatmap.rotate-interval-ms:10000}")
+    public void rotate() {
+        rotate(System.currentTimeMillis());
+    }
+
+    void rotate(long now) {
+        long minute = minuteOf(now);
+        redisTemplate.delete(bucketKey(minute + 1));
+        redisTemplate.expire(bucketKey(minute), Duration.ofMinutes(ringSize()));
+    }
+
+    /**
+     * 미리 만들어둔 히트맵 (TTL이 지났으면 한 요청만 다시 만들고 나머지는 그 결과를 씀)
+     * 다시 만들다 실패하면 지난 응답이라도 돌려줌
+     */
+    public HeatmapResponse snapshot() {
+        HeatmapResponse current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.computedAt() < cacheTtlMs) return current;
+        synchronized (this) {
+            current = snapshot;
+            long now = System.currentTimeMillis();
+            if (current != null && now - current.computedAt() < cacheTtlMs) return current;
+            try {
+                return refresh(now);
+            } catch (Exception e) {
+                if (current == null) throw e;
+                log.warn("히트맵 갱신 실패, 지난 결과를 돌려줍니다: {}", e.getMessage());
+                return current;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pixel.heatmap.refresh-interval-ms:5000}")
+    public void refresh() {
+        try {
+            synchronized (this) {
+                refresh(System.currentTimeMillis());
+            }
+        } catch (Exception e) {
+            log.warn("히트맵 갱신 실패: {}", e.getMessage());
+        }
+    }
+
+    // 합치기 1번 + 합친 결과 읽기 1번으로 응답을 만들어 둠
+    HeatmapResponse refresh(long now) {
+        merge(now);
+        Set<ZSetOperations.TypedTuple<String>> hottest =
+                redisTemplate.opsForZSet().reverseRangeWithScores(WINDOW_KEY, 0, scanLimit - 1);
+        HeatmapResponse built = build(now, hottest == null ? Set.of() : hottest);
+        snapshot = built;
+        return built;
+    }
+
+    /**
+     * 점수 높은 순 좌표들 → 앞의 topN개는 그대로, 전부는 densityCellSize 격자에 더함 (점수가 있는 칸만 내보냄)
+     */
+    HeatmapResponse build(long now, Set<ZSetOperations.TypedTuple<String>> hottest) {
+        int n = hottest.size();
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        float[] scores = new float[n];
+        int count = 0;
+        // 밀도 격자 칸 키 → 칸 번호 (점수가 있는 칸만 만듦)
+        Map<Long, Integer> densitySlots = new HashMap<>();
+        float[] heat = new float[n];
+        for (ZSetOperations.TypedTuple<String> tuple : hottest) {
+            String member = tuple.getValue();
+            int colon = member == null ? -1 : member.indexOf(':');
+            if (colon < 0 || tuple.getScore() == null) continue;
+            // "x:y" → split 없이 그 자리에서 파싱
+            int x = Integer.parseInt(member, 0, colon, 10);
+            int y = Integer.parseInt(member, colon + 1, member.length(), 10);
+            xs[count] = x;
+            ys[count] = y;
+            scores[count] = tuple.getScore().floatValue();
+            long cell = CanvasGrid.key(Math.floorDiv(x, densityCellSize), Math.floorDiv(y, densityCellSize));
+            heat[densitySlots.computeIfAbsent(cell, key -> densitySlots.size())] += scores[count];
+            count++;
+        }
+
+        int top = Math.min(topN, count);
+        double[] lat = new double[top];
+        double[] lng = new double[top];
+        for (int i = 0; i < top; i++) {
+            lat[i] = CanvasGrid.toDegree(xs[i]);
+            lng[i] = CanvasGrid.toDegree(ys[i]);
+        }
+
+        int cells = densitySlots.size();
+        double[] cellLat = new double[cells];
+        double[] cellLng = new double[cells];
+        densitySlots.forEach((cell, slot) -> {
+            cellLat[slot] = CanvasGrid.toDegree(CanvasGrid.keyX(cell) * densityCellSize);
+            cellLng[slot] = CanvasGrid.toDegree(CanvasGrid.keyY(cell) * densityCellSize);
+        });
+        HeatmapResponse.Density density = new HeatmapResponse.Density(CanvasGrid.toDegree(densityCellSize),
+                cellLat, cellLng, Arrays.copyOf(heat, cells));
+        return new HeatmapResponse(now, windowMinutes, lat, lng, Arrays.copyOf(scores, top), density);
+    }
+
+    // 창 안의 버킷마다 가중치 = 0.5^(버킷 가운데 시각부터 지난 분 / 반감기)
+    void merge(long now) {
+        long minute = minuteOf(now);
+        List<String> keys = new ArrayList<>(windowMinutes);
+        double[] weights = new double[windowMinutes];
+        for (int age = 0; age < windowMinutes; age++) {
+            keys.add(bucketKey(minute - age));
+            double elapsedMinutes = (now - ((minute - age) * BUCKET_MILLIS + BUCKET_MILLIS / 2)) / (double) BUCKET_MILLIS;
+            weights[age] = Math.pow(0.5, Math.max(elapsedMinutes, 0) / halfLifeMinutes);
+        }
+        redisTemplate.opsForZSet().unionAndStore(keys.get(0), keys.subList(1, keys.size()), WINDOW_KEY,
+                Aggregate.SUM, Weights.of(weights));
+    }
+
+    // 창 + 2칸: 지금 창, 미리 비워둘 다음 칸, 시계가 조금 어긋난 인스턴스가 쓰는 칸이 겹치지 않도록
+    int ringSize() {
+        return windowMinutes + 2;
+    }
+
+    String bucketKey(long minute) {
+        return BUCKET_KEY_PREFIX + Math.floorMod(minute, ringSize());
+    }
+
+    private static long minuteOf(long millis) {
+        return Math.floorDiv(millis, BUCKET_MILLIS);
+    }
+}
@@ -0,0 +1,76 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.dto.RankDiff;
+import com.thepixelwar.dto.RankResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 리더보드를 클라이언트마다 폴링하게 하는 대신 서버가 주기마다 한 번 읽어서 밀어줌
+ * - 주기마다 랭킹 버전(GET 1번)만 확인하고, 바뀌었을 때만 Top N을 다시 읽음 (ZREVRANGE 1번)
+ * - Top N이 실제로 달라졌으면 달라진 순위만 /sub/ranks로 보냄
+ * - REST 조회(/api/ranks)는 마지막으로 읽어둔 목록을 그대로 돌려줌 (Redis를 읽지 않음)
+ * 인스턴스마다 따로 돌지만 버전은 Redis에서 공유하므로 어느 인스턴스의 컨슈머가 바꾼 점수든 알아챔
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardPublisher {
+
+    public static final String DESTINATION = "/sub/ranks";
+
+    private final RankingService rankingService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    // version: 이 목록을 읽었을 때의 랭킹 버전 (아직 한 번도 안 읽었으면 -1)
+    public record Leaderboard(long version, List<RankResponse> ranks) {
+    }
+
+    private volatile Leaderboard snapshot = new Leaderboard(-1, List.of());
+    private long checkedVersion = -1;
+
+    // 캐시된 Top N (기동 직후 아직 못 읽었으면 지금 읽음)
+    public Leaderboard snapshot() {
+        Leaderboard current = snapshot;
+        if (current.version() >= 0) return current;
+        publish();
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${pixel.ranking.publish-interval-ms:1000}")
+    public synchronized void publish() {
+        try {
+            long version = rankingService.version();
+            if (version == checkedVersion) return;
+
+            Leaderboard previous = snapshot;
+            List<RankResponse> ranks = rankingService.getTopRanks();
+            List<RankResponse> changed = diff(previous.ranks(), ranks);
+            checkedVersion = version; // 읽기에 실패하면 다음 주기에 같은 버전을 다시 시도
+            if (changed.isEmpty() && ranks.size() == previous.ranks().size() && previous.version() >= 0) {
+                return; // 점수는 바뀌었지만 Top N은 그대로 → 보낼 것 없음
+            }
+            snapshot = new Leaderboard(version, ranks);
+            if (previous.version() >= 0) {
+                messagingTemplate.convertAndSend(DESTINATION, new RankDiff(previous.version(), version, ranks.size(), changed));
+            }
+        } catch (Exception e) {
+            log.warn("리더보드 갱신 실패: {}", e.getMessage());
+        }
+    }
+
+    // 자리(순위)마다 비교해서 달라진 항목만
+    static List<RankResponse> diff(List<RankResponse> previous, List<RankResponse> current) {
+        List<RankResponse> changed = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            if (i >= previous.size() || !previous.get(i).equals(current.get(i))) changed.add(current.get(i));
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,134 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.canvas.Palette;
+import com.thepixelwar.codec.PixelEventCodec;
+import com.thepixelwar.dto.PixelBatchMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 픽셀 변경을 WebSocket으로 내보내는 곳
+ * 전체 지도 한 토픽(/sub/pixel) 대신, 픽셀이 속한 타일 토픽(/sub/pixel/tile/{tx}/{ty})으로만 보냄
+ * → 각 클라이언트는 자기 화면에 걸친 타일만 구독하므로 화면 밖 픽셀은 받지 않음
+ *
+ * 변경은 바로 보내지 않고 타일별로 모아두었다가 flush 주기마다 타일당 1프레임으로 보냄
+ * 같은 좌표가 주기 안에 여러 번 바뀌면 마지막 값만 남음
+ * 대기열이 상한을 넘으면 컨슈머 스레드가 직접 flush하는데, 전송은 sendLock으로 한 줄로 세워서 배치 순서가 뒤집히지 않음
+ * 바이너리 토픽(/sub/pixel-bin/tile/{tx}/{ty}, SockJS 없는 /ws-pixel-bin 전용)을 구독한 세션에는
+ * 같은 내용을 PixelEventCodec 타일 프레임으로 보냄
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PixelBroadcaster {
+
+    public static final String TILE_DESTINATION_PREFIX = "/sub/pixel/tile/";
+    public static final String BINARY_TILE_DESTINATION_PREFIX = "/sub/pixel-bin/tile/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TileSubscriptionRegistry subscriptionRegistry;
+
+    // 전송 대기 중인 픽셀 수 상한 (넘으면 주기를 기다리지 않고 바로 flush)
+    @Value("${pixel.broadcast.max-pending:50000}")
+    private int maxPending = 50000;
+
+    // CanvasGrid.key(tx, ty) → (CanvasGrid.key(x, y) → 마지막 변경)
+    private Map<Long, Map<Long, PendingPixel>> pending = new HashMap<>();
+    private int pendingCount;
+
+    // 꺼내기~전송을 한 번에 하나씩만 (스케줄 flush와 상한 초과 flush가 겹쳐도 먼저 꺼낸 배치가 먼저 나감)
+    // 대기열 락(this)과 따로 두어서 전송 중에도 broadcast는 계속 쌓을 수 있음
+    private final Object sendLock = new Object();
+
+    private record PendingPixel(int x, int y, int color, String userId) {
+    }
+
+    public static String tileDestination(int tileX, int tileY) {
+        return TILE_DESTINATION_PREFIX + tileX + "/" + tileY;
+    }
+
+    public static String binaryTileDestination(int tileX, int tileY) {
+        return BINARY_TILE_DESTINATION_PREFIX + tileX + "/" + tileY;
+    }
+
+    // 격자 좌표 (x, y)의 픽셀 하나를 전송 대기열에 넣음 (아무도 안 보는 타일이면 버림), color는 팔레트 인덱스
+    public void broadcast(int x, int y, int color, String userId) {
+        int tileX = CanvasGrid.tileOf(x);
+        int tileY = CanvasGrid.tileOf(y);
+        if (!subscriptionRegistry.hasSubscribers(tileX, tileY)) return;
+
+        boolean full;
+        synchronized (this) {
+            PendingPixel previous = pending
+                    .computeIfAbsent(CanvasGrid.key(tileX, tileY), key -> new LinkedHashMap<>())
+                    .put(CanvasGrid.key(x, y), new PendingPixel(x, y, color, userId));
+            if (previous == null) pendingCount++;
+            full = pendingCount >= maxPending;
+        }
+        if (full) flush();
+    }
+
+    /**
+     * 모아둔 변경을 타일당 1프레임으로 전송
+     */
+    @Scheduled(fixedDelayString = "${pixel.broadcast.flush-interval-ms:50}")
+    public void flush() {
+        synchronized (sendLock) {
+            Map<Long, Map<Long, PendingPixel>> batch;
+            synchronized (this) {
+                if (pendingCount == 0) return;
+                batch = pending;
+                pending = new HashMap<>();
+                pendingCount = 0;
+            }
+
+            batch.forEach((tileKey, pixels) -> {
+                int tileX = CanvasGrid.keyX(tileKey);
+                int tileY = CanvasGrid.keyY(tileKey);
+                try {
+                    send(tileX, tileY, pixels);
+                } catch (Exception e) {
+                    log.error("픽셀 브로드캐스트 실패: {}/{}", tileX, tileY, e);
+                }
+            });
+        }
+    }
+
+    private void send(int tileX, int tileY, Map<Long, PendingPixel> pixels) {
+        int size = pixels.size();
+        int[] x = new int[size];
+        int[] y = new int[size];
+        int[] color = new int[size];
+        String[] userId = new String[size];
+
+        int i = 0;
+        for (PendingPixel pixel : pixels.values()) {
+            x[i] = pixel.x();
+            y[i] = pixel.y();
+            color[i] = pixel.color();
+            userId[i] = pixel.userId();
+            i++;
+        }
+
+        if (subscriptionRegistry.hasSubscribers(TileSubscriptionRegistry.Format.JSON, tileX, tileY)) {
+            String[] hex = new String[size];
+            for (int j = 0; j < size; j++) hex[j] = Palette.hex(color[j]);
+            messagingTemplate.convertAndSend(tileDestination(tileX, tileY),
+                    new PixelBatchMessage(x, y, hex, userId));
+        }
+        if (subscriptionRegistry.hasSubscribers(TileSubscriptionRegistry.Format.BINARY, tileX, tileY)) {
+            // byte[] 페이로드는 application/octet-stream으로 변환되어 바이너리 WebSocket 프레임으로 나감
+            messagingTemplate.convertAndSend(binaryTileDestination(tileX, tileY),
+                    PixelEventCodec.encodeTileFrame(tileX, tileY, CanvasGrid.TILE_SIZE, x, y, color, userId));
+        }
+    }
+}
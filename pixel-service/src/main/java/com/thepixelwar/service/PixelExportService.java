@@ -0,0 +1,145 @@
+package com.thepixelwar.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.canvas.Palette;
+import com.thepixelwar.codec.PixelEventCodec;
+import com.thepixelwar.dto.PixelRequest;
+import com.thepixelwar.repository.PixelRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * 캔버스 전체 내보내기 (범위 없는 GET /api/pixels)
+ * 전체를 List로 만들지 않고 한 칸씩 응답 스트림에 바로 씀 → 캔버스 크기와 상관없이 힙 사용량이 일정
+ * 메모리 캔버스가 적재됐으면 거기서, 아니면 DB 커서(scanAll)에서 읽음
+ */
+@Service
+@RequiredArgsConstructor
+public class PixelExportService {
+
+    public enum Format {
+        JSON,   // PixelRequest 배열 (기존 응답과 같은 모양)
+        NDJSON, // 한 줄에 PixelRequest 하나
+        BINARY  // [프레임 길이 4바이트][타일 프레임(PixelEventCodec.encodeTileFrame)] 반복
+    }
+
+    private final CanvasStore canvasStore;
+    private final PixelRepository pixelRepository;
+    private final ObjectMapper objectMapper;
+
+    // DB에서 읽을 때 한 번에 가져올 줄 수
+    @Value("${pixel.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    @Transactional(readOnly = true)
+    public void export(Format format, OutputStream out) throws IOException {
+        switch (format) {
+            case JSON, NDJSON -> exportJson(format == Format.NDJSON, out);
+            case BINARY -> exportBinary(out);
+        }
+    }
+
+    private void exportJson(boolean lines, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            if (lines) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            forEachPixel((x, y, color, userId) -> {
+                try {
+                    generator.writeObject(new PixelRequest(CanvasGrid.toDegree(x), CanvasGrid.toDegree(y), Palette.hex(color), userId));
+                    if (lines) generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!lines) generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void exportBinary(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        TileFrameWriter writer = new TileFrameWriter(data);
+        try {
+            forEachPixel(writer);
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        data.flush();
+    }
+
+    // 두 경로 모두 같은 타일의 칸을 연달아 줌 (캔버스: 타일 단위 순회, DB: cell_key(Z-order) 순서)
+    private void forEachPixel(CanvasStore.CellVisitor visitor) {
+        if (canvasStore.isReady()) {
+            canvasStore.forEach(visitor);
+        } else {
+            pixelRepository.scanAll(fetchSize, (x, y, color, userId) -> {
+                if (Palette.isValid(color) && userId != null) visitor.visit(x, y, color, userId);
+            });
+        }
+    }
+
+    /**
+     * 연달아 들어오는 칸들을 타일이 바뀔 때마다 프레임 하나로 묶어서 씀 (타일 하나 분량만 들고 있음)
+     */
+    private static final class TileFrameWriter implements CanvasStore.CellVisitor {
+
+        private static final int TILE_CELLS = CanvasGrid.TILE_SIZE * CanvasGrid.TILE_SIZE;
+
+        private final DataOutputStream out;
+        private final int[] x = new int[TILE_CELLS];
+        private final int[] y = new int[TILE_CELLS];
+        private final int[] color = new int[TILE_CELLS];
+        private final String[] userIds = new String[TILE_CELLS];
+        private int count;
+        private int tileX;
+        private int tileY;
+
+        TileFrameWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void visit(int cellX, int cellY, int cellColor, String userId) {
+            int cellTileX = CanvasGrid.tileOf(cellX);
+            int cellTileY = CanvasGrid.tileOf(cellY);
+            if (count == TILE_CELLS || (count > 0 && (cellTileX != tileX || cellTileY != tileY))) flush();
+            tileX = cellTileX;
+            tileY = cellTileY;
+            x[count] = cellX;
+            y[count] = cellY;
+            color[count] = cellColor;
+            userIds[count] = userId;
+            count++;
+        }
+
+        void flush() {
+            if (count == 0) return;
+            byte[] frame = PixelEventCodec.encodeTileFrame(tileX, tileY, CanvasGrid.TILE_SIZE,
+                    Arrays.copyOf(x, count), Arrays.copyOf(y, count), Arrays.copyOf(color, count), Arrays.copyOf(userIds, count));
+            try {
+                out.writeInt(frame.length);
+                out.write(frame);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Arrays.fill(userIds, 0, count, null);
+            count = 0;
+        }
+    }
+}
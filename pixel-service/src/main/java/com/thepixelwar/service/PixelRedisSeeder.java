@@ -0,0 +1,68 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.repository.PixelRedisRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Redis 청크 해시가 한 번도 채워지지 않았으면(처음 배포, Redis 초기화) 메모리 캔버스로 채움
+ * 이후로는 픽셀 찍기 스크립트가 계속 갱신하므로 Redis만으로 영역 조회가 가능해짐
+ *
+ * 청크 해시로 바꾸기 전의 칸별 키(pixel:x:y)가 남아 있으면 한 번만 SCAN + UNLINK로 지움
+ * 키가 많으면 오래 걸리므로 기동을 막지 않게 전용 스레드에서
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PixelRedisSeeder {
+
+    private final CanvasStore canvasStore;
+    private final PixelRedisRepository pixelRedisRepository;
+
+    private final ExecutorService cleaner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "pixel-legacy-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 캔버스 적재(CanvasSnapshotService.warmStart)가 끝난 뒤에 실행
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void seedIfNeeded() {
+        try {
+            if (!canvasStore.isReady() || pixelRedisRepository.isSeeded()) return;
+            long start = System.currentTimeMillis();
+            int cells = pixelRedisRepository.seed(canvasStore);
+            log.info("Redis 픽셀 청크 채우기 완료: {}칸 ({}ms)", cells, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Redis 픽셀 청크 채우기 실패 (조회는 DB로 대신함): {}", e.getMessage());
+        }
+        cleaner.execute(this::deleteLegacyKeysIfNeeded);
+    }
+
+    void deleteLegacyKeysIfNeeded() {
+        try {
+            if (pixelRedisRepository.isLegacyCleaned()) return;
+            long start = System.currentTimeMillis();
+            long deleted = pixelRedisRepository.deleteLegacyKeys();
+            log.info("예전 칸별 픽셀 키 정리 완료: {}개 ({}ms)", deleted, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("예전 칸별 픽셀 키 정리 실패 (다음 기동 때 다시 시도): {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cleaner.shutdownNow();
+    }
+}
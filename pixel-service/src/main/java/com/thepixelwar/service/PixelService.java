@@ -1,26 +1,29 @@
 package com.thepixelwar.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.canvas.Palette;
+import com.thepixelwar.dto.PixelArea;
+import com.thepixelwar.dto.PixelEvent;
 import com.thepixelwar.dto.PixelRequest;
 import com.thepixelwar.entity.PixelEntity;
+import com.thepixelwar.repository.PixelRedisRepository;
 import com.thepixelwar.repository.PixelRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -30,20 +33,93 @@ public class PixelService {
 
     private final RedissonClient redissonClient;
     private final StringRedisTemplate redisTemplate;
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final KafkaTemplate<String, PixelEvent> kafkaTemplate; // 값은 PixelEventSerializer로 바이너리 직렬화
     private final PixelRepository pixelRepository;
+    private final CanvasStore canvasStore; // 조회는 메모리 캔버스 우선 (적재 전에는 Redis → DB)
+    private final PixelRedisRepository pixelRedisRepository; // Redis 청크 해시 (pixel:{cx:cy})
+    private final HeatmapService heatmapService; // 최근 N분 히트맵 (클릭 수 세기)
 
-    // [설정] HTML과 동일한 격자 크기
-    private static final double GRID_SIZE = 0.0003;
     private static final long COOLDOWN_SECONDS = 5;
-    private static final double EPSILON = 0.0000001;
+
+    /**
+     * 쿨타임 확인 → 쿨타임 설정을 Redis 안에서 한 번에 처리하는 스크립트
+     * KEYS = [쿨타임 키], ARGV = [쿨타임]
+     * 키를 하나만 써서 Redis Cluster에서도 CROSSSLOT 없이 실행됨 (픽셀 청크 HSET은 통과한 뒤 따로)
+     * 히트맵은 HeatmapService가 메모리에서 세었다가 주기적으로 묶어서 보냄
+     * 반환값: 0 = 성공, 양수 = 남은 쿨타임(초)
+     */
+    private static final RedisScript<Long> PLACE_PIXEL_SCRIPT = new DefaultRedisScript<>("""
+            local ttl = redis.call('TTL', KEYS[1])
+            if ttl > 0 then
+                return ttl
+            end
+            redis.call('SET', KEYS[1], 'active', 'EX', ARGV[1])
+            return 0
+            """, Long.class);
+
+    // 픽셀 찍기 방식: SCRIPT(Lua 스크립트 1회 호출) / LOCK(기존 Redisson 분산 락)
+    public enum PlacementMode { SCRIPT, LOCK }
+
+    @Value("${pixel.placement.mode:script}")
+    private PlacementMode placementMode = PlacementMode.SCRIPT;
+
+    // 영역 조회 한 번에 돌려줄 최대 칸 수: 범위가 이보다 넓으면 요약(LOD) 레벨을 올려서 이 안에 맞춤
+    @Value("${pixel.lod.max-cells:65536}")
+    private long lodMaxCells = 65536;
 
     /**
      * 1. 픽셀 찍기 (쓰기)
+     * color는 PixelController에서 검증/변환한 팔레트 인덱스
+     */
+    public String updatePixel(double lat, double lng, int color, String userId) {
+        if (!CanvasGrid.isOnMap(lat, lng)) {
+            return "지도 밖 좌표입니다.";
+        }
+
+        // 좌표 계산
+        int x = CanvasGrid.toCell(lat);
+        int y = CanvasGrid.toCell(lng);
+
+        PixelEvent event = new PixelEvent(x, y, color, userId, System.currentTimeMillis());
+
+        if (placementMode == PlacementMode.LOCK) {
+            return updatePixelWithLock(event);
+        }
+        return updatePixelWithScript(event);
+    }
+
+    /**
+     * 1-1. 스크립트 방식: Redis 왕복 1회로 쿨타임 체크와 쿨타임 설정을 원자적으로 처리 (락 없음)
+     * 통과한 요청만 청크 해시에 한 번 더 씀 (쿨타임 키와 청크 키는 클러스터에서 슬롯이 다를 수 있음)
+     */
+    private String updatePixelWithScript(PixelEvent event) {
+        String member = event.x() + ":" + event.y(); // "1234:5678" 형태의 좌표
+        String cooldownKey = "cooldown:" + event.userId();
+
+        Long remainingTime = redisTemplate.execute(PLACE_PIXEL_SCRIPT,
+                List.of(cooldownKey), String.valueOf(COOLDOWN_SECONDS));
+
+        if (remainingTime == null) {
+            return "실패";
+        }
+        if (remainingTime > 0) {
+            return "쿨타임이 " + remainingTime + "초 남았습니다!";
+        }
+
+        // Redis 저장 (청크 해시의 필드 하나, 색은 팔레트 인덱스 1~3글자)
+        pixelRedisRepository.save(event.x(), event.y(), event.color());
+        heatmapService.record(event.x(), event.y());
+
+        // Kafka 전송 (좌표를 키로 써서 같은 픽셀은 항상 같은 파티션에서 순서대로 처리)
+        kafkaTemplate.send("pixel-updates", member, event);
+        return "성공";
+    }
+
+    /**
+     * 1-2. 락 방식: 쿨타임 조회 후 Redisson 분산 락을 잡고 순서대로 처리 (비교용으로 유지)
      */
-    public String updatePixel(PixelRequest request) {
-        String userId = request.userId();
+    private String updatePixelWithLock(PixelEvent event) {
+        String userId = event.userId();
 
         // 쿨타임 체크
         String cooldownKey = "cooldown:" + userId;
@@ -53,46 +129,27 @@ public class PixelService {
             return "쿨타임이 " + remainingTime + "초 남았습니다!";
         }
 
-        // 좌표 계산
-        int x = (int) Math.floor((request.lat() + EPSILON) / GRID_SIZE);
-        int y = (int) Math.floor((request.lng() + EPSILON) / GRID_SIZE);
-
-        double snappedLat = x * GRID_SIZE;
-        double snappedLng = y * GRID_SIZE;
-
-        PixelRequest snappedRequest = new PixelRequest(snappedLat, snappedLng, request.color(), request.userId());
-
         // 락 획득
-        String lockKey = "pixel:lock:" + x + ":" + y;
+        String member = event.x() + ":" + event.y(); // "1234:5678" 형태의 좌표
+        String lockKey = "pixel:lock:" + member;
         RLock lock = redissonClient.getLock(lockKey);
 
         try {
             if (lock.tryLock(5, 2, TimeUnit.SECONDS)) {
                 try {
-                    // Redis 저장
-                    String pixelKey = "pixel:" + x + ":" + y;
-                    redisTemplate.opsForValue().set(pixelKey, snappedRequest.color());
-
-                    // 🔥 [히트맵 추가] 1. 해당 좌표의 점수를 1점 올립니다.
-                    // Key 포맷: heatmap:yyyyMMdd:HH (1시간 단위로 새로운 히트맵 생성)
-                    String heatmapKey = "heatmap:" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd:HH"));
-                    String member = x + ":" + y; // "1234:5678" 형태의 좌표
+                    // Redis 저장 (청크 해시의 필드 하나)
+                    pixelRedisRepository.save(event.x(), event.y(), event.color());
 
-                    // ZINCRBY: 점수 +1 증가 (데이터가 없으면 자동 생성)
-                    redisTemplate.opsForZSet().incrementScore(heatmapKey, member, 1);
-                    // 데이터가 너무 오래 쌓이지 않게 2시간 뒤 자동 삭제
-                    redisTemplate.expire(heatmapKey, 2, TimeUnit.HOURS);
+                    // 🔥 [히트맵 추가] 1. 해당 좌표의 점수를 1점 올립니다. (모아서 주기적으로 Redis에 반영)
+                    heatmapService.record(event.x(), event.y());
 
-                    // Kafka 전송
-                    String message = objectMapper.writeValueAsString(snappedRequest);
-                    kafkaTemplate.send("pixel-updates", message);
+                    // Kafka 전송 (좌표 키)
+                    kafkaTemplate.send("pixel-updates", member, event);
 
                     // 쿨타임 설정
                     redisTemplate.opsForValue().set(cooldownKey, "active", Duration.ofSeconds(COOLDOWN_SECONDS));
 
                     return "성공";
-                } catch (JsonProcessingException e) {
-                    log.error("JSON 에러", e);
                 } finally {
                     if (lock.isHeldByCurrentThread()) lock.unlock();
                 }
@@ -107,63 +164,52 @@ public class PixelService {
     }
 
     /**
-     * 🔥 [히트맵 추가] 2. 히트맵 데이터 조회 API용 메서드
-     * 가장 핫한 좌표 상위 500개를 가져옵니다.
+     * 2. 영역 기반 조회 (최적화된 읽기)
+     * 메모리 캔버스가 있으면 범위 넓이에 맞는 요약 레벨을 골라서, 많이 축소한 화면도 확대한 화면과 비슷한 칸 수로 응답
      */
     @Transactional(readOnly = true)
-    public List<PixelRequest> getHotPixels() {
-        // 현재 시간 기준 히트맵 키
-        String heatmapKey = "heatmap:" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd:HH"));
-
-        // 점수가 높은 순서대로 상위 500개 가져오기 (Reverse Range)
-        // Tuple은 {값(좌표), 점수(클릭수)}를 담고 있음
-        Set<ZSetOperations.TypedTuple<String>> topPixels =
-                redisTemplate.opsForZSet().reverseRangeWithScores(heatmapKey, 0, 500);
+    public PixelArea getPixelsInBounds(double minLat, double maxLat, double minLng, double maxLng) {
+        int minX = CanvasGrid.toCell(minLat);
+        int maxX = (int) Math.ceil((maxLat + CanvasGrid.EPSILON) / CanvasGrid.GRID_SIZE);
+        int minY = CanvasGrid.toCell(minLng);
+        int maxY = (int) Math.ceil((maxLng + CanvasGrid.EPSILON) / CanvasGrid.GRID_SIZE);
 
         List<PixelRequest> result = new ArrayList<>();
-
-        if (topPixels != null) {
-            for (ZSetOperations.TypedTuple<String> tuple : topPixels) {
-                String coord = tuple.getValue(); // "x:y"
-                Double score = tuple.getScore(); // 클릭 횟수 (나중에 시각화 강도 조절용으로 쓸 수 있음)
-
-                if (coord != null) {
-                    String[] parts = coord.split(":");
-                    int x = Integer.parseInt(parts[0]);
-                    int y = Integer.parseInt(parts[1]);
-
-                    // 좌표를 다시 위도/경도로 변환해서 반환 (색상은 붉은색 계열로 고정하거나 프론트에서 처리)
-                    // 여기서는 프론트가 위치를 알 수 있게 좌표만 잘 넘겨줍니다.
-                    // color 필드에 score(점수)를 넣어서 보내는 꼼수도 가능하지만, 일단 기본 구조 유지
-                    result.add(new PixelRequest(
-                            x * GRID_SIZE,
-                            y * GRID_SIZE,
-                            String.valueOf(score.intValue()), // 색상 필드에 '점수'를 문자열로 담아 보냄 (프론트에서 처리)
-                            "SYSTEM"
-                    ));
-                }
+        CanvasStore.CellVisitor collector = (x, y, color, userId) ->
+                result.add(new PixelRequest(CanvasGrid.toDegree(x), CanvasGrid.toDegree(y), Palette.hex(color), userId));
+        if (canvasStore.isReady()) {
+            int level = lodLevel(minX, maxX, minY, maxY);
+            if (level == 0) {
+                canvasStore.forEachInBounds(minX, maxX, minY, maxY, collector);
+            } else {
+                canvasStore.forEachBlockInBounds(level, minX, maxX, minY, maxY, (x, y, color, painted) ->
+                        result.add(new PixelRequest(CanvasGrid.toDegree(x), CanvasGrid.toDegree(y), Palette.hex(color), null)));
             }
+            return new PixelArea(CanvasGrid.blockSize(level), result);
+        }
+        // 캔버스 적재 전: Redis 청크가 채워져 있으면 청크당 HGETALL로 (주인 정보는 없음)
+        if (pixelRedisRepository.isSeeded() && pixelRedisRepository.findByArea(minX, maxX, minY, maxY, collector)) {
+            return new PixelArea(1, result);
         }
-        return result;
-    }
-
-    /**
-     * 2. 영역 기반 조회 (최적화된 읽기)
-     */
-    @Transactional(readOnly = true)
-    public List<PixelRequest> getPixelsInBounds(double minLat, double maxLat, double minLng, double maxLng) {
-        int minX = (int) Math.floor((minLat + EPSILON) / GRID_SIZE);
-        int maxX = (int) Math.ceil((maxLat + EPSILON) / GRID_SIZE);
-        int minY = (int) Math.floor((minLng + EPSILON) / GRID_SIZE);
-        int maxY = (int) Math.ceil((maxLng + EPSILON) / GRID_SIZE);
 
-        return pixelRepository.findByArea(minX, maxX, minY, maxY).stream()
+        return new PixelArea(1, pixelRepository.findByArea(minX, maxX, minY, maxY).stream()
                 .map(entity -> new PixelRequest(
-                        entity.getX() * GRID_SIZE,
-                        entity.getY() * GRID_SIZE,
-                        entity.getColor(),
+                        CanvasGrid.toDegree(entity.getX()),
+                        CanvasGrid.toDegree(entity.getY()),
+                        Palette.hex(entity.getColor()),
                         entity.getUserId()))
-                .toList();
+                .toList());
+    }
+
+    // 요약 칸 수가 lodMaxCells 이하가 되는 가장 낮은 레벨 (가장 높은 레벨로도 넘치면 그 레벨)
+    private int lodLevel(int minX, int maxX, int minY, int maxY) {
+        long cells = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        int level = 0;
+        while (level < CanvasGrid.LOD_LEVELS && cells > lodMaxCells) {
+            level++;
+            cells /= 16;
+        }
+        return level;
     }
 
     /**
@@ -171,21 +217,15 @@ public class PixelService {
      */
     @Transactional(readOnly = true)
     public String getPixelColor(int x, int y) {
+        if (canvasStore.isReady()) {
+            int color = canvasStore.colorAt(x, y);
+            return color < 0 ? "#FFFFFF" : Palette.hex(color);
+        }
+        if (pixelRedisRepository.isSeeded()) {
+            int color = pixelRedisRepository.findColor(x, y);
+            return color < 0 ? "#FFFFFF" : Palette.hex(color);
+        }
         PixelEntity pixel = pixelRepository.findByCoords(x, y);
-        return pixel != null ? pixel.getColor() : "#FFFFFF";
-    }
-
-    /**
-     * 4. 전체 픽셀 조회
-     */
-    @Transactional(readOnly = true)
-    public List<PixelRequest> getAllPixels() {
-        return pixelRepository.findAll().stream()
-                .map(entity -> new PixelRequest(
-                        entity.getX() * GRID_SIZE,
-                        entity.getY() * GRID_SIZE,
-                        entity.getColor(),
-                        entity.getUserId()))
-                .toList();
+        return pixel != null ? Palette.hex(pixel.getColor()) : "#FFFFFF";
     }
-}
\ No newline at end of file
+}
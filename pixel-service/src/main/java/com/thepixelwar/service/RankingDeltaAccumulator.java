@@ -0,0 +1,105 @@
+package com.thepixelwar.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 랭킹 점수 변화량 누적기
+ * 컨슈머 배치 하나 동안 userId별 순 변화량을 모아두었다가 RankingService.applyDeltas로 한 번에 반영
+ *
+ * userId는 처음 등장할 때 슬롯 번호(int)를 하나 받고, 이후 변화량은 long[] 배열에 그대로 더해짐
+ * userId → 슬롯은 열린 주소(선형 탐사) 해시 표라서 이벤트마다 Integer/Long 박싱이나 Map 엔트리 생성이 없음
+ * 동기화하지 않음 (배치마다 컨슈머 스레드 하나가 만들어서 씀)
+ */
+public class RankingDeltaAccumulator {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // userId → 슬롯 해시 표 (크기는 항상 2의 거듭제곱, 절반 넘게 차면 2배로)
+    private String[] tableKeys = new String[INITIAL_CAPACITY * 2];
+    private int[] tableSlots = new int[INITIAL_CAPACITY * 2];
+
+    private String[] users = new String[INITIAL_CAPACITY];
+    private long[] deltas = new long[INITIAL_CAPACITY];
+    private int size;
+
+    public void add(String userId, long delta) {
+        int slot = slotOf(userId);
+        if (slot < 0) {
+            if (size == users.length) {
+                users = Arrays.copyOf(users, size * 2);
+                deltas = Arrays.copyOf(deltas, size * 2);
+            }
+            slot = size;
+            putSlot(userId, slot);
+            users[slot] = userId;
+            size++;
+        }
+        deltas[slot] += delta;
+    }
+
+    // 빈 땅 먹음 or 남의 땅 뺏음
+    public void increase(String userId) {
+        add(userId, 1);
+    }
+
+    // 남에게 땅 뺏김
+    public void decrease(String userId) {
+        add(userId, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 모아둔 변화량을 꺼내고 누적기를 비움 (순 변화량이 0인 유저는 제외)
+     */
+    public Map<String, Long> drain() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (deltas[i] != 0) result.put(users[i], deltas[i]);
+        }
+        Arrays.fill(tableKeys, null);
+        Arrays.fill(users, 0, size, null);
+        Arrays.fill(deltas, 0, size, 0L);
+        size = 0;
+        return result;
+    }
+
+    private int slotOf(String userId) {
+        int mask = tableKeys.length - 1;
+        for (int i = hash(userId) & mask; tableKeys[i] != null; i = (i + 1) & mask) {
+            if (tableKeys[i].equals(userId)) return tableSlots[i];
+        }
+        return -1;
+    }
+
+    private void putSlot(String userId, int slot) {
+        if ((size + 1) * 2 > tableKeys.length) rehash();
+        int mask = tableKeys.length - 1;
+        int i = hash(userId) & mask;
+        while (tableKeys[i] != null) i = (i + 1) & mask;
+        tableKeys[i] = userId;
+        tableSlots[i] = slot;
+    }
+
+    // 표를 2배로 키우고 지금까지의 유저를 다시 넣음
+    private void rehash() {
+        tableKeys = new String[tableKeys.length * 2];
+        tableSlots = new int[tableKeys.length];
+        int mask = tableKeys.length - 1;
+        for (int slot = 0; slot < size; slot++) {
+            int i = hash(users[slot]) & mask;
+            while (tableKeys[i] != null) i = (i + 1) & mask;
+            tableKeys[i] = users[slot];
+            tableSlots[i] = slot;
+        }
+    }
+
+    private static int hash(String userId) {
+        int h = userId.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
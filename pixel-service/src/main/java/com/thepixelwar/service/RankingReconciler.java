@@ -0,0 +1,297 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.repository.PixelRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * 유저 랭킹 재계산 (pixels 테이블 = 정답)
+ * 랭킹은 컨슈머의 +1/-1 변화량으로만 유지되므로 메시지 유실/중복, 삼켜진 예외가 있으면 영영 어긋남 → 주기적으로 다시 셈
+ *
+ * 1. 재계산 표시(SET NX, 인스턴스 간 락 겸용)를 걸면 그때부터 컨슈머의 변화량이 새 랭킹 키에도 같이 쌓임
+ * 2. pixels의 id(PK) 범위를 작업 수만큼 나누고, 작업마다 자기 읽기 전용 트랜잭션 + forward-only 커서로 자기 구간의 주인만 읽음
+ * 3. 작업마다 자기 맵(userId → long[1] 카운터)에만 세고, 다 끝나면 합침 (포크/조인 풀, 작업끼리 공유하는 상태 없음)
+ * 4. 센 값을 새 랭킹 키에 ZINCRBY로 얹고(1에서 쌓인 변화량 보존) RENAME으로 한 번에 바꿔 끼움
+ *    어긋남은 쓰는 파이프라인의 ZSCORE + 지금 랭킹 ZSCAN으로 나눠 셈 (큰 ZRANGE로 Redis를 막지 않음)
+ *    바꿔 끼우는 스크립트 안에서 어긋난 유저의 보정값(새 점수 - 지금 점수)을 그 유저의 길드 점수에도 더함
+ *    → 길드 랭킹이 길드원 점수의 합으로 유지됨
+ * 스케줄러 스레드(브로드캐스트 flush 등)를 막지 않도록 전용 스레드 + 코어 절반짜리 포크/조인 풀에서 돌림
+ *
+ * 한계: 표시를 거는 순간 처리 중이던 컨슈머 배치 하나(DB 커밋 후 점수 반영 전)는 두 번 세이거나 빠질 수 있음
+ * 구간마다 트랜잭션이 따로라 스냅샷 시점이 조금씩 다름 (모든 구간을 한꺼번에 시작해서 차이는 짧음)
+ * → 그 차이는 다음 재계산에서 맞춰짐
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RankingReconciler {
+
+    private static final int WRITE_BATCH = 10000;
+    private static final int DRIFT_SCAN_COUNT = 1000;
+    private static final Duration FLAG_TTL = Duration.ofMinutes(30); // 중간에 죽어도 변화량 중복 기록이 영영 남지 않도록
+
+    /**
+     * 재계산 표시를 걸고(SET NX, 이미 있으면 0) 지난번에 남은 새 랭킹 키를 지움
+     * 한 스크립트라서 표시를 건 뒤에 쌓이기 시작한 변화량이 지워지는 일이 없음
+     * KEYS = [재계산 표시, 새 랭킹], ARGV = [표시 값, TTL(ms)]
+     */
+    static final RedisScript<Long> BEGIN_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+                redis.call('DEL', KEYS[2])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 어긋난 유저마다 (새 점수 - 지금 점수)를 매핑된 길드 점수에 더한 뒤 새 랭킹으로 바꿔 끼우기
+     * (RENAME은 TTL도 옮기므로 PERSIST), 재계산 표시 해제, 버전 올려서 리더보드 갱신
+     * 보정과 RENAME이 한 스크립트라서 그 사이에 가입/탈퇴(MOVE_SCRIPT)가 옛 점수를 옮기는 일이 없음
+     * KEYS = [새 랭킹, 유저 랭킹, 재계산 표시, 버전, 길드 랭킹, 길드 매핑], ARGV = [어긋난 userId...]
+     */
+    static final RedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, #ARGV do
+                local guild = redis.call('HGET', KEYS[6], ARGV[i])
+                if guild and guild ~= '' then
+                    local diff = tonumber(redis.call('ZSCORE', KEYS[1], ARGV[i]) or '0')
+                            - tonumber(redis.call('ZSCORE', KEYS[2], ARGV[i]) or '0')
+                    if diff ~= 0 then
+                        redis.call('ZINCRBY', KEYS[5], diff, guild)
+                    end
+                end
+            end
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                redis.call('RENAME', KEYS[1], KEYS[2])
+                redis.call('PERSIST', KEYS[2])
+            else
+                redis.call('DEL', KEYS[2])
+            end
+            redis.call('DEL', KEYS[3])
+            return redis.call('INCR', KEYS[4])
+            """, Long.class);
+
+    private final PixelRepository pixelRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ranking-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${pixel.ranking.reconcile-fetch-size:5000}")
+    private int fetchSize = 5000;
+
+    // id 구간을 나눠 동시에 읽을 작업 수 (0이면 코어 절반)
+    @Value("${pixel.ranking.reconcile-workers:0}")
+    private int workers = 0;
+
+    // users: 점수가 있는 유저 수, drifted: 점수가 달랐던 유저 수, driftTotal: 차이 절댓값의 합
+    public record Result(int users, long pixels, int drifted, long driftTotal, long elapsedMs) {
+    }
+
+    @Scheduled(cron = "${pixel.ranking.reconcile-cron:0 30 4 * * *}")
+    public void scheduleReconcile() {
+        runner.execute(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                log.warn("랭킹 재계산 실패: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    // 다른 인스턴스가 재계산 중이면 null
+    public Result reconcile() {
+        long start = System.currentTimeMillis();
+        Long begun = redisTemplate.execute(BEGIN_SCRIPT, List.of(RankingService.REBUILD_FLAG_KEY, RankingService.REBUILD_KEY),
+                String.valueOf(start), String.valueOf(FLAG_TTL.toMillis()));
+        if (begun == null || begun == 0) {
+            log.info("다른 인스턴스가 랭킹을 재계산 중이라 건너뜁니다");
+            return null;
+        }
+        try {
+            Counts counts = countOwners();
+            Drift drift = new Drift();
+            writeRebuild(counts, drift);
+            measureUncountedDrift(counts, drift);
+            redisTemplate.execute(SWAP_SCRIPT, List.of(RankingService.REBUILD_KEY, RankingService.RANKING_KEY,
+                    RankingService.REBUILD_FLAG_KEY, RankingService.VERSION_KEY,
+                    GuildRankingService.GUILD_RANKING_KEY, GuildRankingService.GUILD_OF_KEY), drift.users.toArray());
+
+            Result result = new Result(counts.names().size(), counts.pixels(), drift.drifted, drift.total, System.currentTimeMillis() - start);
+            log.info("랭킹 재계산 완료: 픽셀 {}개, 유저 {}명, 어긋난 유저 {}명 (점수 차 합 {}), {}ms",
+                    result.pixels(), result.users(), result.drifted(), result.driftTotal(), result.elapsedMs());
+            return result;
+        } catch (RuntimeException e) {
+            redisTemplate.delete(List.of(RankingService.REBUILD_FLAG_KEY, RankingService.REBUILD_KEY));
+            throw e;
+        }
+    }
+
+    // names[id] = userId, ids = userId → id, counts[id] = 칸 수
+    record Counts(List<String> names, Map<String, Integer> ids, long[] counts, long pixels) {
+    }
+
+    // 점수가 다른 유저 수, 차이 절댓값의 합 (한쪽에만 있으면 0점으로 봄), 길드 점수를 보정할 유저
+    static final class Drift {
+        int drifted;
+        long total;
+        final List<String> users = new ArrayList<>();
+
+        void add(String userId, double live, double rebuilt) {
+            long diff = Math.abs(Math.round(live) - Math.round(rebuilt));
+            if (diff == 0) return;
+            drifted++;
+            total += diff;
+            users.add(userId);
+        }
+    }
+
+    private Counts countOwners() {
+        long[] idRange = pixelRepository.findIdRange();
+        if (idRange == null) return new Counts(List.of(), Map.of(), new long[0], 0);
+
+        int parallelism = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        long span = idRange[1] - idRange[0] + 1;
+        int ranges = (int) Math.min(parallelism, span);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Callable<Map<String, long[]>>> tasks = new ArrayList<>(ranges);
+            for (int i = 0; i < ranges; i++) {
+                long from = idRange[0] + span * i / ranges;
+                long to = idRange[0] + span * (i + 1) / ranges;
+                tasks.add(() -> countRange(from, to));
+            }
+            Map<String, long[]> merged = new HashMap<>();
+            for (Future<Map<String, long[]>> task : pool.invokeAll(tasks)) {
+                task.get().forEach((userId, count) -> merged.merge(userId, count, (total, more) -> {
+                    total[0] += more[0];
+                    return total;
+                }));
+            }
+            List<String> names = new ArrayList<>(merged.keySet());
+            Map<String, Integer> ids = new HashMap<>();
+            long[] counts = new long[names.size()];
+            long pixels = 0;
+            for (int id = 0; id < names.size(); id++) {
+                ids.put(names.get(id), id);
+                counts[id] = merged.get(names.get(id))[0];
+                pixels += counts[id];
+            }
+            return new Counts(names, ids, counts, pixels);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("랭킹 재계산이 중단되었습니다", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // id 구간 [from, to) 하나: 자기 읽기 전용 트랜잭션 + 커서로 읽어 자기 맵에만 셈
+    private Map<String, long[]> countRange(long from, long to) {
+        Map<String, long[]> counts = new HashMap<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> pixelRepository.scanOwners(from, to, fetchSize, userId -> {
+            if (userId == null) return;
+            counts.computeIfAbsent(userId, key -> new long[1])[0]++;
+        }));
+        return counts;
+    }
+
+    /**
+     * 이미 쌓인 변화량 위에 더함 (ZADD로 덮어쓰면 재계산 중에 들어온 변경이 사라짐)
+     * 같은 파이프라인에서 지금 랭킹 점수도 ZSCORE로 읽어 어긋남을 바로 셈 (랭킹 전체를 한 번에 읽지 않음)
+     */
+    private void writeRebuild(Counts counts, Drift drift) {
+        for (int from = 0; from < counts.names().size(); from += WRITE_BATCH) {
+            int to = Math.min(from + WRITE_BATCH, counts.names().size());
+            int start = from;
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (int i = start; i < to; i++) {
+                    String userId = counts.names().get(i);
+                    stringConnection.zIncrBy(RankingService.REBUILD_KEY, counts.counts()[i], userId);
+                    stringConnection.zScore(RankingService.RANKING_KEY, userId);
+                }
+                return null;
+            });
+            for (int i = 0; i < to - start; i++) {
+                drift.add(counts.names().get(start + i), score(results.get(i * 2 + 1)), score(results.get(i * 2)));
+            }
+        }
+        redisTemplate.expire(RankingService.REBUILD_KEY, FLAG_TTL);
+    }
+
+    /**
+     * 지금 랭킹에는 있지만 픽셀이 하나도 없는 유저의 어긋남 (ZSCAN으로 DRIFT_SCAN_COUNT개씩, 새 랭킹 점수는 파이프라인 ZSCORE)
+     * 훑는 동안 점수가 바뀌면 같은 유저가 두 번 나올 수 있음 → 보고용 수치라 그대로 둠
+     */
+    private void measureUncountedDrift(Counts counts, Drift drift) {
+        ScanOptions options = ScanOptions.scanOptions().count(DRIFT_SCAN_COUNT).build();
+        List<ZSetOperations.TypedTuple<String>> batch = new ArrayList<>(DRIFT_SCAN_COUNT);
+        try (Cursor<ZSetOperations.TypedTuple<String>> cursor = redisTemplate.opsForZSet().scan(RankingService.RANKING_KEY, options)) {
+            while (cursor.hasNext()) {
+                ZSetOperations.TypedTuple<String> tuple = cursor.next();
+                if (counts.ids().containsKey(tuple.getValue())) continue; // writeRebuild에서 이미 셈
+                batch.add(tuple);
+                if (batch.size() >= DRIFT_SCAN_COUNT) compareUncounted(batch, drift);
+            }
+        }
+        compareUncounted(batch, drift);
+    }
+
+    private void compareUncounted(List<ZSetOperations.TypedTuple<String>> batch, Drift drift) {
+        if (batch.isEmpty()) return;
+        List<Object> rebuilt = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (ZSetOperations.TypedTuple<String> tuple : batch) {
+                stringConnection.zScore(RankingService.REBUILD_KEY, tuple.getValue());
+            }
+            return null;
+        });
+        for (int i = 0; i < batch.size(); i++) {
+            drift.add(batch.get(i).getValue(), score(batch.get(i).getScore()), score(rebuilt.get(i)));
+        }
+        batch.clear();
+    }
+
+    private static double score(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+}
@@ -1,13 +1,17 @@
 package com.thepixelwar.service;
 
+import com.thepixelwar.dto.RankAround;
 import com.thepixelwar.dto.RankResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Service
@@ -15,16 +19,150 @@ import java.util.Set;
 public class RankingService {
 
     private final StringRedisTemplate redisTemplate;
-    private static final String RANKING_KEY = "pixel-war:ranking";
+    private final GuildRankingService guildRankingService; // 같은 변화량으로 길드 랭킹도 갱신
+    static final String RANKING_KEY = "pixel-war:ranking";
+    // 점수가 바뀔 때마다 +1 (LeaderboardPublisher가 이것만 보고 다시 읽을지 정함, 인스턴스가 여럿이어도 공유)
+    static final String VERSION_KEY = "pixel-war:ranking:version";
+    // 재계산(RankingReconciler) 중 표시 + 그동안 들어온 변화량을 같이 쌓는 새 랭킹 (끝나면 RANKING_KEY로 RENAME)
+    static final String REBUILD_FLAG_KEY = "pixel-war:ranking:rebuilding";
+    static final String REBUILD_KEY = "pixel-war:ranking:rebuild";
+    // 컨슈머 배치의 변화량을 어디까지 반영했는지 (파티션 → 다음 오프셋), 같은 배치가 다시 와도 두 번 더하지 않도록
+    static final String APPLIED_OFFSETS_KEY = "pixel-war:ranking:offsets";
+
+    /**
+     * 유저 점수 + 그 유저가 속한 길드 점수 + 버전을 한 번에 반영 (Redis 왕복 1회)
+     * 재계산 중이면 새로 만드는 랭킹에도 같은 변화량을 더함 (바꿔 끼울 때 그 사이 변경을 잃지 않도록)
+     * 오프셋이 주어지면 모든 파티션이 이미 반영된 배치(재전달)는 건너뛰고, 반영하면 파티션별 다음 오프셋을 기록함
+     * KEYS = [유저 랭킹, 버전, 길드 랭킹, 길드 매핑, 재계산 표시, 새 랭킹, 반영 오프셋]
+     * ARGV = [파티션 수 n, 파티션, 다음 오프셋, ... (n쌍), userId, 변화량, userId, 변화량, ...]
+     * 반환값: 길드 매핑이 아직 없는 userId 목록 (GuildRankingService.attach로 채움)
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> APPLY_DELTAS_SCRIPT = new DefaultRedisScript<>("""
+            local unmapped = {}
+            local n = tonumber(ARGV[1])
+            local fresh = n == 0
+            for i = 2, 2 * n, 2 do
+                local applied = redis.call('HGET', KEYS[7], ARGV[i])
+                if not applied or tonumber(applied) < tonumber(ARGV[i + 1]) then
+                    fresh = true
+                    redis.call('HSET', KEYS[7], ARGV[i], ARGV[i + 1])
+                end
+            end
+            if not fresh then
+                return unmapped
+            end
+            local rebuilding = redis.call('EXISTS', KEYS[5]) == 1
+            for i = 2 * n + 2, #ARGV, 2 do
+                redis.call('ZINCRBY', KEYS[1], ARGV[i + 1], ARGV[i])
+                if rebuilding then
+                    redis.call('ZINCRBY', KEYS[6], ARGV[i + 1], ARGV[i])
+                end
+                local guild = redis.call('HGET', KEYS[4], ARGV[i])
+                if not guild then
+                    unmapped[#unmapped + 1] = ARGV[i]
+                elseif guild ~= '' then
+                    redis.call('ZINCRBY', KEYS[3], ARGV[i + 1], guild)
+                end
+            end
+            redis.call('INCR', KEYS[2])
+            return unmapped
+            """, List.class);
+
+    /**
+     * 내 순위와 위아래 K명: ZREVRANK → ZREVRANGE를 스크립트 한 번으로 (왕복 1회, 그 사이 순위가 바뀌지 않음)
+     * KEYS = [유저 랭킹], ARGV = [userId, K]
+     * 반환값: [시작 위치, userId, 점수, userId, 점수, ...] (랭킹에 없으면 빈 목록)
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> AROUND_SCRIPT = new DefaultRedisScript<>("""
+            local rank = redis.call('ZREVRANK', KEYS[1], ARGV[1])
+            if not rank then
+                return {}
+            end
+            local k = tonumber(ARGV[2])
+            local start = math.max(0, rank - k)
+            local result = redis.call('ZREVRANGE', KEYS[1], start, rank + k, 'WITHSCORES')
+            table.insert(result, 1, tostring(start))
+            return result
+            """, List.class);
+
+    static final int MAX_AROUND = 50;
 
     // 점수 증가 (빈 땅 먹음 or 남의 땅 뺏음)
     public void increaseScore(String userId) {
-        redisTemplate.opsForZSet().incrementScore(RANKING_KEY, userId, 1);
+        apply(Map.of(userId, 1L));
     }
 
     // 점수 감소 (남에게 땅 뺏김)
     public void decreaseScore(String userId) {
-        redisTemplate.opsForZSet().incrementScore(RANKING_KEY, userId, -1);
+        apply(Map.of(userId, -1L));
+    }
+
+    // 랭킹 버전 (한 번도 바뀐 적 없으면 0)
+    public long version() {
+        String version = redisTemplate.opsForValue().get(VERSION_KEY);
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    // 누적기에 모인 변화량을 스크립트 한 번(왕복 1회)으로 반영
+    public void applyDeltas(RankingDeltaAccumulator accumulator) {
+        applyDeltas(accumulator, Map.of());
+    }
+
+    /**
+     * 컨슈머 배치의 변화량 반영 (nextOffsets: 파티션 → 배치 마지막 오프셋 + 1)
+     * 이미 반영한 배치가 재전달되면 Redis가 오프셋을 보고 건너뜀
+     */
+    public void applyDeltas(RankingDeltaAccumulator accumulator, Map<Integer, Long> nextOffsets) {
+        Map<String, Long> deltas = accumulator.drain();
+        if (deltas.isEmpty()) return;
+        apply(deltas, nextOffsets);
+    }
+
+    private void apply(Map<String, Long> deltas) {
+        apply(deltas, Map.of());
+    }
+
+    private void apply(Map<String, Long> deltas, Map<Integer, Long> nextOffsets) {
+        List<String> args = new ArrayList<>(1 + nextOffsets.size() * 2 + deltas.size() * 2);
+        args.add(String.valueOf(nextOffsets.size()));
+        nextOffsets.forEach((partition, offset) -> {
+            args.add(String.valueOf(partition));
+            args.add(String.valueOf(offset));
+        });
+        deltas.forEach((userId, delta) -> {
+            args.add(userId);
+            args.add(String.valueOf(delta));
+        });
+        List<?> unmapped = redisTemplate.execute(APPLY_DELTAS_SCRIPT,
+                List.of(RANKING_KEY, VERSION_KEY, GuildRankingService.GUILD_RANKING_KEY, GuildRankingService.GUILD_OF_KEY,
+                        REBUILD_FLAG_KEY, REBUILD_KEY, APPLIED_OFFSETS_KEY),
+                args.toArray());
+        if (unmapped != null && !unmapped.isEmpty()) {
+            guildRankingService.attach(unmapped.stream().map(Object::toString).toList());
+        }
+    }
+
+    // 내 순위 + 위아래 k명 (k는 최대 MAX_AROUND)
+    public RankAround getRanksAround(String userId, int k) {
+        int range = Math.max(0, Math.min(k, MAX_AROUND));
+        List<?> result = redisTemplate.execute(AROUND_SCRIPT, List.of(RANKING_KEY), userId, String.valueOf(range));
+        if (result == null || result.isEmpty()) {
+            return new RankAround(0, List.of());
+        }
+
+        int position = Integer.parseInt(result.get(0).toString());
+        int myRank = 0;
+        List<RankResponse> ranks = new ArrayList<>();
+        for (int i = 1; i + 1 < result.size(); i += 2) {
+            String member = result.get(i).toString();
+            long score = (long) Double.parseDouble(result.get(i + 1).toString());
+            position++;
+            if (member.equals(userId)) myRank = position;
+            ranks.add(new RankResponse(position, member, score));
+        }
+        return new RankAround(myRank, ranks);
     }
 
     // Top 10 조회 (점수 높은 순)
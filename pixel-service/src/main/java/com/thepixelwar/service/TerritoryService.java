@@ -0,0 +1,190 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.canvas.TerritoryIndex;
+import com.thepixelwar.entity.PixelEntity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 유저별/길드별 "가장 큰 연결된 땅" (TerritoryIndex 두 개: 주인 = 유저, 주인 = 길드)
+ * PixelViewConsumer가 메모리 캔버스를 갱신한 뒤 같은 픽셀로 apply를 부름 → 캔버스를 다시 훑지 않음
+ * 기동 시에는 메모리 캔버스로 한 번 채움
+ *
+ * 길드는 GuildRankingService의 userId → guildId 캐시(Redis 해시)를 한 번 읽어 프로세스 안에 들고 있고,
+ * 이 인스턴스에서 가입/탈퇴가 일어나면 changeGuild로 그 유저의 칸을 길드 인덱스에서 옮김
+ * 다른 인스턴스의 가입/탈퇴는 syncGuilds가 매핑 버전을 주기마다 보고, 바뀐 유저만 다시 읽어서 옮김
+ * (메모리 캔버스처럼 인스턴스별 그룹으로 모든 파티션을 읽는 PixelViewConsumer가 반영한 픽셀 기준)
+ * Redis(길드 매핑)는 항상 락 밖에서 읽고, 인덱스를 바꾸는 것만 락 안에서
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TerritoryService {
+
+    private static final long NO_GUILD = 0L;
+    private static final int LOOKUP_BATCH = 1000;
+
+    private final CanvasStore canvasStore;
+    private final GuildRankingService guildRankingService;
+
+    private final TerritoryIndex users = new TerritoryIndex();
+    private final TerritoryIndex guilds = new TerritoryIndex();
+    private final Map<String, Integer> userIds = new HashMap<>();
+    private final Map<String, Long> guildOf = new HashMap<>();
+    private long guildVersion = -1; // 마지막으로 다 반영한 길드 매핑 버전
+
+    // 캔버스 적재(CanvasSnapshotService.warmStart)가 끝난 뒤에 실행
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (!canvasStore.isReady()) return;
+        long start = System.currentTimeMillis();
+        // 한 번 훑어서 주인 목록만 모아 길드를 묶어서 조회하고, 다시 훑으면서 채움 (픽셀 목록은 만들지 않음)
+        Set<String> owners = new LinkedHashSet<>();
+        canvasStore.forEach((x, y, color, userId) -> {
+            if (userId != null) owners.add(userId);
+        });
+        Map<String, Long> found = lookupGuilds(unknownOwners(owners));
+        synchronized (this) {
+            putGuilds(found);
+            canvasStore.forEach((x, y, color, userId) -> {
+                if (userId != null) set(x, y, userId);
+            });
+        }
+        log.info("연결된 땅 인덱스 채우기 완료: {}칸 ({}ms)", users.cellCount(), System.currentTimeMillis() - start);
+    }
+
+    // 컨슈머가 반영한 픽셀들 (주인이 그대로면 아무 일 없음), 처음 보는 주인의 길드는 락 밖에서 읽음
+    public void apply(List<PixelEntity> pixels) {
+        Set<String> owners = new LinkedHashSet<>();
+        for (PixelEntity pixel : pixels) owners.add(pixel.getUserId());
+        Map<String, Long> found = lookupGuilds(unknownOwners(owners));
+        synchronized (this) {
+            putGuilds(found);
+            for (PixelEntity pixel : pixels) set(pixel.getX(), pixel.getY(), pixel.getUserId());
+        }
+    }
+
+    private void set(int x, int y, String userId) {
+        users.set(x, y, userIds.computeIfAbsent(userId, id -> userIds.size()));
+        long guildId = guildOf.getOrDefault(userId, NO_GUILD);
+        if (guildId == NO_GUILD) {
+            guilds.clear(x, y);
+        } else {
+            guilds.set(x, y, (int) guildId);
+        }
+    }
+
+    // 길드 가입/탈퇴 (guildId가 null이면 탈퇴): 그 유저의 칸을 길드 인덱스에서 옮김
+    public synchronized void changeGuild(String userId, Long guildId) {
+        long newGuildId = guildId == null ? NO_GUILD : guildId;
+        guildOf.put(userId, newGuildId);
+        moveCells(userId, newGuildId);
+    }
+
+    /**
+     * 다른 인스턴스에서 일어난 가입/탈퇴 반영 (버전 GET 1번, 바뀌었을 때만 변경 기록과 매핑을 읽음)
+     * 이미 아는 유저만 다시 읽음 (처음 보는 유저는 apply 때 lookupGuilds가 읽음)
+     * Redis는 락 밖에서 읽고, 옮기는 것만 락 안에서
+     */
+    @Scheduled(fixedDelayString = "${pixel.territory.guild-sync-interval-ms:1000}")
+    public void syncGuilds() {
+        try {
+            long since;
+            synchronized (this) {
+                since = guildVersion;
+            }
+            long version = guildRankingService.guildOfVersion();
+            if (version == since) return;
+
+            List<String> known = new ArrayList<>();
+            Set<String> changed = guildRankingService.changedSince(since);
+            synchronized (this) {
+                for (String userId : changed) {
+                    if (guildOf.containsKey(userId)) known.add(userId);
+                }
+            }
+            Map<String, Long> found = new HashMap<>();
+            for (int from = 0; from < known.size(); from += LOOKUP_BATCH) {
+                found.putAll(guildRankingService.findGuildIds(known.subList(from, Math.min(from + LOOKUP_BATCH, known.size()))));
+            }
+
+            synchronized (this) {
+                found.forEach((userId, guildId) -> {
+                    if (!guildId.equals(guildOf.put(userId, guildId))) moveCells(userId, guildId);
+                });
+                guildVersion = Math.max(guildVersion, version); // 다 읽은 뒤에만 (실패하면 다음 주기에 같은 구간을 다시)
+            }
+        } catch (Exception e) {
+            log.warn("길드 매핑 동기화 실패 (다음 주기에 다시): {}", e.getMessage());
+        }
+    }
+
+    // 유저의 칸을 길드 인덱스에서 옮김 (그 유저의 칸 수에 비례)
+    private void moveCells(String userId, long guildId) {
+        Integer id = userIds.get(userId);
+        if (id == null) return;
+        users.forEachCell(id, (x, y) -> {
+            if (guildId == NO_GUILD) {
+                guilds.clear(x, y);
+            } else {
+                guilds.set(x, y, (int) guildId);
+            }
+        });
+    }
+
+    public synchronized int largestOf(String userId) {
+        Integer id = userIds.get(userId);
+        return id == null ? 0 : users.largest(id);
+    }
+
+    public synchronized int largestOfGuild(Long guildId) {
+        return guildId == null ? 0 : guilds.largest(guildId.intValue());
+    }
+
+    // 아직 길드를 모르는 유저 (매핑만 보므로 락은 짧게)
+    private synchronized List<String> unknownOwners(Set<String> owners) {
+        List<String> pending = new ArrayList<>();
+        for (String userId : owners) {
+            if (!guildOf.containsKey(userId)) pending.add(userId);
+        }
+        return pending;
+    }
+
+    /**
+     * 처음 보는 유저의 길드를 캐시에서 묶어서 조회 (락 밖에서 부름)
+     * 캐시에 아직 없으면 길드 없음으로 두고 다음에 다시
+     */
+    private Map<String, Long> lookupGuilds(List<String> pending) {
+        Map<String, Long> found = new HashMap<>();
+        try {
+            for (int from = 0; from < pending.size(); from += LOOKUP_BATCH) {
+                found.putAll(guildRankingService.findGuildIds(pending.subList(from, Math.min(from + LOOKUP_BATCH, pending.size()))));
+            }
+        } catch (Exception e) {
+            log.warn("길드 매핑 조회 실패 (길드 땅은 다음 변경 때 반영): {}", e.getMessage());
+        }
+        return found;
+    }
+
+    /**
+     * 락 안에서: 읽어 온 길드를 기록하고, 예전에 못 찾았던 유저가 이제 길드가 있으면 이미 가진 칸도 길드 인덱스로 옮김
+     * 읽는 사이에 changeGuild/syncGuilds가 먼저 기록한 유저는 그쪽이 더 새로우므로 건드리지 않음
+     */
+    private void putGuilds(Map<String, Long> found) {
+        found.forEach((userId, guildId) -> {
+            if (guildOf.putIfAbsent(userId, guildId) == null && guildId != NO_GUILD) moveCells(userId, guildId);
+        });
+    }
+}
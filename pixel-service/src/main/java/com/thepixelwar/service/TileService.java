@@ -0,0 +1,149 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.canvas.Palette;
+import com.thepixelwar.dto.TileChangesResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 지도 타일 (TILE_SIZE × TILE_SIZE, WebSocket 타일 토픽과 같은 단위) 렌더링
+ * RAW: 팔레트 인덱스 바이트 TILE_SIZE², 인덱스 dx * TILE_SIZE + dy (dx = 위도 방향), 빈 칸은 Palette.EMPTY
+ * PNG: 같은 내용을 팔레트 PNG로 (위쪽이 북쪽, 빈 칸은 투명)
+ *
+ * 렌더 결과는 타일 버전과 함께 캐시해두고, 그 타일이 바뀌기 전까지 다시 그리지 않음
+ * 이미 타일을 가진 클라이언트는 changesSince로 버전 이후 변경분만 받음
+ */
+@Service
+@RequiredArgsConstructor
+public class TileService {
+
+    public enum Format { RAW, PNG }
+
+    public record RenderedTile(long version, byte[] body) {
+    }
+
+    private static final IndexColorModel PNG_COLOR_MODEL = pngColorModel();
+
+    private final CanvasStore canvasStore;
+
+    // 포맷별로 캐시해둘 최대 타일 수 (오래 안 쓰인 것부터 버림)
+    @Value("${pixel.tiles.cache-size:4096}")
+    private int cacheSize = 4096;
+
+    private final Map<Long, RenderedTile> rawCache = lruCache();
+    private final Map<Long, RenderedTile> pngCache = lruCache();
+
+    public boolean isReady() {
+        return canvasStore.isReady();
+    }
+
+    public long currentVersion(int tileX, int tileY) {
+        return canvasStore.tileVersion(tileX, tileY);
+    }
+
+    // 재시작 후 버전이 겹치지 않도록 캔버스 epoch를 섞은 ETag
+    public String etag(int tileX, int tileY, long version, Format format) {
+        return "\"" + canvasStore.epoch() + "-" + version + "-" + format.name().toLowerCase(Locale.ROOT) + "\"";
+    }
+
+    public RenderedTile render(int tileX, int tileY, Format format) {
+        Map<Long, RenderedTile> cache = format == Format.RAW ? rawCache : pngCache;
+        long key = CanvasGrid.key(tileX, tileY);
+
+        RenderedTile cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && cached.version() == canvasStore.tileVersion(tileX, tileY)) {
+            return cached;
+        }
+
+        byte[] colors = new byte[CanvasGrid.TILE_SIZE * CanvasGrid.TILE_SIZE];
+        long version = canvasStore.readTile(tileX, tileY, colors);
+        RenderedTile rendered = new RenderedTile(version, format == Format.RAW ? colors : toPng(colors));
+        synchronized (cache) {
+            RenderedTile current = cache.get(key);
+            if (current == null || current.version() < version) cache.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    public long epoch() {
+        return canvasStore.epoch();
+    }
+
+    /**
+     * since 버전 이후 변경분 (다른 epoch, 즉 재시작 전에 받은 버전이면 타일 전체)
+     */
+    public TileChangesResponse changesSince(int tileX, int tileY, long epoch, long since) {
+        long current = canvasStore.epoch();
+        CanvasStore.TileChanges changes = canvasStore.changesSince(tileX, tileY, epoch == current ? since : -1);
+        int count = changes.cells().length / 2;
+        int[] cell = new int[count];
+        int[] color = new int[count];
+        for (int i = 0; i < count; i++) {
+            cell[i] = changes.cells()[i * 2];
+            color[i] = changes.cells()[i * 2 + 1];
+        }
+        return new TileChangesResponse(current, changes.version(), changes.full(), cell, color);
+    }
+
+    private static byte[] toPng(byte[] colors) {
+        int size = CanvasGrid.TILE_SIZE;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_INDEXED, PNG_COLOR_MODEL);
+        WritableRaster raster = image.getRaster();
+        int empty = Palette.size(); // PNG 팔레트에서는 마지막 칸을 투명으로
+        for (int dx = 0; dx < size; dx++) {
+            int row = size - 1 - dx; // 위도가 클수록 위쪽
+            for (int dy = 0; dy < size; dy++) {
+                int color = Byte.toUnsignedInt(colors[dx * size + dy]);
+                raster.setSample(dy, row, 0, color == Palette.EMPTY ? empty : color);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static IndexColorModel pngColorModel() {
+        int size = Palette.size() + 1;
+        byte[] r = new byte[size];
+        byte[] g = new byte[size];
+        byte[] b = new byte[size];
+        for (int i = 0; i < Palette.size(); i++) {
+            int rgb = Palette.rgb(i);
+            r[i] = (byte) (rgb >> 16);
+            g[i] = (byte) (rgb >> 8);
+            b[i] = (byte) rgb;
+        }
+        return new IndexColorModel(8, size, r, g, b, Palette.size());
+    }
+
+    private Map<Long, RenderedTile> lruCache() {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RenderedTile> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+}
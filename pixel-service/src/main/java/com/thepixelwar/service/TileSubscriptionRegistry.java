@@ -0,0 +1,109 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.canvas.CanvasGrid;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 세션별 타일 구독 현황
+ * 클라이언트는 지도를 움직일 때마다 화면에 걸친 타일만 SUBSCRIBE/UNSUBSCRIBE 하고,
+ * 서버는 STOMP 이벤트로 "타일별 구독자 수"를 유지해서 아무도 안 보는 타일은 전송을 건너뜀
+ * JSON 토픽(/sub/pixel/tile/..)과 바이너리 토픽(/sub/pixel-bin/tile/..)은 따로 셈
+ */
+@Component
+public class TileSubscriptionRegistry {
+
+    public enum Format { JSON, BINARY }
+
+    private record TileSubscription(Format format, long tileKey) {
+    }
+
+    // CanvasGrid.key(tx, ty) → 구독 수 (0이 되면 키 자체를 제거)
+    private final Map<Long, Integer> jsonCounts = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> binaryCounts = new ConcurrentHashMap<>();
+
+    // 세션 id → (구독 id → 타일)
+    private final Map<String, Map<String, TileSubscription>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        TileSubscription subscription = parse(accessor.getDestination());
+        if (subscription == null) return;
+
+        TileSubscription previous = sessionSubscriptions
+                .computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), subscription);
+        if (previous != null) release(previous);
+        counts(subscription.format()).merge(subscription.tileKey(), 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, TileSubscription> subscriptions = sessionSubscriptions.get(accessor.getSessionId());
+        if (subscriptions == null) return;
+
+        TileSubscription subscription = subscriptions.remove(accessor.getSubscriptionId());
+        if (subscription != null) release(subscription);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, TileSubscription> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+        if (subscriptions != null) subscriptions.values().forEach(this::release);
+    }
+
+    // 어떤 형식으로든 이 타일을 보고 있는 세션이 있는지
+    public boolean hasSubscribers(int tileX, int tileY) {
+        long tileKey = CanvasGrid.key(tileX, tileY);
+        return jsonCounts.containsKey(tileKey) || binaryCounts.containsKey(tileKey);
+    }
+
+    public boolean hasSubscribers(Format format, int tileX, int tileY) {
+        return counts(format).containsKey(CanvasGrid.key(tileX, tileY));
+    }
+
+    private Map<Long, Integer> counts(Format format) {
+        return format == Format.JSON ? jsonCounts : binaryCounts;
+    }
+
+    private void release(TileSubscription subscription) {
+        counts(subscription.format())
+                .computeIfPresent(subscription.tileKey(), (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    // "/sub/pixel/tile/{tx}/{ty}" 또는 "/sub/pixel-bin/tile/{tx}/{ty}" → 구독 정보 (타일 토픽이 아니면 null)
+    private static TileSubscription parse(String destination) {
+        if (destination == null) return null;
+
+        Format format;
+        String rest;
+        if (destination.startsWith(PixelBroadcaster.TILE_DESTINATION_PREFIX)) {
+            format = Format.JSON;
+            rest = destination.substring(PixelBroadcaster.TILE_DESTINATION_PREFIX.length());
+        } else if (destination.startsWith(PixelBroadcaster.BINARY_TILE_DESTINATION_PREFIX)) {
+            format = Format.BINARY;
+            rest = destination.substring(PixelBroadcaster.BINARY_TILE_DESTINATION_PREFIX.length());
+        } else {
+            return null;
+        }
+
+        int slash = rest.indexOf('/');
+        if (slash < 0) return null;
+        try {
+            int tileX = Integer.parseInt(rest, 0, slash, 10);
+            int tileY = Integer.parseInt(rest, slash + 1, rest.length(), 10);
+            return new TileSubscription(format, CanvasGrid.key(tileX, tileY));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
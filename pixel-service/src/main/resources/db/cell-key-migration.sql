@@ -0,0 +1,27 @@
+-- Z-order 셀 키 도입: pixels.cell_key (bigint, MortonKey.encode(x, y)) 채우기 + 유니크 인덱스
+-- ddl-auto: update 로 cell_key 컬럼이 추가된 뒤 한 번만 실행 (기존 줄은 0으로 들어가 있어 유니크 제약 생성이 실패한 상태)
+-- mysql 클라이언트에서 실행 (DELIMITER 사용)
+
+DELIMITER $$
+create function pixel_morton_spread(v bigint unsigned) returns bigint unsigned deterministic
+begin
+    set v = v & 0xFFFFFFFF;
+    set v = (v | (v << 16)) & 0x0000FFFF0000FFFF;
+    set v = (v | (v << 8)) & 0x00FF00FF00FF00FF;
+    set v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0F;
+    set v = (v | (v << 2)) & 0x3333333333333333;
+    set v = (v | (v << 1)) & 0x5555555555555555;
+    return v;
+end$$
+DELIMITER ;
+
+-- MortonKey.BIAS = 2^30
+update pixels
+set cell_key = (pixel_morton_spread(x + 1073741824) << 1) | pixel_morton_spread(y + 1073741824);
+
+drop function pixel_morton_spread;
+
+alter table pixels add constraint uk_pixels_cell_key unique (cell_key);
+
+-- 좌표 유니크 키는 cell_key가 대신함
+alter table pixels drop index uk_pixels_xy;
@@ -0,0 +1,60 @@
+-- 팔레트 전환: pixels.color (varchar "#RRGGBB") → pixels.color_index (tinyint unsigned, Palette 인덱스)
+-- ddl-auto: update 로 color_index 컬럼이 추가된 뒤 한 번만 실행
+-- 팔레트에 없던 색은 RGB 거리상 가장 가까운 팔레트 색으로 바꿈 (Palette.nearest와 같은 규칙)
+-- "#RRGGBB"가 아닌 값(null, "red", "#F00" 등)이 하나라도 있으면 아무것도 바꾸지 않고 멈춤
+--   → 그 줄들을 직접 고친 뒤 다시 실행 (인덱스 0으로 칠해 버리지 않도록)
+
+-- 1) 검사: 기존 줄이 하나라도 어기면 "Check constraint ... is violated" 오류로 여기서 끝남 (MySQL 8.0.16+)
+alter table pixels add constraint chk_palette_migration
+    check (color is not null and color regexp '^#[0-9A-Fa-f]{6}$');
+
+-- 2) 변환
+create temporary table palette (idx tinyint unsigned primary key, r int, g int, b int);
+
+-- Palette.HEX 순서와 같아야 함
+insert into palette (idx, r, g, b) values
+    (0, 0x6D, 0x00, 0x1A),
+    (1, 0xBE, 0x00, 0x39),
+    (2, 0xFF, 0x45, 0x00),
+    (3, 0xFF, 0xA8, 0x00),
+    (4, 0xFF, 0xD6, 0x35),
+    (5, 0xFF, 0xF8, 0xB8),
+    (6, 0x00, 0xA3, 0x68),
+    (7, 0x00, 0xCC, 0x78),
+    (8, 0x7E, 0xED, 0x56),
+    (9, 0x00, 0x75, 0x6F),
+    (10, 0x00, 0x9E, 0xAA),
+    (11, 0x00, 0xCC, 0xC0),
+    (12, 0x24, 0x50, 0xA4),
+    (13, 0x36, 0x90, 0xEA),
+    (14, 0x51, 0xE9, 0xF4),
+    (15, 0x49, 0x3A, 0xC1),
+    (16, 0x6A, 0x5C, 0xFF),
+    (17, 0x94, 0xB3, 0xFF),
+    (18, 0x81, 0x1E, 0x9F),
+    (19, 0xB4, 0x4A, 0xC0),
+    (20, 0xE4, 0xAB, 0xFF),
+    (21, 0xDE, 0x10, 0x7F),
+    (22, 0xFF, 0x38, 0x81),
+    (23, 0xFF, 0x99, 0xAA),
+    (24, 0x6D, 0x48, 0x2F),
+    (25, 0x9C, 0x69, 0x26),
+    (26, 0xFF, 0xB4, 0x70),
+    (27, 0x00, 0x00, 0x00),
+    (28, 0x51, 0x52, 0x52),
+    (29, 0x89, 0x8D, 0x90),
+    (30, 0xD4, 0xD7, 0xD9),
+    (31, 0xFF, 0xFF, 0xFF);
+
+update pixels p
+set p.color_index = (
+    select pl.idx from palette pl
+    order by pow(pl.r - conv(substr(p.color, 2, 2), 16, 10), 2)
+           + pow(pl.g - conv(substr(p.color, 4, 2), 16, 10), 2)
+           + pow(pl.b - conv(substr(p.color, 6, 2), 16, 10), 2), pl.idx
+    limit 1);
+
+alter table pixels drop check chk_palette_migration;
+alter table pixels drop column color;
+
+drop temporary table palette;
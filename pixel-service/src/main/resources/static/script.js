@@ -4,6 +4,9 @@ const COOLDOWN_TIME = 5;
 const MIN_ZOOM = 9;
 const MAX_ZOOM = 17;
 const EPSILON = 0.0000001;
+const TILE_SIZE = 64; // 실시간 구독 타일 한 변의 칸 수 (서버 CanvasGrid.TILE_SIZE와 일치)
+const MAX_TILE_SUBSCRIPTIONS = 400; // 이보다 많이 보이면(너무 축소) 실시간 구독 대신 idle 재조회만 사용
+const TILE_EMPTY = 255; // 타일 바이트에서 빈 칸 (서버 Palette.EMPTY)
 const EDGE_THRESHOLD = 50;
 const SCROLL_SPEED = 15;
 const KOREA_BOUNDS = new naver.maps.LatLngBounds(
@@ -14,7 +17,10 @@ const KOREA_BOUNDS = new naver.maps.LatLngBounds(
 // --- 상태 변수 ---
 let isAttackMode = false;
 let pixelMap = new Map();
-let cachedHeatmapData = [];
+let palette = []; // 서버 팔레트 ("#RRGGBB"), 이 밖의 색은 서버가 거절함
+let tileStates = new Map(); // "tx/ty" → { epoch, version }: 마지막으로 받은 타일 버전 (변경분 조회용)
+let lodBlocks = null; // 많이 축소했을 때 서버가 준 요약 칸 { lat, lng, color, size } (null이면 pixelMap을 그대로 그림)
+let cachedHeatmapData = null; // 서버가 미리 만든 히트맵 { lat[], lng[], score[], density }
 let guildBlueprint = { url: "", lat: 0, lng: 0, img: null, isVisible: true };
 let myNickname = null;
 let isLoggedIn = false;
@@ -51,32 +57,45 @@ const minimap = new naver.maps.Map('mini-map-view', {
 naver.maps.Event.addListener(map, 'center_changed', function(center) { minimap.setCenter(center); });
 
 // --- 랭킹 로직 ---
+// 처음(그리고 놓친 변경분이 있을 때)만 REST로 받고, 이후에는 서버가 /sub/ranks로 보내는 변경분만 반영
+let rankState = { version: -1, ranks: [] };
+
 function fetchRanks() {
     fetch('/api/ranks')
-        .then(res => res.json())
-        .then(data => {
-            const list = document.getElementById('rank-list');
-            list.innerHTML = '';
-            if (data.length === 0) {
-                list.innerHTML = '<div style="text-align:center; font-size:12px; color:#666;">No Data</div>';
-                return;
-            }
-            data.forEach(r => {
-                const rankClass = r.rank <= 3 ? `rank-${r.rank}` : '';
-                const html = `
-                    <div class="rank-item">
-                        <span class="rank-num ${rankClass}">${r.rank}</span>
-                        <span class="rank-name">${r.nickname}</span>
-                        <span class="rank-score">${r.score}</span>
-                    </div>
-                `;
-                list.innerHTML += html;
-            });
-        })
+        .then(res => res.json().then(data => {
+            rankState = { version: Number(res.headers.get('X-Rank-Version') ?? -1), ranks: data };
+            renderRanks(data);
+        }))
         .catch(console.error);
 }
-setInterval(fetchRanks, 3000);
-fetchRanks();
+
+function applyRankDiff(diff) {
+    if (diff.fromVersion !== rankState.version) { fetchRanks(); return; }
+    const ranks = rankState.ranks.slice(0, diff.size);
+    diff.changed.forEach(r => { ranks[r.rank - 1] = r; });
+    rankState = { version: diff.version, ranks };
+    renderRanks(ranks);
+}
+
+function renderRanks(data) {
+    const list = document.getElementById('rank-list');
+    list.innerHTML = '';
+    if (data.length === 0) {
+        list.innerHTML = '<div style="text-align:center; font-size:12px; color:#666;">No Data</div>';
+        return;
+    }
+    data.forEach(r => {
+        const rankClass = r.rank <= 3 ? `rank-${r.rank}` : '';
+        const html = `
+            <div class="rank-item">
+                <span class="rank-num ${rankClass}">${r.rank}</span>
+                <span class="rank-name">${r.nickname}</span>
+                <span class="rank-score">${r.score}</span>
+            </div>
+        `;
+        list.innerHTML += html;
+    });
+}
 
 // --- 화면 고정 및 엣지 스크롤 ---
 const cameraLockBtn = document.getElementById('cameraLockBtn');
@@ -128,7 +147,7 @@ function scheduleDraw() { needsRedraw = true; if (!isDrawing) { isDrawing = true
 function drawLoop() {
     if (needsRedraw) {
         drawPixels();
-        if (isHeatmapMode && cachedHeatmapData.length > 0) {
+        if (isHeatmapMode && cachedHeatmapData) {
             drawHeatmap(cachedHeatmapData);
         }
         needsRedraw = false;
@@ -232,6 +251,17 @@ function drawPixels() {
         ctx.restore();
     }
 
+    if (lodBlocks) {
+        // 요약 칸: blockSize × blockSize칸을 한 번에 (칸 사이 틈이 보이지 않게 올림)
+        lodBlocks.forEach((b) => {
+            const pOffset = projection.fromCoordToOffset(new naver.maps.LatLng(b.lat + b.size * GRID_SIZE, b.lng));
+            ctx.fillStyle = b.color;
+            ctx.fillRect(Math.floor(pOffset.x - tlOffset.x), Math.floor(pOffset.y - tlOffset.y),
+                Math.ceil(cellW * b.size), Math.ceil(cellH * b.size));
+        });
+        return;
+    }
+
     pixelMap.forEach((p) => {
         if (bounds.hasLatLng(new naver.maps.LatLng(p.lat, p.lng))) {
             const latLng = new naver.maps.LatLng(p.lat + GRID_SIZE, p.lng);
@@ -273,34 +303,154 @@ naver.maps.Event.addListener(map, 'mousemove', function(e) {
     previewCtx.strokeRect(px, py, Math.ceil(pixelW), Math.ceil(pixelH));
 });
 
+// 화면에 걸친 타일 목록 ("tx/ty"), 너무 많으면(너무 축소) null
+function visibleTiles() {
+    const bounds = map.getBounds();
+    if (!bounds) return null;
+    const sw = bounds.getSW(), ne = bounds.getNE();
+    const toTile = (deg) => Math.floor(Math.floor((deg + EPSILON) / GRID_SIZE) / TILE_SIZE);
+    const minTx = toTile(sw.lat()), maxTx = toTile(ne.lat());
+    const minTy = toTile(sw.lng()), maxTy = toTile(ne.lng());
+    if ((maxTx - minTx + 1) * (maxTy - minTy + 1) > MAX_TILE_SUBSCRIPTIONS) return null;
+
+    const tiles = [];
+    for (let tx = minTx; tx <= maxTx; tx++) {
+        for (let ty = minTy; ty <= maxTy; ty++) tiles.push(`${tx}/${ty}`);
+    }
+    return tiles;
+}
+
 function fetchVisiblePixels() {
     const bounds = map.getBounds();
     if (!bounds) return;
+    // 타일 바이트로 받을 수 있으면 타일 단위로 (바뀌지 않은 타일은 브라우저가 ETag로 304 처리)
+    const tiles = palette.length > 0 ? visibleTiles() : null;
+    if (tiles) {
+        if (lodBlocks) { lodBlocks = null; scheduleDraw(); }
+        tiles.forEach(fetchTile);
+        return;
+    }
+
     const sw = bounds.getSW(), ne = bounds.getNE();
     fetch(`/api/pixels?minLat=${sw.lat()}&maxLat=${ne.lat()}&minLng=${sw.lng()}&maxLng=${ne.lng()}`)
-        .then(res => res.json())
-        .then(data => {
-            if (Array.isArray(data)) {
-                data.forEach(p => {
-                    const snapLat = (Math.floor((p.lat + EPSILON) / GRID_SIZE) * GRID_SIZE).toFixed(6);
-                    const snapLng = (Math.floor((p.lng + EPSILON) / GRID_SIZE) * GRID_SIZE).toFixed(6);
-                    pixelMap.set(`${snapLat},${snapLng}`, { ...p, lat: parseFloat(snapLat), lng: parseFloat(snapLng) });
-                });
+        .then(res => {
+            // 범위가 넓으면 서버가 요약 칸으로 줌 (한 칸 = blockSize × blockSize 원본 칸)
+            const blockSize = parseInt(res.headers.get('X-Block-Size') || '1');
+            return res.json().then(data => ({ blockSize, data }));
+        })
+        .then(({ blockSize, data }) => {
+            if (!Array.isArray(data)) return;
+            if (blockSize > 1) {
+                lodBlocks = data.map(b => ({ lat: b.lat, lng: b.lng, color: b.color, size: blockSize }));
                 scheduleDraw();
+                return;
             }
+            lodBlocks = null;
+            data.forEach(p => {
+                const snapLat = (Math.floor((p.lat + EPSILON) / GRID_SIZE) * GRID_SIZE).toFixed(6);
+                const snapLng = (Math.floor((p.lng + EPSILON) / GRID_SIZE) * GRID_SIZE).toFixed(6);
+                pixelMap.set(`${snapLat},${snapLng}`, { ...p, lat: parseFloat(snapLat), lng: parseFloat(snapLng) });
+            });
+            scheduleDraw();
         }).catch(console.warn);
 }
+
+// 이미 받은 타일은 버전 이후 변경분만, 처음 보는 타일은 타일 바이트 전체
+function fetchTile(tile) {
+    const state = tileStates.get(tile);
+    if (state) {
+        fetch(`/api/tiles/${tile}/changes?since=${state.version}&epoch=${state.epoch}`)
+            .then(res => res.ok ? res.json() : Promise.reject(res.status))
+            .then(changes => applyTileChanges(tile, changes))
+            .catch(console.warn);
+        return;
+    }
+    fetch(`/api/tiles/${tile}`, { cache: 'no-cache' })
+        .then(res => {
+            if (!res.ok) return Promise.reject(res.status);
+            const epoch = res.headers.get('X-Canvas-Epoch'), version = res.headers.get('X-Tile-Version');
+            return res.arrayBuffer().then(buffer => {
+                applyTileBytes(tile, new Uint8Array(buffer));
+                if (epoch !== null && version !== null) tileStates.set(tile, { epoch, version });
+            });
+        })
+        .catch(console.warn);
+}
+
+function applyTileChanges(tile, changes) {
+    const [tx, ty] = tile.split('/').map(Number);
+    for (let i = 0; i < changes.cell.length; i++) {
+        const snapLat = ((tx * TILE_SIZE + Math.floor(changes.cell[i] / TILE_SIZE)) * GRID_SIZE).toFixed(6);
+        const snapLng = ((ty * TILE_SIZE + changes.cell[i] % TILE_SIZE) * GRID_SIZE).toFixed(6);
+        pixelMap.set(`${snapLat},${snapLng}`, { lat: parseFloat(snapLat), lng: parseFloat(snapLng), color: palette[changes.color[i]] });
+    }
+    tileStates.set(tile, { epoch: changes.epoch, version: changes.version });
+    if (changes.cell.length > 0) scheduleDraw();
+}
+
+// 타일 바이트: 팔레트 인덱스 TILE_SIZE², 인덱스 dx * TILE_SIZE + dy, 255 = 빈 칸
+function applyTileBytes(tile, bytes) {
+    const [tx, ty] = tile.split('/').map(Number);
+    for (let i = 0; i < bytes.length; i++) {
+        if (bytes[i] === TILE_EMPTY) continue;
+        const snapLat = ((tx * TILE_SIZE + Math.floor(i / TILE_SIZE)) * GRID_SIZE).toFixed(6);
+        const snapLng = ((ty * TILE_SIZE + i % TILE_SIZE) * GRID_SIZE).toFixed(6);
+        pixelMap.set(`${snapLat},${snapLng}`, { lat: parseFloat(snapLat), lng: parseFloat(snapLng), color: palette[bytes[i]] });
+    }
+    scheduleDraw();
+}
 naver.maps.Event.addListener(map, 'idle', fetchVisiblePixels);
+naver.maps.Event.addListener(map, 'idle', updateTileSubscriptions);
 naver.maps.Event.addListener(map, 'init', fetchVisiblePixels);
 naver.maps.Event.addListener(map, 'center_changed', scheduleDraw);
 naver.maps.Event.addListener(map, 'zoom_changed', scheduleDraw);
 
+// --- 색상 팔레트 ---
+function hexToRgb(hex) {
+    return [parseInt(hex.substring(1, 3), 16), parseInt(hex.substring(3, 5), 16), parseInt(hex.substring(5, 7), 16)];
+}
+
+// 자유 색상 선택기 값을 가장 가까운 팔레트 색으로 맞춤 (서버 Palette.nearest와 같은 규칙)
+function snapToPalette(hex) {
+    if (palette.length === 0) return hex;
+    const [r, g, b] = hexToRgb(hex);
+    let best = palette[0], bestDistance = Infinity;
+    palette.forEach(c => {
+        const [pr, pg, pb] = hexToRgb(c);
+        const distance = (r - pr) ** 2 + (g - pg) ** 2 + (b - pb) ** 2;
+        if (distance < bestDistance) { bestDistance = distance; best = c; }
+    });
+    return best;
+}
+
+fetch('/api/pixels/palette')
+    .then(res => res.json())
+    .then(colors => {
+        palette = colors;
+        document.getElementById('paletteColors').innerHTML = colors.map(c => `<option value="${c}"></option>`).join('');
+        const picker = document.getElementById('colorPicker');
+        picker.value = snapToPalette(picker.value);
+    }).catch(console.warn);
+
+document.getElementById('colorPicker').addEventListener('change', (e) => {
+    e.target.value = snapToPalette(e.target.value);
+});
+
 function updatePixelData(pixel) {
     const snapLat = (Math.floor((pixel.lat + EPSILON) / GRID_SIZE) * GRID_SIZE).toFixed(6);
     const snapLng = (Math.floor((pixel.lng + EPSILON) / GRID_SIZE) * GRID_SIZE).toFixed(6);
     pixelMap.set(`${snapLat},${snapLng}`, { ...pixel, lat: parseFloat(snapLat), lng: parseFloat(snapLng) });
     scheduleDraw();
-    fetchRanks();
+}
+
+// 서버가 타일별로 묶어 보낸 프레임 (x, y는 격자 인덱스)
+function applyPixelBatch(batch) {
+    for (let i = 0; i < batch.x.length; i++) {
+        const snapLat = (batch.x[i] * GRID_SIZE).toFixed(6);
+        const snapLng = (batch.y[i] * GRID_SIZE).toFixed(6);
+        pixelMap.set(`${snapLat},${snapLng}`, { lat: parseFloat(snapLat), lng: parseFloat(snapLng), color: batch.color[i], userId: batch.userId[i] });
+    }
+    scheduleDraw();
 }
 
 // --- WebSocket & 채팅 통합 ---
@@ -308,8 +458,28 @@ const socket = new SockJS('/ws-pixel');
 const stompClient = Stomp.over(socket);
 const roomId = "1";
 
+// 화면에 걸친 타일 토픽만 구독 ("tx/ty" → subscription)
+const tileSubscriptions = new Map();
+
+function updateTileSubscriptions() {
+    if (!stompClient.connected) return;
+    const wanted = new Set(visibleTiles() || []);
+
+    tileSubscriptions.forEach((sub, tile) => {
+        if (!wanted.has(tile)) { sub.unsubscribe(); tileSubscriptions.delete(tile); }
+    });
+    wanted.forEach(tile => {
+        if (!tileSubscriptions.has(tile)) {
+            tileSubscriptions.set(tile, stompClient.subscribe('/sub/pixel/tile/' + tile, (msg) => applyPixelBatch(JSON.parse(msg.body))));
+        }
+    });
+}
+
 stompClient.connect({}, () => {
-    stompClient.subscribe('/sub/pixel', (msg) => updatePixelData(JSON.parse(msg.body)));
+    updateTileSubscriptions();
+    fetchVisiblePixels(); // 연결 전/끊긴 동안 놓친 변경분 따라잡기
+    stompClient.subscribe('/sub/ranks', (msg) => applyRankDiff(JSON.parse(msg.body)));
+    fetchRanks(); // 구독한 뒤에 받아야 그 사이 변경분을 놓치지 않음 (버전이 안 맞으면 다시 받음)
     stompClient.subscribe('/sub/chat/room/' + roomId, function (chatMessage) {
         appendChatMessage(JSON.parse(chatMessage.body));
     });
@@ -408,7 +578,7 @@ naver.maps.Event.addListener(map, 'click', function(e) {
     const snapLat = Math.floor((e.coord.lat() + EPSILON) / GRID_SIZE) * GRID_SIZE;
     const snapLng = Math.floor((e.coord.lng() + EPSILON) / GRID_SIZE) * GRID_SIZE;
     if (!KOREA_BOUNDS.hasLatLng(new naver.maps.LatLng(snapLat, snapLng))) { alert("서비스 지역이 아닙니다."); return; }
-    const color = document.getElementById('colorPicker').value;
+    const color = snapToPalette(document.getElementById('colorPicker').value);
     const newPixel = { lat: snapLat, lng: snapLng, color: color, userId: myNickname };
     updatePixelData(newPixel);
     fetch('/api/pixels', { method: 'POST', headers: { 'Content-Type': 'application/json' }, body: JSON.stringify(newPixel) })
@@ -488,19 +658,32 @@ function loadHeatmap() {
         .catch(console.error);
 }
 
-function drawHeatmap(hotPixels) {
+function drawHeatmap(heatmap) {
     if (!isHeatmapMode) return;
     heatmapCtx.clearRect(0, 0, heatmapCanvas.width, heatmapCanvas.height);
     const projection = map.getProjection();
     const bounds = map.getBounds();
+    const tl = projection.fromCoordToOffset(new naver.maps.LatLng(bounds.getNE().lat(), bounds.getSW().lng()));
+
+    // 밀도 격자: 가장 뜨거운 칸 대비 진하기 (축소해서 봐도 어디가 붐비는지 보이도록)
+    const d = heatmap.density;
+    const maxHeat = d.heat.reduce((a, b) => Math.max(a, b), 0);
+    d.heat.forEach((heat, i) => {
+        if (heat <= 0) return;
+        const lat = d.lat[i], lng = d.lng[i];
+        const nw = projection.fromCoordToOffset(new naver.maps.LatLng(lat + d.cellDegrees, lng));
+        const se = projection.fromCoordToOffset(new naver.maps.LatLng(lat, lng + d.cellDegrees));
+        heatmapCtx.fillStyle = `rgba(255, 80, 0, ${(0.1 + 0.4 * heat / maxHeat).toFixed(2)})`;
+        heatmapCtx.fillRect(nw.x - tl.x, nw.y - tl.y, se.x - nw.x, se.y - nw.y);
+    });
+
     heatmapCtx.filter = 'blur(8px)';
     heatmapCtx.globalCompositeOperation = 'lighter';
-    hotPixels.forEach(p => {
-        const score = parseInt(p.color);
-        const latLng = new naver.maps.LatLng(p.lat, p.lng);
+    heatmap.lat.forEach((pLat, i) => {
+        const score = Math.round(heatmap.score[i]);
+        const latLng = new naver.maps.LatLng(pLat, heatmap.lng[i]);
         if (bounds.hasLatLng(latLng)) {
             const pOffset = projection.fromCoordToOffset(latLng);
-            const tl = projection.fromCoordToOffset(new naver.maps.LatLng(bounds.getNE().lat(), bounds.getSW().lng()));
             const px = Math.floor(pOffset.x - tl.x), py = Math.floor(pOffset.y - tl.y);
             const radius = Math.min(score * 2, 40) + 10;
             heatmapCtx.beginPath();
@@ -0,0 +1,109 @@
+package com.thepixelwar.canvas;
+
+import com.thepixelwar.dto.PixelEvent;
+import com.thepixelwar.repository.PixelRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CanvasSnapshotServiceTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition(CanvasSnapshotService.TOPIC, 0);
+
+    @TempDir
+    Path dir;
+
+    private final PixelRepository pixelRepository = mock(PixelRepository.class);
+    private final CanvasStore canvasStore = new CanvasStore(pixelRepository);
+    @SuppressWarnings("unchecked")
+    private final ConsumerFactory<String, PixelEvent> consumerFactory = mock(ConsumerFactory.class);
+    private final MockConsumer<String, PixelEvent> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final CanvasSnapshotService snapshotService = new CanvasSnapshotService(canvasStore, consumerFactory);
+
+    @Test
+    @DisplayName("기동: 스냅샷을 올리고 그 오프셋부터 재생한 뒤, 복원 중 보류한 실시간 변경을 마지막에 반영한다")
+    void warmStart_ShouldRestoreReplayThenApplyHeldUpdates() throws Exception {
+        // given: 오프셋 2까지 반영된 스냅샷 (파티션 0의 메시지는 0~3)
+        Path path = dir.resolve("canvas.snapshot");
+        CanvasStore before = new CanvasStore(pixelRepository);
+        before.set(1, 1, 2, "UserA");
+        before.markApplied(0, 2);
+        before.writeSnapshot(path);
+        ReflectionTestUtils.setField(snapshotService, "path", path.toString());
+
+        given(consumerFactory.createConsumer(any(), any(), any(), any())).willReturn(consumer);
+        consumer.updatePartitions(CanvasSnapshotService.TOPIC,
+                List.of(new PartitionInfo(CanvasSnapshotService.TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(PARTITION, 4L));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(record(2, 1, 1, 13, "UserB"));
+            consumer.addRecord(record(3, 5, 5, 6, "UserC"));
+        });
+
+        // when: 컨슈머가 먼저 (1,1)을 더 최신 값으로 바꿔둔 상태에서 기동
+        snapshotService.holdUpdatesIfSnapshotExists();
+        canvasStore.set(1, 1, 27, "Live");
+        canvasStore.markApplied(0, 5);
+        assertThat(canvasStore.colorAt(1, 1)).isEqualTo(-1); // 아직 보류 중
+        snapshotService.warmStart();
+
+        // then: 재생(13)이 실시간 값(27)을 덮지 않음, DB는 읽지 않음
+        assertThat(canvasStore.isReady()).isTrue();
+        assertThat(canvasStore.colorAt(1, 1)).isEqualTo(27);
+        assertThat(canvasStore.colorAt(5, 5)).isEqualTo(6);
+        assertThat(canvasStore.appliedOffsets()).isEqualTo(Map.of(0, 5L));
+        verify(pixelRepository, never()).scanAll(anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("기동: 스냅샷 오프셋이 이미 지워진 구간이면 복원을 버리고 DB에서 적재한다")
+    void warmStart_ShouldFallBackToDatabase_WhenOffsetExpired() throws Exception {
+        // given: 오프셋 2까지 반영된 스냅샷인데 토픽에는 10번부터만 남아있음
+        Path path = dir.resolve("canvas.snapshot");
+        CanvasStore before = new CanvasStore(pixelRepository);
+        before.set(1, 1, 2, "UserA");
+        before.markApplied(0, 2);
+        before.writeSnapshot(path);
+        ReflectionTestUtils.setField(snapshotService, "path", path.toString());
+
+        given(consumerFactory.createConsumer(any(), any(), any(), any())).willReturn(consumer);
+        consumer.updatePartitions(CanvasSnapshotService.TOPIC,
+                List.of(new PartitionInfo(CanvasSnapshotService.TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 10L));
+        consumer.updateEndOffsets(Map.of(PARTITION, 12L));
+
+        // when
+        snapshotService.holdUpdatesIfSnapshotExists();
+        snapshotService.warmStart();
+
+        // then
+        assertThat(canvasStore.isReady()).isTrue();
+        assertThat(canvasStore.colorAt(1, 1)).isEqualTo(-1); // 스냅샷 내용은 버려짐 (DB mock은 비어있음)
+        verify(pixelRepository).scanAll(anyInt(), any());
+    }
+
+    private static ConsumerRecord<String, PixelEvent> record(long offset, int x, int y, int color, String userId) {
+        return new ConsumerRecord<>(CanvasSnapshotService.TOPIC, 0, offset, x + ":" + y,
+                new PixelEvent(x, y, color, userId, offset));
+    }
+}
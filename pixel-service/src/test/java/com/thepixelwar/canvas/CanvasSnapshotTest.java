@@ -0,0 +1,72 @@
+package com.thepixelwar.canvas;
+
+import com.thepixelwar.repository.PixelRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class CanvasSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("스냅샷: 색, 주인, 오프셋을 그대로 되살리고 복원한 타일의 예전 변경분은 요구하면 전체로 준다")
+    void writeAndRestore_ShouldRoundTrip() throws IOException {
+        // given
+        CanvasStore original = new CanvasStore(mock(PixelRepository.class));
+        original.set(-1, -1, 2, "UserA");
+        original.set(300, 5, 13, "UserB");
+        original.set(301, 5, 31, "UserA");
+        original.markApplied(0, 42);
+        original.markApplied(1, 7);
+        Path path = dir.resolve("canvas.snapshot");
+
+        // when
+        original.writeSnapshot(path);
+        CanvasStore restored = new CanvasStore(mock(PixelRepository.class));
+        restored.set(0, 0, 6, "Other"); // 복원 전에 있던 청크는 버려짐
+        CanvasSnapshot.Restored result = restored.restoreSnapshot(path);
+
+        // then
+        assertThat(result.chunkCount()).isEqualTo(2);
+        assertThat(result.offsets()).isEqualTo(Map.of(0, 42L, 1, 7L));
+        assertThat(restored.appliedOffsets()).isEqualTo(Map.of(0, 42L, 1, 7L));
+
+        List<String> cells = new ArrayList<>();
+        restored.forEach((x, y, color, userId) -> cells.add(x + ":" + y + ":" + color + ":" + userId));
+        assertThat(cells).containsExactlyInAnyOrder("-1:-1:2:UserA", "300:5:13:UserB", "301:5:31:UserA");
+
+        List<String> blocks = new ArrayList<>(); // 요약(LOD)도 복원한 칸으로 다시 만듦
+        restored.forEachBlockInBounds(CanvasGrid.LOD_LEVELS, 256, 511, 0, 255,
+                (x, y, color, painted) -> blocks.add(x + ":" + y + ":" + color + ":" + painted));
+        assertThat(blocks).containsExactly("256:0:13:2"); // 동률이면 낮은 팔레트 인덱스
+
+        assertThat(restored.tileVersion(4, 0)).isEqualTo(1);
+        assertThat(restored.changesSince(4, 0, 0).full()).isTrue(); // 복원 이전 변경 기록은 없음
+        restored.set(300, 6, 6, "UserC");
+        assertThat(restored.changesSince(4, 0, 1).cells()).containsExactly(CanvasGrid.TILE_SIZE * 44 + 6, 6);
+        assertThat(Files.exists(dir.resolve("canvas.snapshot.tmp"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("스냅샷: 다른 형식의 파일은 읽지 않고 IOException")
+    void restore_ShouldRejectForeignFile() throws IOException {
+        Path path = dir.resolve("broken.snapshot");
+        Files.write(path, new byte[CanvasSnapshot.HEADER_BYTES]);
+
+        CanvasStore store = new CanvasStore(mock(PixelRepository.class));
+        assertThatThrownBy(() -> store.restoreSnapshot(path)).isInstanceOf(IOException.class);
+    }
+}
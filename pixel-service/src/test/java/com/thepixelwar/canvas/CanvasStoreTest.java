@@ -0,0 +1,167 @@
+package com.thepixelwar.canvas;
+
+import com.thepixelwar.repository.PixelRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class CanvasStoreTest {
+
+    @Mock
+    private PixelRepository pixelRepository;
+
+    @InjectMocks
+    private CanvasStore canvasStore;
+
+    @Test
+    @DisplayName("영역 조회: 청크 경계와 음수 좌표를 넘나들어도 범위 안의 칠해진 칸만 돌려준다")
+    void forEachInBounds_ShouldVisitOnlyCellsInRange() {
+        // given: 청크 (-1,-1), (0,0), (1,0)에 걸친 픽셀
+        canvasStore.set(-1, -1, 2, "UserA");
+        canvasStore.set(0, 0, 6, "UserB");
+        canvasStore.set(255, 10, 13, "UserA");
+        canvasStore.set(256, 10, 27, "UserC");
+        canvasStore.set(300, 300, 31, "UserD"); // 범위 밖
+
+        // when
+        List<String> visited = new ArrayList<>();
+        canvasStore.forEachInBounds(-1, 256, -1, 10, (x, y, rgb, userId) -> visited.add(x + ":" + y + ":" + userId));
+
+        // then
+        assertThat(visited).containsExactlyInAnyOrder("-1:-1:UserA", "0:0:UserB", "255:10:UserA", "256:10:UserC");
+        assertThat(canvasStore.chunkCount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("요약(LOD): 칸이 바뀔 때마다 위 레벨까지 가장 많이 칠해진 색과 칸 수가 따라 바뀐다")
+    void forEachBlockInBounds_ShouldTrackDominantColorIncrementally() {
+        // given: 4×4 블록 (0,0)에 색 2를 3칸, 색 6을 2칸 / 블록 (4,0)에 색 13을 1칸
+        canvasStore.set(0, 0, 2, "UserA");
+        canvasStore.set(0, 1, 2, "UserA");
+        canvasStore.set(1, 1, 2, "UserB");
+        canvasStore.set(2, 2, 6, "UserC");
+        canvasStore.set(3, 3, 6, "UserC");
+        canvasStore.set(4, 0, 13, "UserD");
+
+        // then: 레벨 1은 블록별로, 레벨 2는 아래 블록을 칸 수만큼 가중치로 세서
+        assertThat(blocks(1, 0, 7, 0, 3)).containsExactlyInAnyOrder("0:0:2:5", "4:0:13:1");
+        assertThat(blocks(2, 0, 15, 0, 15)).containsExactly("0:0:2:6");
+
+        // when: 색 2 두 칸을 6으로 덮으면 다수가 바뀜 (칸 수는 그대로)
+        canvasStore.set(0, 0, 6, "UserC");
+        canvasStore.set(0, 1, 6, "UserC");
+
+        // then
+        assertThat(blocks(1, 0, 3, 0, 3)).containsExactly("0:0:6:5");
+        assertThat(blocks(CanvasGrid.LOD_LEVELS, -1000, 1000, -1000, 1000)).containsExactly("0:0:6:6");
+        assertThat(blocks(1, 8, 100, 8, 100)).isEmpty(); // 범위에 칠해진 블록 없음
+    }
+
+    private List<String> blocks(int level, int minX, int maxX, int minY, int maxY) {
+        List<String> visited = new ArrayList<>();
+        canvasStore.forEachBlockInBounds(level, minX, maxX, minY, maxY,
+                (x, y, color, painted) -> visited.add(x + ":" + y + ":" + color + ":" + painted));
+        return visited;
+    }
+
+    @Test
+    @DisplayName("적재: DB 값은 빈 칸만 채우고, 먼저 들어온 실시간 변경은 덮어쓰지 않는다")
+    void load_ShouldNotOverwriteNewerCells() {
+        // given: 적재 도중 Kafka로 (1,1)이 이미 갱신됨
+        canvasStore.set(1, 1, 13, "NewOwner");
+        doAnswer(invocation -> {
+            CanvasStore.CellVisitor visitor = invocation.getArgument(1);
+            visitor.visit(1, 1, 2, "OldOwner");
+            visitor.visit(2, 2, 6, "UserA");
+            visitor.visit(3, 3, 200, "Broken"); // 팔레트 밖 인덱스는 건너뜀
+            return null;
+        }).when(pixelRepository).scanAll(anyInt(), any());
+
+        // when
+        canvasStore.load();
+
+        // then
+        assertThat(canvasStore.isReady()).isTrue();
+        assertThat(canvasStore.colorAt(1, 1)).isEqualTo(13);
+        assertThat(canvasStore.colorAt(2, 2)).isEqualTo(6);
+        assertThat(canvasStore.colorAt(3, 3)).isEqualTo(-1);
+        // 요약(LOD)은 적재가 끝난 뒤 한 번에 다시 만들어짐: 블록 (0,0)에 13과 6이 1칸씩 → 동률이면 앞 인덱스
+        assertThat(blocks(1, 0, 3, 0, 3)).containsExactly("0:0:6:2");
+    }
+
+    @Test
+    @DisplayName("타일 읽기: 실제로 바뀐 칸만 타일 버전을 올리고, 빈 칸은 EMPTY로 채운다")
+    void readTile_ShouldBumpVersionOnlyOnChange() {
+        // given: 타일 (-1, 0) = x -64..-1, y 0..63
+        byte[] tile = new byte[CanvasGrid.TILE_SIZE * CanvasGrid.TILE_SIZE];
+        assertThat(canvasStore.readTile(-1, 0, tile)).isZero(); // 아직 청크도 없음
+        assertThat(tile[0]).isEqualTo((byte) Palette.EMPTY);
+
+        // when
+        canvasStore.set(-64, 5, 2, "UserA");
+        long afterFirst = canvasStore.tileVersion(-1, 0);
+        canvasStore.set(-64, 5, 2, "UserA"); // 같은 값 → 버전 그대로
+        canvasStore.set(0, 5, 13, "UserB");   // 옆 타일 → 이 타일 버전과 무관
+
+        // then
+        assertThat(afterFirst).isEqualTo(1);
+        assertThat(canvasStore.readTile(-1, 0, tile)).isEqualTo(1);
+        assertThat(tile[5]).isEqualTo((byte) 2); // dx 0, dy 5
+        assertThat(tile[6]).isEqualTo((byte) Palette.EMPTY);
+        assertThat(canvasStore.tileVersion(0, 0)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("변경분 조회: since 이후 바뀐 칸만 한 번씩, 링 버퍼를 넘으면 타일 전체로 대신한다")
+    void changesSince_ShouldReturnDeltaOrFullTile() {
+        // given: 타일 (0, 0)에 3번 변경 (같은 칸 두 번)
+        canvasStore.set(0, 1, 2, "UserA");   // v1
+        canvasStore.set(0, 2, 6, "UserA");   // v2
+        canvasStore.set(0, 1, 13, "UserB");  // v3
+
+        // when & then: v1 이후 → 칸 1(최신 색 13), 칸 2
+        CanvasStore.TileChanges delta = canvasStore.changesSince(0, 0, 1);
+        assertThat(delta.full()).isFalse();
+        assertThat(delta.version()).isEqualTo(3);
+        assertThat(delta.cells()).containsExactly(1, 13, 2, 6);
+        assertThat(canvasStore.changesSince(0, 0, 3).cells()).isEmpty();
+
+        // when & then: 링 버퍼보다 많이 바뀌면 v1 이후는 이어받을 수 없음 → 칠해진 칸 전부
+        for (int i = 0; i < CanvasChunk.CHANGE_LOG_SIZE; i++) {
+            canvasStore.set(1, 0, i % 2, "UserC");
+        }
+        CanvasStore.TileChanges full = canvasStore.changesSince(0, 0, 1);
+        assertThat(full.full()).isTrue();
+        assertThat(full.cells()).containsExactly(1, 13, 2, 6, CanvasGrid.TILE_SIZE, 1);
+        assertThat(canvasStore.changesSince(5, 5, 0).full()).isFalse(); // 빈 타일은 변경분 없음
+    }
+
+    @Test
+    @DisplayName("전체 순회: 타일 단위로 모아서 같은 타일의 칸은 연달아 방문한다")
+    void forEach_ShouldVisitTileByTile() {
+        // given: 한 청크 안 두 타일에 번갈아 찍음
+        canvasStore.set(0, 0, 2, "UserA");
+        canvasStore.set(0, 64, 6, "UserB");
+        canvasStore.set(1, 0, 13, "UserA");
+        canvasStore.set(1, 64, 27, "UserB");
+
+        // when
+        List<Integer> tiles = new ArrayList<>();
+        canvasStore.forEach((x, y, color, userId) -> tiles.add(CanvasGrid.tileOf(y)));
+
+        // then
+        assertThat(tiles).containsExactly(0, 0, 1, 1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.thepixelwar.canvas;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MortonKeyTest {
+
+    @Test
+    @DisplayName("셀 키: 음수 좌표를 포함해 인코딩한 좌표가 그대로 복원되고, 키는 항상 양수다")
+    void encode_ShouldRoundTrip() {
+        int[][] coords = {{0, 0}, {-1, -1}, {125000, 425000}, {-600000, 600000},
+                {MortonKey.BIAS - 1, -MortonKey.BIAS}};
+        for (int[] c : coords) {
+            long key = MortonKey.encode(c[0], c[1]);
+            assertThat(key).isNotNegative();
+            assertThat(MortonKey.decodeX(key)).isEqualTo(c[0]);
+            assertThat(MortonKey.decodeY(key)).isEqualTo(c[1]);
+        }
+        assertThatThrownBy(() -> MortonKey.encode(MortonKey.BIAS, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("구간 분해: 구간 수 제한이 넉넉하면 사각형 안의 칸만 정확히 덮는다")
+    void ranges_ShouldCoverRectangleExactly() {
+        // given: 0을 가로지르는 사각형
+        int minX = -5, maxX = 9, minY = -3, maxY = 12;
+
+        // when
+        List<long[]> ranges = MortonKey.ranges(minX, maxX, minY, maxY, Integer.MAX_VALUE);
+
+        // then: 구간에 든 키 수 = 사각형 칸 수, 모든 키가 사각형 안
+        long covered = 0;
+        for (long[] range : ranges) {
+            for (long key = range[0]; key <= range[1]; key++) {
+                assertThat(MortonKey.decodeX(key)).isBetween(minX, maxX);
+                assertThat(MortonKey.decodeY(key)).isBetween(minY, maxY);
+                covered++;
+            }
+        }
+        assertThat(covered).isEqualTo((long) (maxX - minX + 1) * (maxY - minY + 1));
+    }
+
+    @Test
+    @DisplayName("구간 분해: 구간 수를 제한하면 상한 이하로 줄이고, 사각형 칸은 하나도 빠뜨리지 않는다")
+    void ranges_ShouldRespectMaxRanges() {
+        // given: 화면 하나 정도의 영역
+        int minX = 123333, maxX = 123533, minY = 423333, maxY = 423633;
+
+        // when
+        List<long[]> ranges = MortonKey.ranges(minX, maxX, minY, maxY, 32);
+
+        // then
+        assertThat(ranges).hasSizeLessThanOrEqualTo(32);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i)[0]).isGreaterThan(ranges.get(i - 1)[1]); // 정렬 + 겹치지 않음
+        }
+        for (int x = minX; x <= maxX; x += 7) {
+            for (int y = minY; y <= maxY; y += 11) {
+                long key = MortonKey.encode(x, y);
+                assertThat(ranges).anyMatch(range -> range[0] <= key && key <= range[1]);
+            }
+        }
+    }
+}
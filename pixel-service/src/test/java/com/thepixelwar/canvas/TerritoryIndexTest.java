@@ -0,0 +1,133 @@
+package com.thepixelwar.canvas;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TerritoryIndexTest {
+
+    @Test
+    @DisplayName("연결된 땅: 가운데 칸을 잃으면 조각으로 나뉘고, 다시 찾으면 하나로 합쳐진다")
+    void remove_ShouldSplitComponent() {
+        // given: 주인 1의 가로줄 5칸 (0~4, 0)
+        TerritoryIndex index = new TerritoryIndex();
+        for (int x = 0; x < 5; x++) index.set(x, 0, 1);
+        assertThat(index.largest(1)).isEqualTo(5);
+
+        // when: 가운데를 주인 2가 뺏음 → 2칸 + 2칸
+        index.set(2, 0, 2);
+
+        // then
+        assertThat(index.largest(1)).isEqualTo(2);
+        assertThat(index.largest(2)).isEqualTo(1);
+
+        index.set(2, 0, 1);
+        assertThat(index.largest(1)).isEqualTo(5);
+        assertThat(index.largest(2)).isZero();
+        index.clear(0, 0);
+        assertThat(index.largest(1)).isEqualTo(4);
+        assertThat(index.cellCount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("연결된 땅: 무작위 주인 변경을 반복해도 매번 전체 플러드 필 결과와 같다")
+    void set_ShouldMatchFloodFill() {
+        int width = 24;
+        int owners = 3;
+        int[][] grid = new int[width][width];
+        for (int[] row : grid) Arrays.fill(row, -1);
+        TerritoryIndex index = new TerritoryIndex();
+        Random random = new Random(7);
+
+        for (int step = 0; step < 20000; step++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(width);
+            int owner = random.nextInt(owners + 1) - 1; // -1이면 지움
+            if (owner < 0) {
+                index.clear(x, y);
+            } else {
+                index.set(x, y, owner);
+            }
+            grid[x][y] = owner;
+
+            if (step % 50 == 0) {
+                for (int o = 0; o < owners; o++) {
+                    assertThat(index.largest(o)).as("step %d owner %d", step, o).isEqualTo(largestByFloodFill(grid, o));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("주인별 칸 목록: 나뉘고 합쳐지고 정리(compact)돼도 forEachCell은 그 주인의 칸만 한 번씩 돈다")
+    void forEachCell_ShouldVisitOwnedCellsOnly() {
+        int width = 24;
+        int owners = 3;
+        int[][] grid = new int[width][width];
+        for (int[] row : grid) Arrays.fill(row, -1);
+        TerritoryIndex index = new TerritoryIndex();
+        Random random = new Random(11);
+
+        for (int step = 0; step < 20000; step++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(width);
+            int owner = random.nextInt(owners + 1) - 1; // -1이면 지움
+            if (owner < 0) {
+                index.clear(x, y);
+            } else {
+                index.set(x, y, owner);
+            }
+            grid[x][y] = owner;
+
+            if (step % 50 == 0) {
+                for (int o = 0; o < owners; o++) {
+                    List<String> expected = new ArrayList<>();
+                    for (int gx = 0; gx < width; gx++) {
+                        for (int gy = 0; gy < width; gy++) {
+                            if (grid[gx][gy] == o) expected.add(gx + ":" + gy);
+                        }
+                    }
+                    List<String> visited = new ArrayList<>();
+                    index.forEachCell(o, (cx, cy) -> visited.add(cx + ":" + cy));
+                    assertThat(visited).as("step %d owner %d", step, o).containsExactlyInAnyOrderElementsOf(expected);
+                }
+            }
+        }
+    }
+
+    static int largestByFloodFill(int[][] grid, int owner) {
+        int width = grid.length;
+        boolean[][] seen = new boolean[width][width];
+        int largest = 0;
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        for (int sx = 0; sx < width; sx++) {
+            for (int sy = 0; sy < width; sy++) {
+                if (grid[sx][sy] != owner || seen[sx][sy]) continue;
+                int size = 0;
+                seen[sx][sy] = true;
+                queue.add(new int[]{sx, sy});
+                while (!queue.isEmpty()) {
+                    int[] cell = queue.poll();
+                    size++;
+                    for (int[] d : new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}}) {
+                        int nx = cell[0] + d[0];
+                        int ny = cell[1] + d[1];
+                        if (nx < 0 || ny < 0 || nx >= width || ny >= width) continue;
+                        if (grid[nx][ny] != owner || seen[nx][ny]) continue;
+                        seen[nx][ny] = true;
+                        queue.add(new int[]{nx, ny});
+                    }
+                }
+                largest = Math.max(largest, size);
+            }
+        }
+        return largest;
+    }
+}
@@ -0,0 +1,116 @@
+package com.thepixelwar.codec;
+
+import com.thepixelwar.dto.PixelEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PixelEventCodecTest {
+
+    private final PixelEventSerializer serializer = new PixelEventSerializer();
+    private final PixelEventDeserializer deserializer = new PixelEventDeserializer();
+
+    @Test
+    @DisplayName("바이너리 직렬화: 인코딩한 이벤트는 그대로 복원되고, 같은 내용의 JSON보다 작다")
+    void roundTrip_ShouldRestoreEvent() {
+        // given
+        PixelEvent event = new PixelEvent(125000, -425000, 13, "유저A", 1700000000000L);
+
+        // when
+        byte[] data = serializer.serialize("pixel-updates", event);
+        PixelEvent decoded = deserializer.deserialize("pixel-updates", data);
+
+        // then
+        assertThat(decoded).isEqualTo(event);
+        assertThat(decoded.colorHex()).isEqualTo("#3690EA");
+        String json = "{\"lat\":37.5,\"lng\":-127.5,\"color\":\"#3690EA\",\"userId\":\"유저A\"}";
+        assertThat(data.length).isLessThan(json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    @DisplayName("바이너리 직렬화: userId가 없거나 길이 자리(2바이트)를 넘으면 잘라 쓰지 않고 거절한다")
+    void encode_ShouldReject_WhenUserIdMissingOrTooLong() {
+        assertThatThrownBy(() -> PixelEventCodec.encode(new PixelEvent(1, 1, 2, null, 0L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PixelEventCodec.encode(new PixelEvent(1, 1, 2, "a".repeat(0x10000), 0L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(PixelEventCodec.decode(PixelEventCodec.encode(new PixelEvent(1, 1, 2, "a".repeat(0xFFFF), 0L))).userId())
+                .hasSize(0xFFFF);
+    }
+
+    @Test
+    @DisplayName("역직렬화: 전환 중 남아있는 예전 JSON 메시지도 읽고, 색은 가장 가까운 팔레트 색으로 바꾼다")
+    void deserialize_ShouldReadLegacyJson() {
+        // given
+        byte[] json = "{\"lat\":37.5,\"lng\":127.5,\"color\":\"#FF0000\",\"userId\":\"OldUser\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        // when
+        PixelEvent event = deserializer.deserialize("pixel-updates", json);
+
+        // then
+        assertThat(event.x()).isEqualTo(125000);
+        assertThat(event.y()).isEqualTo(425000);
+        assertThat(event.colorHex()).isEqualTo("#FF4500"); // #FF0000에 가장 가까운 색
+        assertThat(event.userId()).isEqualTo("OldUser");
+    }
+
+    @Test
+    @DisplayName("역직렬화: 읽을 수 없는 메시지는 예외 대신 null을 돌려준다")
+    void deserialize_ShouldReturnNull_WhenBroken() {
+        assertThat(deserializer.deserialize("pixel-updates", new byte[]{9, 1, 2})).isNull();
+        byte[] outOfPalette = PixelEventCodec.encode(new PixelEvent(1, 1, 200, "A", 0L));
+        assertThat(deserializer.deserialize("pixel-updates", outOfPalette)).isNull();
+        assertThat(deserializer.deserialize("pixel-updates",
+                "{\"lat\":1,\"lng\":1,\"color\":\"red\",\"userId\":\"A\"}".getBytes(StandardCharsets.UTF_8))).isNull();
+    }
+
+    @Test
+    @DisplayName("역직렬화: 팔레트 도입 전(version 1, RGB 4바이트) 이벤트도 가장 가까운 팔레트 색으로 읽는다")
+    void deserialize_ShouldReadRgbVersion() {
+        // given
+        byte[] userId = "OldUser".getBytes(StandardCharsets.UTF_8);
+        byte[] data = ByteBuffer.allocate(1 + 4 + 4 + 4 + 8 + 2 + userId.length)
+                .put((byte) 1).putInt(10).putInt(20).putInt(0xFEFEFE).putLong(0L)
+                .putShort((short) userId.length).put(userId)
+                .array();
+
+        // when
+        PixelEvent event = deserializer.deserialize("pixel-updates", data);
+
+        // then
+        assertThat(event).isEqualTo(new PixelEvent(10, 20, 31, "OldUser", 0L)); // #FFFFFF
+    }
+
+    @Test
+    @DisplayName("타일 프레임: 같은 유저는 사전에 한 번만 쓰고, 픽셀은 타일 내 오프셋으로 기록한다")
+    void encodeTileFrame_ShouldShareUserDictionary() {
+        // when: 타일 (-1, 2)에 UserA 2칸, UserB 1칸
+        byte[] frame = PixelEventCodec.encodeTileFrame(-1, 2, 64,
+                new int[]{-64, -1, -30}, new int[]{128, 191, 130},
+                new int[]{2, 6, 13},
+                new String[]{"UserA", "UserB", "UserA"});
+
+        // then
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        assertThat(buffer.get()).isEqualTo(PixelEventCodec.VERSION);
+        assertThat(buffer.getInt()).isEqualTo(-1);
+        assertThat(buffer.getInt()).isEqualTo(2);
+        assertThat(buffer.getShort()).isEqualTo((short) 2); // 유저 사전 2명
+        buffer.position(buffer.position() + 2 + 5 + 2 + 5);
+        assertThat(buffer.getShort()).isEqualTo((short) 3);
+
+        // 마지막 픽셀: (-30, 130) → 오프셋 (34, 2), 팔레트 13번, UserA(0번)
+        buffer.position(buffer.position() + 2 * 5);
+        assertThat(buffer.get()).isEqualTo((byte) 34);
+        assertThat(buffer.get()).isEqualTo((byte) 2);
+        assertThat(buffer.get()).isEqualTo((byte) 13);
+        assertThat(buffer.getShort()).isEqualTo((short) 0);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+}
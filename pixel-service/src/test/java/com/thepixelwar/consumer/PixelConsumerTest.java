@@ -1,18 +1,28 @@
 package com.thepixelwar.consumer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.thepixelwar.dto.PixelRequest;
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.dto.PixelEvent;
 import com.thepixelwar.entity.PixelEntity;
 import com.thepixelwar.repository.PixelRepository;
+import com.thepixelwar.service.RankingDeltaAccumulator;
 import com.thepixelwar.service.RankingService; // [NEW] Import
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -23,11 +33,9 @@ class PixelConsumerTest {
     @Mock
     private PixelRepository pixelRepository;
     @Mock
-    private SimpMessagingTemplate messagingTemplate;
-    @Mock
-    private ObjectMapper objectMapper;
-    @Mock
     private RankingService rankingService; // [NEW] 랭킹 서비스 Mock 추가
+    @Captor
+    private ArgumentCaptor<List<PixelEntity>> upserted;
 
     @InjectMocks
     private PixelConsumer pixelConsumer;
@@ -37,21 +45,18 @@ class PixelConsumerTest {
     @DisplayName("빈 땅 점령: DB에 저장하고, 새 주인에게 점수(+1)를 준다")
     void consume_ShouldSaveAndIncreaseScore_WhenPixelIsEmpty() throws Exception {
         // given
-        String jsonMessage = "{\"lat\":37.5, \"lng\":127.5, \"color\":\"#FF0000\", \"userId\":\"NewUser\"}";
-        PixelRequest request = new PixelRequest(37.5, 127.5, "#FF0000", "NewUser");
+        PixelEvent event = new PixelEvent(125000, 425000, 2, "NewUser", 0L);
 
-        when(objectMapper.readValue(jsonMessage, PixelRequest.class)).thenReturn(request);
         // 빈 땅(null) 리턴
         when(pixelRepository.findByCoords(anyInt(), anyInt())).thenReturn(null);
 
         // when
-        pixelConsumer.consume(jsonMessage);
+        pixelConsumer.consume(event);
 
         // then
         verify(pixelRepository).save(any(PixelEntity.class)); // 저장 확인
         verify(rankingService).increaseScore("NewUser"); // [NEW] 점수 획득 확인
         verify(rankingService, never()).decreaseScore(anyString()); // 감점은 없어야 함
-        verify(messagingTemplate).convertAndSend(eq("/topic/pixel"), any(PixelRequest.class));
     }
 
     // 2. [신규] 땅 뺏기 테스트
@@ -59,17 +64,15 @@ class PixelConsumerTest {
     @DisplayName("땅 뺏기: 주인이 바뀌면 옛 주인 감점(-1), 새 주인 득점(+1) 되어야 한다")
     void consume_ShouldUpdateScores_WhenOwnershipChanges() throws Exception {
         // given
-        String jsonMessage = "{\"lat\":37.5, \"lng\":127.5, \"color\":\"#0000FF\", \"userId\":\"NewWinner\"}";
-        PixelRequest request = new PixelRequest(37.5, 127.5, "#0000FF", "NewWinner");
+        PixelEvent event = new PixelEvent(125000, 425000, 13, "NewWinner", 0L);
 
         // 이미 OldLoser가 차지하고 있는 땅 Mocking
-        PixelEntity existingPixel = new PixelEntity(125000, 425000, "#FF0000", "OldLoser");
+        PixelEntity existingPixel = new PixelEntity(125000, 425000, 2, "OldLoser");
 
-        when(objectMapper.readValue(jsonMessage, PixelRequest.class)).thenReturn(request);
         when(pixelRepository.findByCoords(anyInt(), anyInt())).thenReturn(existingPixel);
 
         // when
-        pixelConsumer.consume(jsonMessage);
+        pixelConsumer.consume(event);
 
         // then
         verify(rankingService).decreaseScore("OldLoser"); // [검증] 옛 주인 감점
@@ -82,17 +85,15 @@ class PixelConsumerTest {
     @DisplayName("내 땅 덧칠: 주인이 같으면 점수 변동 로직이 실행되지 않아야 한다")
     void consume_ShouldNotChangeScore_WhenOwnerIsSame() throws Exception {
         // given
-        String jsonMessage = "{\"lat\":37.5, \"lng\":127.5, \"color\":\"#00FF00\", \"userId\":\"SameUser\"}";
-        PixelRequest request = new PixelRequest(37.5, 127.5, "#00FF00", "SameUser");
+        PixelEvent event = new PixelEvent(125000, 425000, 6, "SameUser", 0L);
 
         // 이미 SameUser가 차지하고 있는 땅 Mocking
-        PixelEntity existingPixel = new PixelEntity(125000, 425000, "#FF0000", "SameUser");
+        PixelEntity existingPixel = new PixelEntity(125000, 425000, 2, "SameUser");
 
-        when(objectMapper.readValue(jsonMessage, PixelRequest.class)).thenReturn(request);
         when(pixelRepository.findByCoords(anyInt(), anyInt())).thenReturn(existingPixel);
 
         // when
-        pixelConsumer.consume(jsonMessage);
+        pixelConsumer.consume(event);
 
         // then
         // [검증] 랭킹 서비스가 아예 호출되지 않아야 함 (불필요한 Redis 부하 방지)
@@ -100,6 +101,58 @@ class PixelConsumerTest {
         verify(rankingService, never()).decreaseScore(anyString());
 
         // 색깔은 바뀌었는지 확인 (Entity 내부 상태 변경)
-        assert existingPixel.getColor().equals("#00FF00");
+        assert existingPixel.getColor() == 6;
+    }
+
+    // 4. [신규] 배치 모드 테스트
+    @Test
+    @DisplayName("배치 모드: 같은 좌표는 마지막 상태만 저장하고, 점수는 배치 전후 주인 기준 순 변화만 반영한다")
+    void consumeBatch_ShouldCoalesceSameCoordinate() throws Exception {
+        // given: 같은 좌표를 A → B 순서로 찍고, 원래 주인은 OldOwner
+        ConsumerRecord<String, PixelEvent> recordA = new ConsumerRecord<>("pixel-updates", 0, 0L, "125000:425000",
+                new PixelEvent(125000, 425000, 2, "UserA", 0L));
+        ConsumerRecord<String, PixelEvent> recordB = new ConsumerRecord<>("pixel-updates", 0, 1L, "125000:425000",
+                new PixelEvent(125000, 425000, 13, "UserB", 0L));
+        ConsumerRecord<String, PixelEvent> broken = new ConsumerRecord<>("pixel-updates", 0, 2L, "0:0", null); // 역직렬화 실패
+        when(pixelRepository.findOwnersByCoords(anyList()))
+                .thenReturn(new HashMap<>(Map.of(CanvasGrid.key(125000, 425000), "OldOwner")));
+
+        // when
+        pixelConsumer.consumeBatch(List.of(recordA, broken, recordB));
+
+        // then
+        verify(pixelRepository, times(1)).upsertAll(upserted.capture());
+        assertThat(upserted.getValue()).hasSize(1); // 두 이벤트가 한 줄로 합쳐짐
+        assertThat(upserted.getValue().get(0).getUserId()).isEqualTo("UserB");
+        verify(pixelRepository, never()).findByCoords(anyInt(), anyInt()); // 단건 조회는 없어야 함
+
+        // A는 얻었다가 잃었으므로 순 변화 0 → 빠짐, 랭킹 반영은 배치당 1번
+        ArgumentCaptor<RankingDeltaAccumulator> deltas = ArgumentCaptor.forClass(RankingDeltaAccumulator.class);
+        verify(rankingService, times(1)).applyDeltas(deltas.capture(), eq(Map.of(0, 3L)));
+        assertThat(deltas.getValue().drain()).containsExactlyInAnyOrderEntriesOf(Map.of("OldOwner", -1L, "UserB", 1L));
+    }
+
+    @Test
+    @DisplayName("배치 모드: 랭킹은 DB 커밋이 확정된 뒤에만 반영한다 (롤백되면 아무것도 반영하지 않음)")
+    void consumeBatch_ShouldApplySideEffectsAfterCommit() {
+        // given
+        ConsumerRecord<String, PixelEvent> record = new ConsumerRecord<>("pixel-updates", 2, 40L, "125000:425000",
+                new PixelEvent(125000, 425000, 2, "UserA", 0L));
+        when(pixelRepository.findOwnersByCoords(anyList())).thenReturn(new HashMap<>());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            pixelConsumer.consumeBatch(List.of(record));
+
+            // then: 커밋 전에는 DB 쓰기만
+            verify(pixelRepository).upsertAll(anyList());
+            verifyNoInteractions(rankingService);
+
+            // 커밋되면 반영 (재전달을 걸러낼 수 있도록 파티션별 다음 오프셋과 함께)
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(rankingService).applyDeltas(any(RankingDeltaAccumulator.class), eq(Map.of(2, 41L)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
-}
\ No newline at end of file
+}
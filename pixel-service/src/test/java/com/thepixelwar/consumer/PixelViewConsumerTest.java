@@ -0,0 +1,89 @@
+package com.thepixelwar.consumer;
+
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.dto.PixelEvent;
+import com.thepixelwar.entity.PixelEntity;
+import com.thepixelwar.service.PixelBroadcaster;
+import com.thepixelwar.service.TerritoryService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.annotation.KafkaListener;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PixelViewConsumerTest {
+
+    @Mock
+    private CanvasStore canvasStore;
+    @Mock
+    private PixelBroadcaster pixelBroadcaster;
+    @Mock
+    private TerritoryService territoryService;
+    @Captor
+    private ArgumentCaptor<List<PixelEntity>> applied;
+
+    @InjectMocks
+    private PixelViewConsumer pixelViewConsumer;
+
+    @Test
+    @DisplayName("뷰 갱신: 같은 좌표는 마지막 상태만 캔버스/전송/연결된 땅에 반영하고, 파티션별 다음 오프셋을 기록한다")
+    void consumeBatch_ShouldApplyLastStatePerCoordinate() {
+        // given: 같은 좌표를 A → B 순서로, 다른 파티션에 한 칸 더
+        ConsumerRecord<String, PixelEvent> recordA = new ConsumerRecord<>("pixel-updates", 0, 5L, "125000:425000",
+                new PixelEvent(125000, 425000, 2, "UserA", 0L));
+        ConsumerRecord<String, PixelEvent> recordB = new ConsumerRecord<>("pixel-updates", 0, 6L, "125000:425000",
+                new PixelEvent(125000, 425000, 13, "UserB", 0L));
+        ConsumerRecord<String, PixelEvent> other = new ConsumerRecord<>("pixel-updates", 3, 9L, "1:1",
+                new PixelEvent(1, 1, 6, "UserC", 0L));
+        ConsumerRecord<String, PixelEvent> broken = new ConsumerRecord<>("pixel-updates", 3, 10L, "0:0", null); // 역직렬화 실패
+
+        // when
+        pixelViewConsumer.consumeBatch(List.of(recordA, other, recordB, broken));
+
+        // then
+        verify(canvasStore).set(125000, 425000, 13, "UserB");
+        verify(canvasStore).set(1, 1, 6, "UserC");
+        verify(canvasStore, never()).set(125000, 425000, 2, "UserA");
+        verify(pixelBroadcaster, times(1)).broadcast(125000, 425000, 13, "UserB");
+        verify(pixelBroadcaster, times(1)).broadcast(1, 1, 6, "UserC");
+        verify(territoryService).apply(applied.capture());
+        assertThat(applied.getValue()).extracting(PixelEntity::getUserId).containsExactlyInAnyOrder("UserB", "UserC");
+        verify(canvasStore).markApplied(0, 7L);
+        verify(canvasStore).markApplied(3, 11L); // 건너뛴 메시지도 반영한 것으로
+    }
+
+    @Test
+    @DisplayName("뷰 갱신: 인스턴스마다 모든 파티션을 읽도록 DB 컨슈머(pixel-war-group)와 다른 인스턴스별 그룹을 쓴다")
+    void consumeBatch_ShouldUsePerInstanceGroup() throws Exception {
+        // given
+        KafkaListener listener = PixelViewConsumer.class.getMethod("consumeBatch", List.class).getAnnotation(KafkaListener.class);
+
+        // then
+        assertThat(listener.groupId()).isEqualTo("pixel-war-view-${pixel.instance-id:local}");
+    }
+
+    @Test
+    @DisplayName("뷰 갱신: 전부 역직렬화에 실패한 배치는 오프셋만 기록한다")
+    void consumeBatch_ShouldOnlyMarkOffsets_WhenNothingDecoded() {
+        // when
+        pixelViewConsumer.consumeBatch(List.of(new ConsumerRecord<>("pixel-updates", 1, 3L, "0:0", null)));
+
+        // then
+        verify(canvasStore).markApplied(1, 4L);
+        verify(canvasStore, never()).set(anyInt(), anyInt(), anyInt(), any());
+        verifyNoInteractions(pixelBroadcaster);
+        verify(territoryService, never()).apply(anyList());
+    }
+}
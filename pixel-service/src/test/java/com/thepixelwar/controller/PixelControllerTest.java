@@ -1,7 +1,12 @@
 package com.thepixelwar.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thepixelwar.codec.PixelEventCodec;
+import com.thepixelwar.dto.HeatmapResponse;
+import com.thepixelwar.dto.PixelArea;
 import com.thepixelwar.dto.PixelRequest;
+import com.thepixelwar.service.HeatmapService;
+import com.thepixelwar.service.PixelExportService;
 import com.thepixelwar.service.PixelService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,13 +16,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -32,6 +45,12 @@ class PixelControllerTest {
     @MockBean
     private PixelService pixelService; // 서비스는 가짜(Mock)로 대체
 
+    @MockBean
+    private PixelExportService pixelExportService;
+
+    @MockBean
+    private HeatmapService heatmapService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -40,8 +59,8 @@ class PixelControllerTest {
     @WithMockUser // 로그인된 가짜 유저가 있다고 가정
     void updatePixel_ShouldReturnOk() throws Exception {
         // given
-        PixelRequest request = new PixelRequest(37.5, 127.5, "red", "user1");
-        given(pixelService.updatePixel(any(PixelRequest.class))).willReturn("성공");
+        PixelRequest request = new PixelRequest(37.5, 127.5, "#FF4500", "user1");
+        given(pixelService.updatePixel(37.5, 127.5, 2, "user1")).willReturn("성공"); // #FF4500 = 팔레트 2번
 
         // when & then
         mockMvc.perform(post("/api/pixels")
@@ -53,6 +72,40 @@ class PixelControllerTest {
                 .andExpect(content().string("성공"));
     }
 
+    @Test
+    @DisplayName("픽셀 찍기 API: 팔레트에 없는 색상은 서비스까지 가지 않고 거절한다")
+    @WithMockUser
+    void updatePixel_ShouldReject_WhenColorNotInPalette() throws Exception {
+        // given
+        PixelRequest request = new PixelRequest(37.5, 127.5, "#123456", "user1");
+
+        // when & then
+        mockMvc.perform(post("/api/pixels")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("팔레트에 없는 색상입니다."));
+        verifyNoInteractions(pixelService);
+    }
+
+    @Test
+    @DisplayName("픽셀 찍기 API: userId가 없거나 너무 길면 서비스(Redis 스크립트)까지 가지 않고 거절한다")
+    @WithMockUser
+    void updatePixel_ShouldReject_WhenUserIdInvalid() throws Exception {
+        for (String userId : new String[]{null, " ", "가".repeat(PixelEventCodec.MAX_USER_ID_BYTES)}) {
+            PixelRequest request = new PixelRequest(37.5, 127.5, "#FF4500", userId);
+
+            mockMvc.perform(post("/api/pixels")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("잘못된 사용자입니다."));
+        }
+        verifyNoInteractions(pixelService);
+    }
+
     @Test
     @DisplayName("영역 조회 API: 파라미터(minLat 등)를 보내면 리스트를 JSON으로 반환한다")
     @WithMockUser
@@ -60,7 +113,7 @@ class PixelControllerTest {
         // given
         PixelRequest pixel1 = new PixelRequest(37.5, 127.5, "red", "user1");
         given(pixelService.getPixelsInBounds(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .willReturn(List.of(pixel1));
+                .willReturn(new PixelArea(1, List.of(pixel1)));
 
         // when & then
         // /api/pixels?minLat=37.0&maxLat=38.0&minLng=127.0&maxLng=128.0
@@ -72,7 +125,55 @@ class PixelControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Block-Size", "1"))
                 .andExpect(jsonPath("$[0].userId").value("user1")) // JSON 내용 검증
                 .andExpect(jsonPath("$[0].color").value("red"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("히트맵 API: 미리 만든 상위 좌표와 밀도 격자를 타입이 있는 JSON으로 반환한다")
+    @WithMockUser
+    void getHotPixels_ShouldReturnSnapshot() throws Exception {
+        // given
+        given(heatmapService.snapshot()).willReturn(new HeatmapResponse(1000L, 60,
+                new double[]{37.5}, new double[]{127.5}, new float[]{12.5f},
+                new HeatmapResponse.Density(0.0768, new double[]{37.4}, new double[]{127.4}, new float[]{12.5f})));
+
+        // when & then
+        mockMvc.perform(get("/api/pixels/hot"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lat[0]").value(37.5))
+                .andExpect(jsonPath("$.score[0]").value(12.5))
+                .andExpect(jsonPath("$.density.lat[0]").value(37.4))
+                .andExpect(jsonPath("$.density.heat[0]").value(12.5));
+    }
+
+    @Test
+    @DisplayName("전체 내보내기 API: 여러 페이지를 스트리밍해도 설정한 비동기 타임아웃 안에서 끝까지 보낸다")
+    @WithMockUser
+    void exportPixels_ShouldStreamAllPages() throws Exception {
+        // given: 64KB씩 3페이지를 쓰고 페이지마다 flush
+        int pageSize = 64 * 1024;
+        willAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            for (int page = 0; page < 3; page++) {
+                out.write(new byte[pageSize]);
+                out.flush();
+            }
+            return null;
+        }).given(pixelExportService).export(eq(PixelExportService.Format.BINARY), any());
+
+        // when
+        MvcResult started = mockMvc.perform(get("/api/pixels").param("format", "binary"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then: 기본 30초가 아니라 spring.mvc.async.request-timeout(30분)이 걸림
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        MvcResult done = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andReturn();
+        assertThat(done.getResponse().getContentAsByteArray()).hasSize(3 * pageSize);
+    }
+}
@@ -0,0 +1,92 @@
+package com.thepixelwar.controller;
+
+import com.thepixelwar.dto.TileChangesResponse;
+import com.thepixelwar.service.TileService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TileController.class)
+class TileControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TileService tileService;
+
+    @Test
+    @DisplayName("타일 API: 타일 바이트와 버전 ETag를 내려준다")
+    @WithMockUser
+    void getTile_ShouldReturnBytesWithEtag() throws Exception {
+        // given
+        given(tileService.isReady()).willReturn(true);
+        given(tileService.currentVersion(1, -2)).willReturn(7L);
+        given(tileService.etag(eq(1), eq(-2), anyLong(), eq(TileService.Format.RAW))).willReturn("\"e-7-raw\"");
+        given(tileService.render(1, -2, TileService.Format.RAW)).willReturn(new TileService.RenderedTile(7, new byte[]{2, 13}));
+
+        // when & then
+        mockMvc.perform(get("/api/tiles/1/-2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"e-7-raw\""))
+                .andExpect(content().bytes(new byte[]{2, 13}));
+    }
+
+    @Test
+    @DisplayName("타일 API: If-None-Match가 현재 버전과 같으면 다시 그리지 않고 304")
+    @WithMockUser
+    void getTile_ShouldReturnNotModified_WhenEtagMatches() throws Exception {
+        // given
+        given(tileService.isReady()).willReturn(true);
+        given(tileService.currentVersion(1, 2)).willReturn(7L);
+        given(tileService.etag(1, 2, 7L, TileService.Format.PNG)).willReturn("\"e-7-png\"");
+
+        // when & then
+        mockMvc.perform(get("/api/tiles/1/2").param("format", "png").header(HttpHeaders.IF_NONE_MATCH, "\"e-7-png\""))
+                .andExpect(status().isNotModified());
+        verify(tileService, never()).render(anyInt(), anyInt(), eq(TileService.Format.PNG));
+    }
+
+    @Test
+    @DisplayName("타일 API: 캔버스 적재 전에는 503과 Retry-After")
+    @WithMockUser
+    void getTile_ShouldReturnUnavailable_BeforeCanvasLoaded() throws Exception {
+        given(tileService.isReady()).willReturn(false);
+
+        mockMvc.perform(get("/api/tiles/0/0"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    @DisplayName("변경분 API: since, epoch를 받아 변경된 칸만 열 배열 JSON으로 반환한다")
+    @WithMockUser
+    void getTileChanges_ShouldReturnDelta() throws Exception {
+        // given
+        given(tileService.isReady()).willReturn(true);
+        given(tileService.changesSince(3, 4, 99L, 10L))
+                .willReturn(new TileChangesResponse(99L, 12L, false, new int[]{65}, new int[]{2}));
+
+        // when & then
+        mockMvc.perform(get("/api/tiles/3/4/changes").param("since", "10").param("epoch", "99"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(12))
+                .andExpect(jsonPath("$.full").value(false))
+                .andExpect(jsonPath("$.cell[0]").value(65))
+                .andExpect(jsonPath("$.color[0]").value(2));
+    }
+}
@@ -0,0 +1,74 @@
+package com.thepixelwar.repository;
+
+import com.thepixelwar.entity.GuildEntity;
+import com.thepixelwar.entity.MemberEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pixelwar-guild;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class GuildRepositoryTest {
+
+    @Autowired
+    private GuildRepository guildRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Test
+    @DisplayName("길드원 수: 자리가 있을 때만 늘어나고, 0명일 때만 길드를 지운다")
+    void memberCount_ShouldRespectMaxAndEmptiness() {
+        // given
+        Long guildId = guildRepository.save(new GuildEntity("Red", "", "kakao_1")).getId();
+
+        // when & then: 최대 2명
+        assertThat(guildRepository.incrementMemberCount(guildId, 2)).isEqualTo(1);
+        assertThat(guildRepository.incrementMemberCount(guildId, 2)).isEqualTo(1);
+        assertThat(guildRepository.incrementMemberCount(guildId, 2)).isZero(); // 꽉 참
+
+        assertThat(guildRepository.deleteIfEmpty(guildId)).isZero(); // 아직 2명
+        guildRepository.decrementMemberCount(guildId);
+        guildRepository.decrementMemberCount(guildId);
+        assertThat(guildRepository.decrementMemberCount(guildId)).isZero(); // 0 아래로는 안 내려감
+        assertThat(guildRepository.deleteIfEmpty(guildId)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("길드원 조회: 가장 먼저 가입한 길드원을 찾고, 길드원 수를 실제 길드원으로 다시 맞춘다")
+    void memberQueries_ShouldUseGuildIndex() {
+        // given: 길드원 수 컬럼은 0인 채로 길드원 2명 (컬럼이 새로 생긴 상황)
+        GuildEntity guild = guildRepository.save(new GuildEntity("Blue", "", "kakao_1"));
+        MemberEntity first = new MemberEntity("kakao_1", "UserA");
+        MemberEntity second = new MemberEntity("kakao_2", "UserB");
+        first.joinGuild(guild);
+        second.joinGuild(guild);
+        memberRepository.save(first);
+        memberRepository.save(second);
+        memberRepository.save(new MemberEntity("kakao_3", "Loner"));
+        memberRepository.flush();
+
+        // when
+        guildRepository.syncMemberCounts();
+        testEntityManager.clear();
+
+        // then
+        assertThat(memberRepository.findFirstByGuildOrderByIdAsc(guild)).get()
+                .extracting(MemberEntity::getProviderId).isEqualTo("kakao_1");
+        assertThat(guildRepository.findById(guild.getId())).get()
+                .extracting(GuildEntity::getMemberCount).isEqualTo(2);
+    }
+}
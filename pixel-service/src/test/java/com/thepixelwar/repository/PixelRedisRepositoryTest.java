@@ -0,0 +1,119 @@
+package com.thepixelwar.repository;
+
+import com.thepixelwar.canvas.CanvasStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PixelRedisRepositoryTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private Cursor<String> cursor;
+
+    @InjectMocks
+    private PixelRedisRepository pixelRedisRepository;
+
+    @Test
+    @DisplayName("키 배치: 32×32 청크마다 해시 태그 키 하나, 음수 좌표도 같은 청크 안 오프셋으로")
+    void chunkKeyAndField_ShouldGroupCellsByChunk() {
+        assertThat(PixelRedisRepository.chunkKey(0, 0)).isEqualTo("pixel:{0:0}");
+        assertThat(PixelRedisRepository.chunkKey(31, 31)).isEqualTo("pixel:{0:0}");
+        assertThat(PixelRedisRepository.chunkKey(32, -1)).isEqualTo("pixel:{1:-1}");
+
+        assertThat(PixelRedisRepository.field(0, 0)).isEqualTo("0");
+        assertThat(PixelRedisRepository.field(1, 2)).isEqualTo("34");
+        assertThat(PixelRedisRepository.field(-1, -1)).isEqualTo("1023"); // 청크 (-1, -1)의 마지막 칸
+    }
+
+    @Test
+    @DisplayName("단건 저장/조회: 청크 해시의 필드 하나만 읽고 쓴다")
+    void saveAndFindColor_ShouldUseChunkHashField() {
+        // given
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.get("pixel:{3906:13281}", "328")).thenReturn("13");
+
+        // when
+        pixelRedisRepository.save(125002, 425000, 6);
+        int color = pixelRedisRepository.findColor(125002, 425000);
+
+        // then
+        verify(hashOperations).put("pixel:{3906:13281}", "328", "6");
+        assertThat(color).isEqualTo(13);
+    }
+
+    @Test
+    @DisplayName("영역 조회: 걸친 청크의 해시를 한 파이프라인으로 읽고 범위 밖 칸은 걸러낸다")
+    @SuppressWarnings("unchecked")
+    void findByArea_ShouldFilterCellsOutsideBounds() {
+        // given: (30..33) × (0..1) → 청크 (0,0), (1,0) 두 개
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(
+                Map.of("960", "2", "992", "6"),   // (30, 0), (31, 0)
+                Map.of("0", "13", "65", "27")));  // (32, 0), (34, 1) ← x 범위 밖
+
+        // when
+        List<String> visited = new ArrayList<>();
+        boolean found = pixelRedisRepository.findByArea(30, 33, 0, 1,
+                (x, y, color, userId) -> visited.add(x + ":" + y + ":" + color));
+
+        // then
+        assertThat(found).isTrue();
+        assertThat(visited).containsExactlyInAnyOrder("30:0:2", "31:0:6", "32:0:13");
+    }
+
+    @Test
+    @DisplayName("영역 조회: 청크가 너무 많이 걸치면 Redis를 읽지 않고 false")
+    void findByArea_ShouldRefuse_WhenTooManyChunks() {
+        CanvasStore.CellVisitor visitor = (x, y, color, userId) -> { };
+
+        boolean found = pixelRedisRepository.findByArea(0, 32 * 64, 0, 32 * 64, visitor);
+
+        assertThat(found).isFalse();
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("예전 키 정리: pixel:x:y 문자열 키만 UNLINK하고, 청크 해시/락/표시 키는 남긴 뒤 완료 표시를 남긴다")
+    void deleteLegacyKeys_ShouldUnlinkOnlyPerCellKeys() {
+        // given
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, true, true, false);
+        when(cursor.next()).thenReturn("pixel:125000:-425000", "pixel:{3906:13281}", "pixel:lock:42", "pixel:seeded", "pixel:-1:7");
+        when(redisTemplate.unlink(List.of("pixel:125000:-425000", "pixel:-1:7"))).thenReturn(2L);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        // when
+        long deleted = pixelRedisRepository.deleteLegacyKeys();
+
+        // then
+        assertThat(deleted).isEqualTo(2);
+        verify(redisTemplate, times(1)).unlink(anyList());
+        verify(valueOperations).set(eq(PixelRedisRepository.LEGACY_CLEANED_KEY), anyString());
+        verify(cursor).close();
+    }
+}
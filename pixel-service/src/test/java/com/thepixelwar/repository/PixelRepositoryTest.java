@@ -1,34 +1,49 @@
 package com.thepixelwar.repository;
 
+import com.thepixelwar.canvas.CanvasGrid;
 import com.thepixelwar.entity.PixelEntity;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest // JPA 관련 설정만 로드해서 가벼운 DB 테스트 진행
+// JPA 관련 설정만 로드해서 가벼운 DB 테스트 진행 (upsert 문법을 위해 H2를 MySQL 모드로 실행)
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pixelwar;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Import(PixelRepository.class)
 class PixelRepositoryTest {
 
     @Autowired
     private PixelRepository pixelRepository;
 
+    @Autowired
+    private TestEntityManager testEntityManager;
+
     @Test
     @DisplayName("영역 조회: 지정된 범위(min, max) 안에 있는 픽셀만 정확히 조회되어야 한다")
     void findByArea_ShouldReturnOnlyPixelsInBounds() {
         // given (데이터 준비)
         // 범위 안에 들어갈 픽셀 (Target)
-        PixelEntity inside1 = new PixelEntity(100, 100, "red", "user1");
-        PixelEntity inside2 = new PixelEntity(150, 150, "blue", "user2");
+        PixelEntity inside1 = new PixelEntity(100, 100, 2, "user1");
+        PixelEntity inside2 = new PixelEntity(150, 150, 13, "user2");
 
         // 범위 밖에 있는 픽셀 (Noise) -> 조회되면 안 됨!
-        PixelEntity outside1 = new PixelEntity(50, 50, "green", "user3");   // 너무 작음
-        PixelEntity outside2 = new PixelEntity(200, 200, "black", "user4"); // 너무 큼
+        PixelEntity outside1 = new PixelEntity(50, 50, 6, "user3");   // 너무 작음
+        PixelEntity outside2 = new PixelEntity(200, 200, 27, "user4"); // 너무 큼
 
         pixelRepository.save(inside1);
         pixelRepository.save(inside2);
@@ -51,4 +66,91 @@ class PixelRepositoryTest {
         assertThat(result).extracting("userId")
                 .doesNotContain("user3", "user4");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("배치 upsert: 같은 좌표는 한 줄만 남고 마지막 값으로 덮어써져야 한다")
+    void upsertAll_ShouldKeepOneRowPerCoordinate() {
+        // given: 이미 (10, 10)을 user1이 차지
+        pixelRepository.save(new PixelEntity(10, 10, 2, "user1"));
+
+        // when: (10, 10)을 두 번, (20, 20)을 한 번 upsert
+        pixelRepository.upsertAll(List.of(
+                new PixelEntity(10, 10, 13, "user2"),
+                new PixelEntity(20, 20, 6, "user3"),
+                new PixelEntity(10, 10, 27, "user4")));
+
+        // then
+        Map<Long, String> owners = pixelRepository.findOwnersByCoords(List.of(
+                new PixelEntity(10, 10, 0, null),
+                new PixelEntity(20, 20, 0, null),
+                new PixelEntity(30, 30, 0, null)));
+
+        assertThat(owners).hasSize(2); // 빈 땅(30, 30)은 결과에 없음
+        assertThat(owners.get(CanvasGrid.key(10, 10))).isEqualTo("user4");
+        assertThat(owners.get(CanvasGrid.key(20, 20))).isEqualTo("user3");
+        assertThat(pixelRepository.findAll()).hasSize(2);
+        testEntityManager.clear(); // native upsert는 영속성 컨텍스트를 거치지 않으므로 DB에서 다시 읽음
+        assertThat(pixelRepository.findByCoords(10, 10).getColor()).isEqualTo(27); // 팔레트 인덱스로 저장
+    }
+
+    @Test
+    @DisplayName("영역 조회: 셀 키 구간 스캔으로 찾되, 구간에 섞인 사각형 밖 칸은 걸러낸다")
+    void findByArea_ShouldFilterCellsOutsideRanges() {
+        // given: 0을 가로지르는 사각형과 그 바로 바깥 칸들
+        pixelRepository.save(new PixelEntity(-1, -1, 2, "inside1"));
+        pixelRepository.save(new PixelEntity(3, 2, 2, "inside2"));
+        pixelRepository.save(new PixelEntity(4, 2, 2, "outside1"));  // x가 1 큼
+        pixelRepository.save(new PixelEntity(-1, -2, 2, "outside2")); // y가 1 작음
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        // when
+        List<PixelEntity> result = pixelRepository.findByArea(-1, 3, -1, 2);
+
+        // then
+        assertThat(result).extracting("userId").containsExactlyInAnyOrder("inside1", "inside2");
+        assertThat(pixelRepository.findByCoords(4, 2).getUserId()).isEqualTo("outside1");
+        assertThat(pixelRepository.findByCoords(4, 3)).isNull();
+    }
+
+    @Test
+    @DisplayName("전체 스캔: 목록 없이 cell_key(Z-order) 순서로 흘려보내서 같은 타일 칸이 연달아 나온다")
+    void scanAll_ShouldStreamInCellKeyOrder() {
+        // given: 두 타일 (0,0), (0,1)의 칸을 번갈아 저장
+        pixelRepository.save(new PixelEntity(0, 0, 2, "a"));
+        pixelRepository.save(new PixelEntity(0, 64, 6, "b"));
+        pixelRepository.save(new PixelEntity(63, 63, 13, "c"));
+        pixelRepository.save(new PixelEntity(1, 65, 27, "d"));
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        // when
+        List<String> visited = new ArrayList<>();
+        pixelRepository.scanAll(2, (x, y, color, userId) -> visited.add(userId + ":" + color));
+
+        // then
+        assertThat(visited).containsExactly("a:2", "c:13", "b:6", "d:27");
+    }
+
+    @Test
+    @DisplayName("주인 스캔: id 구간 [from, to)로 나눠 읽으면 구간끼리 겹치거나 빠지는 줄이 없다")
+    void scanOwners_ShouldSplitByIdRange() {
+        // given
+        for (int i = 0; i < 5; i++) pixelRepository.save(new PixelEntity(i, 0, 1, "user" + i));
+        testEntityManager.flush();
+        testEntityManager.clear();
+        long[] range = pixelRepository.findIdRange();
+
+        // when: 가운데에서 둘로 나눔
+        long middle = range[0] + 2;
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        pixelRepository.scanOwners(range[0], middle, 2, first::add);
+        pixelRepository.scanOwners(middle, range[1] + 1, 2, second::add);
+
+        // then
+        assertThat(range[1] - range[0]).isEqualTo(4);
+        assertThat(first).containsExactlyInAnyOrder("user0", "user1");
+        assertThat(second).containsExactlyInAnyOrder("user2", "user3", "user4");
+    }
+}
@@ -0,0 +1,108 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.dto.GuildRankResponse;
+import com.thepixelwar.entity.GuildEntity;
+import com.thepixelwar.entity.MemberEntity;
+import com.thepixelwar.repository.GuildRepository;
+import com.thepixelwar.repository.MemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GuildRankingServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private GuildRepository guildRepository;
+
+    @InjectMocks
+    private GuildRankingService guildRankingService;
+
+    @Test
+    @DisplayName("길드 랭킹: 매핑이 없던 유저는 DB 조회 1번으로 길드(없으면 \"\")를 채운다")
+    void attach_ShouldResolveGuildsInOneQuery() {
+        // given: UserA는 7번 길드, UserB는 길드 없음, UserC는 멤버 정보 없음
+        MemberEntity userA = new MemberEntity("kakao_1", "UserA");
+        userA.joinGuild(guild(7L, "Red"));
+        when(memberRepository.findAllWithGuildByNicknameIn(List.of("UserA", "UserB", "UserC")))
+                .thenReturn(List.of(userA, new MemberEntity("kakao_2", "UserB")));
+
+        // when
+        guildRankingService.attach(List.of("UserA", "UserB", "UserC"));
+
+        // then
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(),
+                eq(List.of(RankingService.RANKING_KEY, GuildRankingService.GUILD_RANKING_KEY, GuildRankingService.GUILD_OF_KEY)),
+                eq("UserA"), eq("7"), eq("UserB"), eq(""), eq("UserC"), eq(""));
+    }
+
+    @Test
+    @DisplayName("길드 랭킹: Top 10을 점수 순서대로 이름과 함께 돌려준다")
+    @SuppressWarnings("unchecked")
+    void getTopGuilds_ShouldAttachNames() {
+        // given
+        ZSetOperations<String, String> zSetOperations = mock(ZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        Set<ZSetOperations.TypedTuple<String>> top = new LinkedHashSet<>();
+        top.add(new DefaultTypedTuple<>("7", 120.0));
+        top.add(new DefaultTypedTuple<>("3", 40.0));
+        when(zSetOperations.reverseRangeWithScores(GuildRankingService.GUILD_RANKING_KEY, 0, 9)).thenReturn(top);
+        when(guildRepository.findAllById(List.of(7L, 3L))).thenReturn(List.of(guild(3L, "Blue"), guild(7L, "Red")));
+
+        // when
+        List<GuildRankResponse> ranks = guildRankingService.getTopGuilds();
+
+        // then
+        assertThat(ranks).containsExactly(
+                new GuildRankResponse(1, 7L, "Red", 120),
+                new GuildRankResponse(2, 3L, "Blue", 40));
+    }
+
+    @Test
+    @DisplayName("유저 랭킹 반영: 스크립트가 매핑 없다고 돌려준 유저만 길드 매핑을 채운다")
+    void applyDeltas_ShouldAttachUnmappedUsers() {
+        // given
+        GuildRankingService guildRanking = mock(GuildRankingService.class);
+        RankingService rankingService = new RankingService(redisTemplate, guildRanking);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<List>>any(), anyList(), eq("0"), any(), any(), any(), any()))
+                .thenReturn(List.of("UserB")); // 오프셋 없음("0") + 유저 2명
+        RankingDeltaAccumulator deltas = new RankingDeltaAccumulator();
+        deltas.increase("UserA");
+        deltas.decrease("UserB");
+
+        // when
+        rankingService.applyDeltas(deltas);
+
+        // then
+        verify(guildRanking).attach(List.of("UserB"));
+    }
+
+    private static GuildEntity guild(Long id, String name) {
+        GuildEntity guild = new GuildEntity(name, "", "kakao_1");
+        ReflectionTestUtils.setField(guild, "id", id);
+        return guild;
+    }
+}
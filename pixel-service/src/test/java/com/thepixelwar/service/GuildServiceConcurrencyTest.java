@@ -0,0 +1,141 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.dto.GuildCreateRequest;
+import com.thepixelwar.entity.GuildEntity;
+import com.thepixelwar.entity.MemberEntity;
+import com.thepixelwar.repository.GuildRepository;
+import com.thepixelwar.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 스레드마다 자기 트랜잭션으로 커밋해야 하므로 테스트 트랜잭션은 끔
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pixelwar-guild-concurrency;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(GuildService.class)
+class GuildServiceConcurrencyTest {
+
+    private static final int JOINERS = GuildService.MAX_MEMBERS + 10;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private GuildService guildService;
+    @Autowired
+    private GuildRepository guildRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @MockBean
+    private GuildRankingService guildRankingService;
+    @MockBean
+    private TerritoryService territoryService;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAll();
+        guildRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("동시성 테스트: 길드장이 나가는 동안 여럿이 가입/탈퇴해도 길드원 수는 최대를 넘지 않고, 길드원이 있는 길드는 지워지지 않는다")
+    void joinAndLeave_ShouldKeepMemberCountConsistent() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            // given: 길드장 혼자인 길드
+            String prefix = "r" + round + "_";
+            assertThat(guildService.createGuild(new GuildCreateRequest(prefix + "Red", ""), prefix + "master", prefix + "Master"))
+                    .isEqualTo("SUCCESS");
+            Long guildId = guildRepository.findByName(prefix + "Red").orElseThrow().getId();
+
+            // when: 길드장 탈퇴와 동시에 MAX_MEMBERS보다 많은 유저가 가입 (일부는 가입하자마자 탈퇴)
+            Queue<String> joins = new ConcurrentLinkedQueue<>();
+            Queue<String> leaves = new ConcurrentLinkedQueue<>();
+            Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+            ExecutorService executorService = Executors.newFixedThreadPool(16);
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(JOINERS + 1);
+
+            executorService.submit(() -> run(start, done, errors, () -> leaves.add(guildService.leaveGuild(prefix + "master"))));
+            for (int i = 0; i < JOINERS; i++) {
+                String providerId = prefix + "kakao_" + i;
+                boolean leaveAfterJoin = i % 3 == 0;
+                executorService.submit(() -> run(start, done, errors, () -> {
+                    String result = join(guildId, providerId);
+                    joins.add(result);
+                    if (result.equals("SUCCESS") && leaveAfterJoin) leaves.add(guildService.leaveGuild(providerId));
+                }));
+            }
+            start.countDown();
+            assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+            executorService.shutdown();
+
+            // then
+            assertThat(errors).as("round %d", round).isEmpty();
+            assertThat(joins).as("round %d", round).allMatch(result -> List.of("SUCCESS", "GUILD_FULL", "GUILD_NOT_FOUND").contains(result));
+
+            long members = countMembers(guildId);
+            long joined = joins.stream().filter("SUCCESS"::equals).count();
+            long left = leaves.stream().filter(result -> result.equals("SUCCESS") || result.equals("GUILD_DELETED")).count();
+            assertThat(members).as("round %d", round).isEqualTo(1 + joined - left);
+
+            Optional<GuildEntity> guild = guildRepository.findById(guildId);
+            if (guild.isPresent()) {
+                assertThat(guild.get().getMemberCount()).as("round %d", round).isEqualTo(members).isLessThanOrEqualTo(GuildService.MAX_MEMBERS);
+                assertThat(members).as("round %d: 남은 길드는 비어 있지 않음", round).isPositive();
+            } else {
+                assertThat(members).as("round %d: 지워진 길드에 남은 길드원", round).isZero();
+                assertThat(leaves).contains("GUILD_DELETED");
+            }
+        }
+    }
+
+    // 가입 전에 길드가 지워졌으면 findById에서 없다고 던짐 → 가입 중에 지워진 경우와 같은 결과로 셈
+    private String join(Long guildId, String providerId) {
+        try {
+            return guildService.joinGuild(guildId, providerId, providerId);
+        } catch (IllegalArgumentException e) {
+            return "GUILD_NOT_FOUND";
+        }
+    }
+
+    private long countMembers(Long guildId) {
+        return memberRepository.findAll().stream()
+                .map(MemberEntity::getGuild)
+                .filter(guild -> guild != null && guild.getId().equals(guildId))
+                .count();
+    }
+
+    private static void run(CountDownLatch start, CountDownLatch done, Queue<Throwable> errors, Runnable task) {
+        try {
+            start.await();
+            task.run();
+        } catch (Throwable e) {
+            errors.add(e);
+        } finally {
+            done.countDown();
+        }
+    }
+}
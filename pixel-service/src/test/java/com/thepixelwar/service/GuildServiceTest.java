@@ -0,0 +1,70 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.entity.GuildEntity;
+import com.thepixelwar.entity.MemberEntity;
+import com.thepixelwar.repository.GuildRepository;
+import com.thepixelwar.repository.MemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GuildServiceTest {
+
+    @Mock
+    private GuildRepository guildRepository;
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private GuildRankingService guildRankingService;
+    @Mock
+    private TerritoryService territoryService;
+
+    @InjectMocks
+    private GuildService guildService;
+
+    @Test
+    @DisplayName("길드 가입: 자리를 못 잡았는데 길드가 그 사이 지워졌으면 GUILD_FULL이 아니라 GUILD_NOT_FOUND")
+    void joinGuild_ShouldReportNotFound_WhenGuildDeletedMeanwhile() {
+        // given: 길드를 읽은 뒤 마지막 길드원이 나가서 지워짐
+        MemberEntity member = new MemberEntity("kakao_1", "UserA");
+        when(memberRepository.findForUpdateByProviderId("kakao_1")).thenReturn(Optional.of(member));
+        when(guildRepository.findById(7L)).thenReturn(Optional.of(new GuildEntity("Red", "", "kakao_2")));
+        when(guildRepository.incrementMemberCount(7L, GuildService.MAX_MEMBERS)).thenReturn(0);
+        when(guildRepository.findIdForShare(7L)).thenReturn(Optional.empty());
+
+        // when
+        String result = guildService.joinGuild(7L, "kakao_1", "UserA");
+
+        // then
+        assertThat(result).isEqualTo("GUILD_NOT_FOUND");
+        assertThat(member.getGuild()).isNull();
+        verifyNoInteractions(guildRankingService, territoryService);
+    }
+
+    @Test
+    @DisplayName("길드 가입: 길드가 있는데 자리를 못 잡았으면 GUILD_FULL")
+    void joinGuild_ShouldReportFull_WhenNoSeatLeft() {
+        // given
+        MemberEntity member = new MemberEntity("kakao_1", "UserA");
+        when(memberRepository.findForUpdateByProviderId("kakao_1")).thenReturn(Optional.of(member));
+        when(guildRepository.findById(7L)).thenReturn(Optional.of(new GuildEntity("Red", "", "kakao_2")));
+        when(guildRepository.incrementMemberCount(7L, GuildService.MAX_MEMBERS)).thenReturn(0);
+        when(guildRepository.findIdForShare(7L)).thenReturn(Optional.of(7L));
+
+        // when
+        String result = guildService.joinGuild(7L, "kakao_1", "UserA");
+
+        // then
+        assertThat(result).isEqualTo("GUILD_FULL");
+        assertThat(member.getGuild()).isNull();
+    }
+}
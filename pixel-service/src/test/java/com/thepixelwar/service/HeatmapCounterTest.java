@@ -0,0 +1,69 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.canvas.CanvasGrid;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeatmapCounterTest {
+
+    @Test
+    @DisplayName("카운터: 여러 스레드가 동시에 세도 좌표별 합계가 맞고, drain하면 비워진다")
+    void add_ShouldCountConcurrently() throws InterruptedException {
+        // given
+        HeatmapCounter counter = new HeatmapCounter();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when: 스레드 8개가 좌표 1000개를 10번씩 (표가 여러 번 커지도록)
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int round = 0; round < 10; round++) {
+                    for (int i = 0; i < 1000; i++) counter.add(42, CanvasGrid.key(i, -i));
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // then
+        Map<Long, Integer> totals = totals(counter.drain());
+        assertThat(totals).hasSize(1000);
+        assertThat(totals.values()).allMatch(count -> count == 80);
+        assertThat(counter.drain()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("카운터: 분이 바뀌면 이전 분 몫은 따로 봉인되어 다른 분과 섞이지 않는다")
+    void add_ShouldSealPreviousMinute() {
+        // given
+        HeatmapCounter counter = new HeatmapCounter();
+        long cell = CanvasGrid.key(3, 4);
+
+        // when
+        counter.add(1, cell);
+        counter.add(1, cell);
+        counter.add(2, cell);
+
+        // then
+        List<HeatmapCounter.Batch> batches = counter.drain();
+        assertThat(batches).extracting(HeatmapCounter.Batch::minute).containsExactly(1L, 2L);
+        assertThat(batches.get(0).counts()).containsExactly(2);
+        assertThat(batches.get(1).counts()).containsExactly(1);
+    }
+
+    private static Map<Long, Integer> totals(List<HeatmapCounter.Batch> batches) {
+        Map<Long, Integer> totals = new HashMap<>();
+        for (HeatmapCounter.Batch batch : batches) {
+            for (int i = 0; i < batch.cells().length; i++) totals.merge(batch.cells()[i], batch.counts()[i], Integer::sum);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,177 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.dto.HeatmapResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HeatmapServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+    @Captor
+    private ArgumentCaptor<List<String>> others;
+
+    @InjectMocks
+    private HeatmapService heatmapService;
+
+    @Test
+    @DisplayName("링 회전: 다음 분 버킷을 비우고 지금 버킷에만 TTL을 건다 (분 번호 % 링 크기)")
+    void rotate_ShouldClearNextBucket() {
+        // given: 창 3분 → 링 5칸, 지금 = 9분 30초
+        ReflectionTestUtils.setField(heatmapService, "windowMinutes", 3);
+        long now = 9 * HeatmapService.BUCKET_MILLIS + 30_000;
+
+        // when
+        heatmapService.rotate(now);
+
+        // then
+        verify(redisTemplate).delete("heatmap:{ring}:0"); // 10분 → 10 % 5
+        verify(redisTemplate).expire("heatmap:{ring}:4", Duration.ofMinutes(5));
+        assertThat(heatmapService.bucketKey(-1)).isEqualTo("heatmap:{ring}:4"); // 음수 분도 링 안으로
+    }
+
+    @Test
+    @DisplayName("창 합치기: 최근 버킷부터 반감기에 따라 줄어드는 가중치로 ZUNIONSTORE 한다")
+    void merge_ShouldWeightBucketsByAge() {
+        // given: 창 3분, 반감기 1분, 지금 = 9분 30초 (지금 버킷 가운데)
+        ReflectionTestUtils.setField(heatmapService, "windowMinutes", 3);
+        ReflectionTestUtils.setField(heatmapService, "halfLifeMinutes", 1.0);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        long now = 9 * HeatmapService.BUCKET_MILLIS + 30_000;
+
+        // when
+        heatmapService.merge(now);
+
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Weights> weights = ArgumentCaptor.forClass(Weights.class);
+        verify(zSetOperations).unionAndStore(eq("heatmap:{ring}:4"), others.capture(), eq(HeatmapService.WINDOW_KEY),
+                eq(Aggregate.SUM), weights.capture());
+        assertThat(others.getValue()).containsExactly("heatmap:{ring}:3", "heatmap:{ring}:2");
+        assertThat(weights.getValue().getWeight(0)).isCloseTo(1.0, within(1e-9));
+        assertThat(weights.getValue().getWeight(1)).isCloseTo(0.5, within(1e-9));
+        assertThat(weights.getValue().getWeight(2)).isCloseTo(0.25, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("flush: 메모리에서 센 클릭을 분 버킷마다 좌표당 ZINCRBY 한 번으로 모아서 파이프라인으로 보낸다")
+    void flush_ShouldSendAggregatedIncrements() {
+        // given: 창 3분 → 링 5칸, 9분에 (1,2) 3번 + (-4,5) 1번, 10분에 (1,2) 1번, 창 밖인 5분에 1번
+        ReflectionTestUtils.setField(heatmapService, "windowMinutes", 3);
+        long minute = HeatmapService.BUCKET_MILLIS;
+        heatmapService.record(9 * minute, 1, 2);
+        heatmapService.record(9 * minute + 1, 1, 2);
+        heatmapService.record(9 * minute + 2, -4, 5);
+        heatmapService.record(9 * minute + 3, 1, 2);
+        heatmapService.record(10 * minute, 1, 2);
+        heatmapService.record(5 * minute, 7, 7);
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of();
+        });
+
+        // when
+        heatmapService.flush(10 * minute + 500);
+        heatmapService.flush(10 * minute + 1500); // 보낸 몫은 다시 보내지 않음
+
+        // then
+        verify(connection).zIncrBy("heatmap:{ring}:4", 3, "1:2");
+        verify(connection).zIncrBy("heatmap:{ring}:4", 1, "-4:5");
+        verify(connection).zIncrBy("heatmap:{ring}:0", 1, "1:2");
+        verifyNoMoreInteractions(connection);
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("조회: 미리 만든 응답이 TTL 안이면 Redis를 다시 읽지 않는다")
+    void snapshot_ShouldServeCachedResponse() {
+        // given
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRangeWithScores(HeatmapService.WINDOW_KEY, 0, 99999)).thenReturn(new LinkedHashSet<>());
+
+        // when
+        HeatmapResponse first = heatmapService.snapshot();
+        HeatmapResponse second = heatmapService.snapshot();
+
+        // then
+        assertThat(second).isSameAs(first);
+        verify(zSetOperations, times(1)).unionAndStore(anyString(), anyList(), anyString(), any(Aggregate.class), any(Weights.class));
+        verify(zSetOperations, times(1)).reverseRangeWithScores(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("응답 만들기: 상위 N개는 좌표 그대로, 전부는 거친 밀도 격자에 더한다")
+    void build_ShouldMaterializeTopCellsAndDensity() {
+        // given: 상위 2개만, 격자 한 칸 = 원본 100칸
+        ReflectionTestUtils.setField(heatmapService, "topN", 2);
+        ReflectionTestUtils.setField(heatmapService, "densityCellSize", 100);
+        Set<ZSetOperations.TypedTuple<String>> hottest = new LinkedHashSet<>(List.of(
+                ZSetOperations.TypedTuple.of("150:-20", 8.0),
+                ZSetOperations.TypedTuple.of("199:-99", 4.0),
+                ZSetOperations.TypedTuple.of("-1:250", 2.5)));
+
+        // when
+        HeatmapResponse response = heatmapService.build(1000L, hottest);
+
+        // then
+        assertThat(response.computedAt()).isEqualTo(1000L);
+        assertThat(response.score()).containsExactly(8.0f, 4.0f);
+        assertThat(response.lat()[0]).isCloseTo(150 * 0.0003, within(1e-9));
+        assertThat(response.lng()[1]).isCloseTo(-99 * 0.0003, within(1e-9));
+
+        // 밀도 격자는 점수가 있는 칸만 (처음 나온 순서대로)
+        HeatmapResponse.Density density = response.density();
+        assertThat(density.heat()).containsExactly(12.0f, 2.5f); // (150,-20) + (199,-99) / (-1, 250)
+        assertThat(density.lat()[0]).isCloseTo(100 * 0.0003, within(1e-9));
+        assertThat(density.lng()[0]).isCloseTo(-100 * 0.0003, within(1e-9));
+        assertThat(density.lat()[1]).isCloseTo(-100 * 0.0003, within(1e-9));
+        assertThat(density.lng()[1]).isCloseTo(200 * 0.0003, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("응답 만들기: 좌표가 아주 멀리 흩어져 있어도 밀도는 점수가 있는 칸 수만큼만 만든다")
+    void build_ShouldStaySparse_WhenCellsAreFarApart() {
+        // given: 격자 한 칸 = 원본 256칸, 두 좌표가 int 범위 양 끝에 (예전 경계 상자 방식이면 rows × cols가 넘침)
+        Set<ZSetOperations.TypedTuple<String>> hottest = new LinkedHashSet<>(List.of(
+                ZSetOperations.TypedTuple.of(Integer.MIN_VALUE + ":" + Integer.MIN_VALUE, 3.0),
+                ZSetOperations.TypedTuple.of(Integer.MAX_VALUE + ":" + Integer.MAX_VALUE, 1.0)));
+
+        // when
+        HeatmapResponse response = heatmapService.build(1000L, hottest);
+
+        // then
+        assertThat(response.density().heat()).containsExactly(3.0f, 1.0f);
+    }
+}
@@ -0,0 +1,97 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.dto.RankDiff;
+import com.thepixelwar.dto.RankResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LeaderboardPublisherTest {
+
+    @Mock
+    private RankingService rankingService;
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private LeaderboardPublisher leaderboardPublisher;
+
+    @Test
+    @DisplayName("리더보드: 버전이 그대로면 Top N을 다시 읽지 않고, 바뀐 순위만 변경분으로 보낸다")
+    void publish_ShouldSendOnlyChangedRanks() {
+        // given: 처음 읽은 목록은 보내지 않고 캐시만
+        when(rankingService.version()).thenReturn(3L);
+        when(rankingService.getTopRanks()).thenReturn(List.of(
+                new RankResponse(1, "UserA", 10), new RankResponse(2, "UserB", 5)));
+        leaderboardPublisher.publish();
+        leaderboardPublisher.publish(); // 버전 그대로 → 읽지 않음
+        verify(rankingService, times(1)).getTopRanks();
+        verifyNoInteractions(messagingTemplate);
+
+        // when: 2위 점수만 바뀌고 3위가 새로 들어옴
+        when(rankingService.version()).thenReturn(5L);
+        when(rankingService.getTopRanks()).thenReturn(List.of(
+                new RankResponse(1, "UserA", 10), new RankResponse(2, "UserB", 7), new RankResponse(3, "UserC", 1)));
+        leaderboardPublisher.publish();
+
+        // then
+        ArgumentCaptor<RankDiff> diff = ArgumentCaptor.forClass(RankDiff.class);
+        verify(messagingTemplate).convertAndSend(eq(LeaderboardPublisher.DESTINATION), diff.capture());
+        assertThat(diff.getValue().fromVersion()).isEqualTo(3);
+        assertThat(diff.getValue().version()).isEqualTo(5);
+        assertThat(diff.getValue().size()).isEqualTo(3);
+        assertThat(diff.getValue().changed()).extracting(RankResponse::getNickname).containsExactly("UserB", "UserC");
+        assertThat(leaderboardPublisher.snapshot().version()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("리더보드: 점수가 바뀌어도 Top N이 그대로면 보내지 않고 캐시 버전도 유지한다")
+    void publish_ShouldSkipWhenTopRanksUnchanged() {
+        // given
+        List<RankResponse> ranks = List.of(new RankResponse(1, "UserA", 10));
+        when(rankingService.getTopRanks()).thenReturn(ranks);
+        when(rankingService.version()).thenReturn(1L);
+        LeaderboardPublisher.Leaderboard first = leaderboardPublisher.snapshot(); // 캐시가 비어 있으면 바로 읽음
+
+        // when: Top N 밖의 점수만 바뀜
+        when(rankingService.version()).thenReturn(2L);
+        leaderboardPublisher.publish();
+
+        // then
+        assertThat(first.ranks()).isEqualTo(ranks);
+        assertThat(leaderboardPublisher.snapshot().version()).isEqualTo(1); // 클라이언트가 가진 버전과 이어지도록
+        verify(messagingTemplate, never()).convertAndSend(eq(LeaderboardPublisher.DESTINATION), any(Object.class));
+    }
+
+    @Test
+    @DisplayName("리더보드: Top N 읽기에 실패하면 같은 버전을 다음 주기에 다시 읽는다")
+    void publish_ShouldRetrySameVersion_WhenReadFails() {
+        // given: 버전 4의 첫 읽기는 실패
+        when(rankingService.version()).thenReturn(4L);
+        when(rankingService.getTopRanks())
+                .thenThrow(new IllegalStateException("redis down"))
+                .thenReturn(List.of(new RankResponse(1, "UserA", 10)));
+
+        // when
+        leaderboardPublisher.publish();
+        leaderboardPublisher.publish();
+
+        // then
+        verify(rankingService, times(2)).getTopRanks();
+        assertThat(leaderboardPublisher.snapshot().version()).isEqualTo(4);
+        assertThat(leaderboardPublisher.snapshot().ranks()).extracting(RankResponse::getNickname).containsExactly("UserA");
+    }
+}
@@ -0,0 +1,133 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.dto.PixelBatchMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PixelBroadcasterTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+    @Mock
+    private TileSubscriptionRegistry subscriptionRegistry;
+
+    @InjectMocks
+    private PixelBroadcaster pixelBroadcaster;
+
+    @Test
+    @DisplayName("배치 전송: 한 주기 안의 변경은 타일당 1프레임으로 묶이고, 같은 좌표는 마지막 값만 남는다")
+    void flush_ShouldSendOneFramePerTileWithLatestValue() {
+        // given: (0~63, 0~63)은 타일 0/0
+        when(subscriptionRegistry.hasSubscribers(anyInt(), anyInt())).thenReturn(true);
+        when(subscriptionRegistry.hasSubscribers(eq(TileSubscriptionRegistry.Format.JSON), anyInt(), anyInt())).thenReturn(true);
+        pixelBroadcaster.broadcast(1, 1, 2, "UserA"); // #FF4500
+        pixelBroadcaster.broadcast(2, 2, 6, "UserA"); // #00A368
+        pixelBroadcaster.broadcast(1, 1, 13, "UserB"); // #3690EA, 같은 좌표 덮어쓰기
+
+        // when
+        pixelBroadcaster.flush();
+
+        // then
+        ArgumentCaptor<PixelBatchMessage> frame = ArgumentCaptor.forClass(PixelBatchMessage.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/sub/pixel/tile/0/0"), frame.capture());
+        assertThat(frame.getValue().x()).containsExactly(1, 2);
+        assertThat(frame.getValue().color()).containsExactly("#3690EA", "#00A368"); // JSON에는 hex로 내보냄
+        assertThat(frame.getValue().userId()).containsExactly("UserB", "UserA");
+
+        // 비워진 뒤에는 보낼 것이 없어야 함
+        pixelBroadcaster.flush();
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    @DisplayName("배치 전송: 구독자가 없는 타일의 변경은 쌓지 않는다")
+    void broadcast_ShouldSkipTilesWithoutSubscribers() {
+        // given
+        when(subscriptionRegistry.hasSubscribers(anyInt(), anyInt())).thenReturn(false);
+
+        // when
+        pixelBroadcaster.broadcast(-1, 70, 2, "UserA");
+        pixelBroadcaster.flush();
+
+        // then
+        verify(subscriptionRegistry).hasSubscribers(-1, 1); // 음수 좌표도 아래로 내림
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    @DisplayName("배치 전송: 바이너리 토픽 구독자에게는 같은 변경을 PixelEventCodec 타일 프레임으로 보낸다")
+    void flush_ShouldSendBinaryFrame_WhenBinarySubscribersExist() {
+        // given: 타일 1/0은 바이너리 구독자만 있음
+        when(subscriptionRegistry.hasSubscribers(anyInt(), anyInt())).thenReturn(true);
+        when(subscriptionRegistry.hasSubscribers(eq(TileSubscriptionRegistry.Format.JSON), anyInt(), anyInt())).thenReturn(false);
+        when(subscriptionRegistry.hasSubscribers(eq(TileSubscriptionRegistry.Format.BINARY), anyInt(), anyInt())).thenReturn(true);
+        pixelBroadcaster.broadcast(65, 3, 3, "UserA");
+
+        // when
+        pixelBroadcaster.flush();
+
+        // then
+        ArgumentCaptor<byte[]> frame = ArgumentCaptor.forClass(byte[].class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/sub/pixel-bin/tile/1/0"), frame.capture());
+        verify(messagingTemplate, never()).convertAndSend(eq("/sub/pixel/tile/1/0"), any(Object.class));
+        // [ver][tileX][tileY][userCount=1][len=5]"UserA"[pixelCount=1][dx=1][dy=3][color=3][ref=0]
+        assertThat(frame.getValue()).hasSize(1 + 8 + 2 + 2 + 5 + 2 + 5);
+        assertThat(frame.getValue()).endsWith((byte) 1, (byte) 3, (byte) 3, (byte) 0, (byte) 0);
+    }
+
+    @Test
+    @DisplayName("배치 전송: 스케줄 flush가 보내는 중에 상한 초과 flush가 와도 먼저 꺼낸 배치가 먼저 나간다")
+    void flush_ShouldKeepBatchOrder_WhenFullFlushOverlapsScheduledFlush() throws Exception {
+        // given: 상한 1 → broadcast마다 바로 flush, 첫 전송은 풀어줄 때까지 멈춰 있음
+        ReflectionTestUtils.setField(pixelBroadcaster, "maxPending", 1);
+        when(subscriptionRegistry.hasSubscribers(anyInt(), anyInt())).thenReturn(true);
+        when(subscriptionRegistry.hasSubscribers(eq(TileSubscriptionRegistry.Format.JSON), anyInt(), anyInt())).thenReturn(true);
+        List<String> sentColors = new CopyOnWriteArrayList<>();
+        CountDownLatch firstSending = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            PixelBatchMessage message = invocation.getArgument(1);
+            if (sentColors.isEmpty() && firstSending.getCount() > 0) {
+                firstSending.countDown();
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            }
+            sentColors.add(message.color()[0]);
+            return null;
+        }).when(messagingTemplate).convertAndSend(eq("/sub/pixel/tile/0/0"), any(PixelBatchMessage.class));
+
+        // when: 같은 좌표를 빨강 → 파랑 순서로 칠함, 빨강 전송이 멈춰 있는 동안 파랑의 flush가 들어옴
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        executor.submit(() -> pixelBroadcaster.broadcast(1, 1, 2, "UserA")); // #FF4500
+        assertThat(firstSending.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.submit(() -> pixelBroadcaster.broadcast(1, 1, 13, "UserB")); // #3690EA
+        Thread.sleep(100);
+        releaseFirst.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        // then: 클라이언트가 마지막에 받는 색은 파랑이어야 함
+        assertThat(sentColors).containsExactly("#FF4500", "#3690EA");
+    }
+}
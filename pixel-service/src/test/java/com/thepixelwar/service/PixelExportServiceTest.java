@@ -0,0 +1,86 @@
+package com.thepixelwar.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.repository.PixelRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class PixelExportServiceTest {
+
+    private final PixelRepository pixelRepository = mock(PixelRepository.class);
+    private final CanvasStore canvasStore = new CanvasStore(pixelRepository);
+    private final PixelExportService exportService = new PixelExportService(canvasStore, pixelRepository, new ObjectMapper());
+
+    @Test
+    @DisplayName("JSON/NDJSON: 메모리 캔버스가 있으면 DB를 건드리지 않고 기존 응답 모양 그대로 스트리밍한다")
+    void export_ShouldWriteJsonFromCanvas() throws Exception {
+        // given
+        markCanvasLoaded();
+        canvasStore.set(1, 2, 2, "UserA");
+        canvasStore.set(1, 3, 31, "UserB");
+
+        // when
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        exportService.export(PixelExportService.Format.JSON, json);
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        exportService.export(PixelExportService.Format.NDJSON, ndjson);
+
+        // then
+        assertThat(new ObjectMapper().readTree(json.toByteArray()))
+                .hasSize(2)
+                .first().satisfies(node -> {
+                    assertThat(node.get("color").asText()).isEqualTo("#FF4500");
+                    assertThat(node.get("userId").asText()).isEqualTo("UserA");
+                });
+        String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).contains("\"userId\":\"UserB\"");
+        verifyNoInteractions(pixelRepository);
+    }
+
+    @Test
+    @DisplayName("BINARY: 캔버스 적재 전에는 DB 커서에서 읽고, 타일이 바뀔 때마다 길이 붙은 프레임 하나씩 쓴다")
+    void export_ShouldWriteTileFramesFromDatabase() throws Exception {
+        // given: DB가 cell_key 순서로 타일 (0,0) 두 칸, (0,1) 한 칸을 흘려줌
+        doAnswer(invocation -> {
+            CanvasStore.CellVisitor visitor = invocation.getArgument(1);
+            visitor.visit(0, 0, 2, "UserA");
+            visitor.visit(0, 1, 6, "UserA");
+            visitor.visit(0, 64, 13, "UserB");
+            return null;
+        }).when(pixelRepository).scanAll(anyInt(), any());
+
+        // when
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(PixelExportService.Format.BINARY, out);
+
+        // then: [len][ver][tx][ty][users][pixels] × 2
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        int firstLength = buffer.getInt();
+        assertThat(firstLength).isEqualTo(1 + 8 + 2 + (2 + 5) + 2 + 2 * 5);
+        buffer.position(buffer.position() + firstLength);
+        int secondLength = buffer.getInt();
+        buffer.get(); // 버전
+        assertThat(buffer.getInt()).isZero();
+        assertThat(buffer.getInt()).isEqualTo(1);
+        assertThat(4 + firstLength + 4 + secondLength).isEqualTo(out.size());
+    }
+
+    private void markCanvasLoaded() {
+        canvasStore.load(); // 빈 DB(mock)에서 적재 → ready
+        clearInvocations(pixelRepository);
+    }
+}
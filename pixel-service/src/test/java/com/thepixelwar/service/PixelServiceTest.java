@@ -1,12 +1,16 @@
 package com.thepixelwar.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.dto.PixelArea;
+import com.thepixelwar.dto.PixelEvent;
 import com.thepixelwar.dto.PixelRequest;
 import com.thepixelwar.entity.PixelEntity;
+import com.thepixelwar.repository.PixelRedisRepository;
 import com.thepixelwar.repository.PixelRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -14,12 +18,15 @@ import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -33,13 +40,17 @@ class PixelServiceTest {
     @Mock
     private StringRedisTemplate redisTemplate;
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
-    @Mock
-    private ObjectMapper objectMapper;
+    private KafkaTemplate<String, PixelEvent> kafkaTemplate;
     @Mock
     private ValueOperations<String, String> valueOperations; // Redis 값 조작용 Mock
     @Mock
     private RLock rLock; // Redisson 락 Mock
+    @Mock
+    private CanvasStore canvasStore; // 메모리 캔버스 Mock (기본: 적재 전 → DB 조회)
+    @Mock
+    private PixelRedisRepository pixelRedisRepository; // Redis 청크 해시 Mock (기본: 채워지기 전)
+    @Mock
+    private HeatmapService heatmapService; // 히트맵 버킷 Mock
 
     @InjectMocks
     private PixelService pixelService;
@@ -52,18 +63,87 @@ class PixelServiceTest {
         double minLat = 37.0; double maxLat = 38.0;
         double minLng = 127.0; double maxLng = 128.0;
 
-        PixelEntity pixel1 = new PixelEntity(375000, 1275000, "#FF0000", "User1");
-        PixelEntity pixel2 = new PixelEntity(376000, 1276000, "#00FF00", "User2");
+        PixelEntity pixel1 = new PixelEntity(125000, 425000, 2, "User1"); // 37.5 / 0.0003
+        PixelEntity pixel2 = new PixelEntity(125100, 425100, 6, "User2");
 
         when(pixelRepository.findByArea(anyInt(), anyInt(), anyInt(), anyInt()))
                 .thenReturn(List.of(pixel1, pixel2));
 
         // when
-        List<PixelRequest> result = pixelService.getPixelsInBounds(minLat, maxLat, minLng, maxLng);
+        List<PixelRequest> result = pixelService.getPixelsInBounds(minLat, maxLat, minLng, maxLng).pixels();
 
         // then
         assertThat(result).hasSize(2);
-        assertThat(result.get(0).lat()).isEqualTo(37.5);
+        assertThat(result.get(0).lat()).isCloseTo(37.5, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("영역 기반 조회: 메모리 캔버스가 적재되어 있으면 DB를 조회하지 않는다")
+    void getPixelsInBounds_ShouldUseCanvas_WhenReady() {
+        // given
+        when(canvasStore.isReady()).thenReturn(true);
+        doAnswer(invocation -> {
+            CanvasStore.CellVisitor visitor = invocation.getArgument(4);
+            visitor.visit(125000, 425000, 2, "User1");
+            return null;
+        }).when(canvasStore).forEachInBounds(anyInt(), anyInt(), anyInt(), anyInt(), any());
+
+        // when: 약 167 × 167칸 (요약 없이 그대로 줄 수 있는 넓이)
+        PixelArea area = pixelService.getPixelsInBounds(37.49, 37.54, 127.49, 127.54);
+        List<PixelRequest> result = area.pixels();
+
+        // then
+        assertThat(area.blockSize()).isEqualTo(1);
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).color()).isEqualTo("#FF4500"); // 응답에서만 hex로 변환
+        assertThat(result.get(0).userId()).isEqualTo("User1");
+        verify(canvasStore).forEachInBounds(eq(124966), eq(125134), eq(424966), eq(425134), any());
+        verifyNoInteractions(pixelRepository);
+    }
+
+    @Test
+    @DisplayName("영역 기반 조회: 범위가 넓으면 칸 수가 기준 안에 들어오는 요약 레벨로 조회한다")
+    void getPixelsInBounds_ShouldUseLodLevel_WhenZoomedOut() {
+        // given: 1도 × 1도 ≈ 3335 × 3335칸 → 16배씩 줄여서 65536칸 이하가 되는 레벨 2 (16 × 16칸 블록)
+        when(canvasStore.isReady()).thenReturn(true);
+        doAnswer(invocation -> {
+            CanvasStore.BlockVisitor visitor = invocation.getArgument(5);
+            visitor.visit(124992, 424992, 2, 100);
+            return null;
+        }).when(canvasStore).forEachBlockInBounds(anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), any());
+
+        // when
+        PixelArea area = pixelService.getPixelsInBounds(37.0, 38.0, 127.0, 128.0);
+
+        // then
+        assertThat(area.blockSize()).isEqualTo(16);
+        assertThat(area.pixels()).hasSize(1);
+        assertThat(area.pixels().get(0).lat()).isCloseTo(124992 * 0.0003, within(1e-9)); // 블록 시작 칸
+        assertThat(area.pixels().get(0).color()).isEqualTo("#FF4500");
+        verify(canvasStore).forEachBlockInBounds(eq(2), eq(123333), eq(126667), eq(423333), eq(426667), any());
+        verify(canvasStore, never()).forEachInBounds(anyInt(), anyInt(), anyInt(), anyInt(), any());
+        verifyNoInteractions(pixelRepository);
+    }
+
+    @Test
+    @DisplayName("영역 기반 조회: 캔버스 적재 전이라도 Redis 청크가 채워져 있으면 DB를 조회하지 않는다")
+    void getPixelsInBounds_ShouldUseRedis_WhenCanvasNotReadyAndSeeded() {
+        // given
+        when(pixelRedisRepository.isSeeded()).thenReturn(true);
+        when(pixelRedisRepository.findByArea(anyInt(), anyInt(), anyInt(), anyInt(), any())).thenAnswer(invocation -> {
+            CanvasStore.CellVisitor visitor = invocation.getArgument(4);
+            visitor.visit(125000, 425000, 2, null);
+            return true;
+        });
+
+        // when
+        List<PixelRequest> result = pixelService.getPixelsInBounds(37.0, 38.0, 127.0, 128.0).pixels();
+
+        // then
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).color()).isEqualTo("#FF4500");
+        assertThat(result.get(0).userId()).isNull(); // Redis에는 주인 정보가 없음
+        verifyNoInteractions(pixelRepository);
     }
 
     // --- [신규 추가] 픽셀 찍기 성공 테스트 ---
@@ -71,7 +151,7 @@ class PixelServiceTest {
     @DisplayName("픽셀 업데이트: 락을 획득하면 Redis저장 및 Kafka전송 후 '성공'을 반환한다")
     void updatePixel_ShouldReturnSuccess_WhenLockAcquired() throws Exception {
         // given
-        PixelRequest request = new PixelRequest(37.5, 127.5, "#FF0000", "User1");
+        ReflectionTestUtils.setField(pixelService, "placementMode", PixelService.PlacementMode.LOCK);
 
         // 1. Redisson 락 설정
         when(redissonClient.getLock(anyString())).thenReturn(rLock);
@@ -85,18 +165,16 @@ class PixelServiceTest {
         // 3. Redis 설정
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
 
-        // 4. JSON 변환 설정
-        when(objectMapper.writeValueAsString(any())).thenReturn("jsonString");
-
         // when
-        String result = pixelService.updatePixel(request);
+        String result = pixelService.updatePixel(37.5, 127.5, 2, "User1");
 
         // then
         assertThat(result).isEqualTo("성공");
 
         // verify
-        verify(valueOperations).set(anyString(), eq("#FF0000"));
-        verify(kafkaTemplate).send(eq("pixel-updates"), anyString());
+        verify(pixelRedisRepository).save(125000, 425000, 2); // Redis에는 팔레트 인덱스만
+        verify(heatmapService).record(125000, 425000); // 히트맵은 메모리에서만 +1 (Redis 반영은 주기적으로)
+        verify(kafkaTemplate).send(eq("pixel-updates"), anyString(), any(PixelEvent.class));
         verify(rLock).unlock(); // 이제 이 부분이 통과될 것입니다!
     }
 
@@ -105,7 +183,7 @@ class PixelServiceTest {
     @DisplayName("픽셀 업데이트: 락 획득에 실패하면 로직을 수행하지 않고 '실패'를 반환한다")
     void updatePixel_ShouldReturnFail_WhenLockFailed() throws InterruptedException {
         // given
-        PixelRequest request = new PixelRequest(37.5, 127.5, "#FF0000", "User1");
+        ReflectionTestUtils.setField(pixelService, "placementMode", PixelService.PlacementMode.LOCK);
 
         // 락 설정
         when(redissonClient.getLock(anyString())).thenReturn(rLock);
@@ -113,13 +191,63 @@ class PixelServiceTest {
         when(rLock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(false);
 
         // when
-        String result = pixelService.updatePixel(request);
+        String result = pixelService.updatePixel(37.5, 127.5, 2, "User1");
 
         // then
-        assertThat(result).isEqualTo("실패");
+        assertThat(result).isEqualTo("다른 사람이 작업 중입니다.");
 
         // [중요 검증] 로직이 실행되지 않아야 함
         verify(redisTemplate, never()).opsForValue(); // Redis 접근 안 했어야 함
-        verify(kafkaTemplate, never()).send(anyString(), anyString()); // Kafka 전송 안 했어야 함
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(PixelEvent.class)); // Kafka 전송 안 했어야 함
+    }
+
+    // --- [신규 추가] 스크립트 방식 성공 테스트 ---
+    @Test
+    @DisplayName("픽셀 업데이트(스크립트): 스크립트가 0을 반환하면 락 없이 Kafka 전송 후 '성공'을 반환한다")
+    void updatePixel_ShouldReturnSuccess_WhenScriptPasses() throws Exception {
+        // given
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(List.of("cooldown:User1")), any())).thenReturn(0L); // 쿨타임 키 하나만
+
+        // when
+        String result = pixelService.updatePixel(37.5, 127.5, 2, "User1");
+
+        // then
+        assertThat(result).isEqualTo("성공");
+        verify(kafkaTemplate).send(eq("pixel-updates"), eq("125000:425000"), // 좌표를 Kafka 키로 사용
+                argThat(event -> event.x() == 125000 && event.y() == 425000 && event.color() == 2));
+        verify(redissonClient, never()).getLock(anyString()); // 분산 락을 사용하지 않아야 함
+        verify(redisTemplate, never()).getExpire(anyString(), any(TimeUnit.class)); // 쿨타임도 스크립트 안에서 확인
+        verify(pixelRedisRepository).save(125000, 425000, 2); // 청크 HSET은 스크립트가 통과한 뒤 단일 키로
+        verify(heatmapService).record(125000, 425000); // 히트맵은 스크립트 밖에서 메모리로만 셈
+    }
+
+    // --- [신규 추가] 스크립트 방식 쿨타임 테스트 ---
+    @Test
+    @DisplayName("픽셀 업데이트(스크립트): 쿨타임이 남아있으면 Kafka 전송 없이 남은 시간을 반환한다")
+    void updatePixel_ShouldReturnCooldown_WhenScriptReturnsTtl() throws Exception {
+        // given
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any())).thenReturn(3L);
+
+        // when
+        String result = pixelService.updatePixel(37.5, 127.5, 2, "User1");
+
+        // then
+        assertThat(result).isEqualTo("쿨타임이 3초 남았습니다!");
+        verify(pixelRedisRepository, never()).save(anyInt(), anyInt(), anyInt());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(PixelEvent.class));
+        verifyNoInteractions(heatmapService);
+    }
+
+    @Test
+    @DisplayName("픽셀 업데이트: 지도 밖 좌표(또는 NaN)는 Redis/Kafka에 닿기 전에 거절한다")
+    void updatePixel_ShouldReject_WhenOffMap() {
+        // when
+        String result = pixelService.updatePixel(1e9, 127.5, 2, "User1");
+        String nan = pixelService.updatePixel(37.5, Double.NaN, 2, "User1");
+
+        // then
+        assertThat(result).isEqualTo("지도 밖 좌표입니다.");
+        assertThat(nan).isEqualTo("지도 밖 좌표입니다.");
+        verifyNoInteractions(redisTemplate, kafkaTemplate, heatmapService);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.thepixelwar.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankingDeltaAccumulatorTest {
+
+    @Test
+    @DisplayName("누적기: 표가 여러 번 커져도 유저별 순 변화량이 맞고, 0인 유저는 빠지며 drain하면 비워진다")
+    void drain_ShouldSumPerUserAcrossRehash() {
+        // given: 유저 1000명 (초기 크기 64를 넘겨 여러 번 다시 해싱)
+        RankingDeltaAccumulator accumulator = new RankingDeltaAccumulator();
+        for (int round = 0; round < 3; round++) {
+            for (int u = 0; u < 1000; u++) accumulator.increase("user_" + u);
+        }
+        accumulator.decrease("user_7");
+        for (int i = 0; i < 3; i++) accumulator.decrease("user_8");
+
+        // when
+        Map<String, Long> deltas = accumulator.drain();
+
+        // then
+        assertThat(deltas).hasSize(999).doesNotContainKey("user_8");
+        assertThat(deltas).containsEntry("user_0", 3L).containsEntry("user_7", 2L).containsEntry("user_999", 3L);
+        assertThat(accumulator.isEmpty()).isTrue();
+
+        // 비운 뒤 다시 써도 이전 슬롯이 남아있지 않아야 함
+        accumulator.decrease("user_5");
+        assertThat(accumulator.drain()).containsExactly(Map.entry("user_5", -1L));
+    }
+}
@@ -0,0 +1,106 @@
+package com.thepixelwar.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RankingDeltaConcurrencyTest {
+
+    @Autowired
+    private RankingService rankingService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private static final String RANKING_KEY = "pixel-war:ranking";
+    private static final int USER_COUNT = 20;
+    private static final int EVENT_COUNT = 5000;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.delete(RANKING_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisTemplate.delete(RANKING_KEY);
+    }
+
+    @Test
+    @DisplayName("누적기 테스트: 32개 스레드의 이벤트별 반영과, 같은 이벤트를 누적해 한 번에 반영한 점수가 정확히 같아야 한다.")
+    void accumulatedDeltasMatchPerEventPath() throws InterruptedException {
+        // Given: 고정 시드로 만든 땅 뺏기 이벤트 (loser == null 이면 빈 땅 점령)
+        Random random = new Random(42);
+        String[] winners = new String[EVENT_COUNT];
+        String[] losers = new String[EVENT_COUNT];
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            winners[i] = "user_" + random.nextInt(USER_COUNT);
+            losers[i] = random.nextBoolean() ? null : "user_" + random.nextInt(USER_COUNT);
+        }
+
+        // 1. 이벤트별 경로: 이벤트마다 ZINCRBY
+        runConcurrently(i -> {
+            if (losers[i] != null) rankingService.decreaseScore(losers[i]);
+            rankingService.increaseScore(winners[i]);
+        });
+        Map<String, Double> perEventScores = readScores();
+
+        redisTemplate.delete(RANKING_KEY);
+
+        // 2. 누적 경로: 컨슈머 배치처럼 스레드 하나가 누적기에 더한 뒤 파이프라인 1회로 반영
+        RankingDeltaAccumulator accumulator = new RankingDeltaAccumulator();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            if (losers[i] != null) accumulator.decrease(losers[i]);
+            accumulator.increase(winners[i]);
+        }
+        rankingService.applyDeltas(accumulator);
+        Map<String, Double> accumulatedScores = readScores();
+
+        // Then: 모든 유저의 점수가 같아야 하고, 누적기는 비워져 있어야 함
+        assertThat(accumulatedScores).isEqualTo(perEventScores);
+        assertThat(accumulator.isEmpty()).isTrue();
+    }
+
+    private void runConcurrently(IntConsumer event) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(EVENT_COUNT);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            int index = i;
+            executorService.submit(() -> {
+                try {
+                    event.accept(index);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executorService.shutdown();
+    }
+
+    // 점수가 0인 유저는 이벤트별 경로에서만 ZSET에 남으므로 비교에서 제외
+    private Map<String, Double> readScores() {
+        Map<String, Double> scores = new HashMap<>();
+        for (int u = 0; u < USER_COUNT; u++) {
+            String userId = "user_" + u;
+            Double score = redisTemplate.opsForZSet().score(RANKING_KEY, userId);
+            if (score != null && score != 0) scores.put(userId, score);
+        }
+        return scores;
+    }
+}
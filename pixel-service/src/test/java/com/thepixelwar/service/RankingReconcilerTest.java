@@ -0,0 +1,196 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.repository.PixelRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RankingReconcilerTest {
+
+    private static final List<String> BEGIN_KEYS = List.of(RankingService.REBUILD_FLAG_KEY, RankingService.REBUILD_KEY);
+    private static final List<String> SWAP_KEYS = List.of(RankingService.REBUILD_KEY, RankingService.RANKING_KEY,
+            RankingService.REBUILD_FLAG_KEY, RankingService.VERSION_KEY,
+            GuildRankingService.GUILD_RANKING_KEY, GuildRankingService.GUILD_OF_KEY);
+
+    @Mock
+    private PixelRepository pixelRepository;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+    @Mock
+    private Cursor<ZSetOperations.TypedTuple<String>> cursor;
+
+    // 가짜 Redis ZSET (키 → 멤버 → 점수), 길드 매핑 해시 (userId → guildId)
+    private final Map<String, Map<String, Double>> zsets = new ConcurrentHashMap<>();
+    private final Map<String, String> guildOf = new HashMap<>();
+    // SWAP 스크립트에 넘긴 어긋난 유저
+    private final List<Object> swappedUsers = new ArrayList<>();
+
+    @Test
+    @DisplayName("랭킹 재계산: 점수가 다른 유저 수와 차이의 합을 센다")
+    void drift_ShouldCountDifferences() {
+        RankingReconciler.Drift drift = new RankingReconciler.Drift();
+
+        drift.add("UserA", 10, 10);
+        drift.add("UserB", 5, 7);
+        drift.add("Ghost", 3, 0); // 지금 랭킹에만 있음
+
+        assertThat(drift.drifted).isEqualTo(2);
+        assertThat(drift.total).isEqualTo(5);
+        assertThat(drift.users).containsExactly("UserB", "Ghost"); // 길드 점수를 보정할 유저
+    }
+
+    @Test
+    @DisplayName("랭킹 재계산: id 구간별로 나눠 센 값을 합쳐 표시 뒤 쌓인 변화량 위에 얹고, 바꿔 끼운 뒤 버전을 올리며 어긋남을 보고한다")
+    void reconcile_ShouldSwapRebuiltScoresOnTopOfAccumulatedDeltas() {
+        // given: DB 정답 UserA 3칸, UserB 2칸 / 지금 랭킹은 UserA가 1 많고, 픽셀 없는 Ghost가 3점
+        zsets.put(RankingService.RANKING_KEY, new ConcurrentHashMap<>(Map.of("UserA", 4.0, "UserB", 2.0, "Ghost", 3.0)));
+        zsets.put(GuildRankingService.GUILD_RANKING_KEY, new ConcurrentHashMap<>(Map.of("7", 4.0, "9", 3.0)));
+        guildOf.putAll(Map.of("UserA", "7", "UserB", "", "Ghost", "9"));
+        RankingReconciler reconciler = reconcilerWithFakeRedis(1L);
+        ReflectionTestUtils.setField(reconciler, "workers", 3);
+
+        // pixels id 10~15의 주인 (15는 주인 없는 줄)
+        String[] owners = {"UserA", "UserB", "UserA", "UserB", "UserA", null};
+        when(pixelRepository.findIdRange()).thenReturn(new long[]{10, 15});
+        Queue<long[]> ranges = new ConcurrentLinkedQueue<>();
+        doAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            Consumer<String> visitor = invocation.getArgument(3);
+            ranges.add(new long[]{from, to});
+            for (long id = from; id < to; id++) {
+                if (id == 14) {
+                    // 재계산 중에 컨슈머가 UserA에게 +2 (표시가 있으므로 두 키 모두에, 길드 7에도)
+                    incr(RankingService.RANKING_KEY, "UserA", 2);
+                    incr(RankingService.REBUILD_KEY, "UserA", 2);
+                    incr(GuildRankingService.GUILD_RANKING_KEY, "7", 2);
+                }
+                visitor.accept(owners[(int) (id - 10)]);
+            }
+            return null;
+        }).when(pixelRepository).scanOwners(anyLong(), anyLong(), anyInt(), any());
+
+        // when
+        RankingReconciler.Result result = reconciler.reconcile();
+
+        // then: 구간 3개가 겹치거나 빠짐 없이 [10, 16)을 덮음
+        assertThat(ranges).hasSize(3);
+        assertThat(ranges.stream().mapToLong(range -> range[1] - range[0]).sum()).isEqualTo(6);
+        assertThat(ranges.stream().mapToLong(range -> range[0]).min().orElseThrow()).isEqualTo(10);
+        assertThat(ranges.stream().mapToLong(range -> range[1]).max().orElseThrow()).isEqualTo(16);
+
+        // 새 랭킹 = 센 값(UserA 3, UserB 2) + 변화량(UserA 2), Ghost는 빠짐
+        assertThat(zsets.get(RankingService.RANKING_KEY)).isEqualTo(Map.of("UserA", 5.0, "UserB", 2.0));
+        assertThat(zsets).doesNotContainKey(RankingService.REBUILD_KEY);
+        assertThat(result.users()).isEqualTo(2);
+        assertThat(result.pixels()).isEqualTo(5);
+        // 지금 랭킹 UserA 4 + 2 = 6 vs 5 → 1, UserB 같음, Ghost 3 → 0
+        assertThat(result.drifted()).isEqualTo(2);
+        assertThat(result.driftTotal()).isEqualTo(4);
+        // 길드 점수도 길드원 점수의 합으로: 길드 7 = UserA 5, 길드 9 = Ghost 0
+        assertThat(zsets.get(GuildRankingService.GUILD_RANKING_KEY)).isEqualTo(Map.of("7", 5.0, "9", 0.0));
+        assertThat(swappedUsers).containsExactlyInAnyOrder("UserA", "Ghost");
+        verify(zSetOperations, never()).rangeWithScores(any(), anyLong(), anyLong()); // 랭킹 전체를 한 번에 읽지 않음
+    }
+
+    @Test
+    @DisplayName("랭킹 재계산: 다른 인스턴스가 표시를 걸어 두었으면 아무것도 하지 않는다")
+    void reconcile_ShouldSkip_WhenFlagHeld() {
+        // given
+        when(redisTemplate.execute(eq(RankingReconciler.BEGIN_SCRIPT), eq(BEGIN_KEYS), any(), any())).thenReturn(0L);
+        RankingReconciler reconciler = new RankingReconciler(pixelRepository, redisTemplate, transactionManager);
+
+        // when
+        RankingReconciler.Result result = reconciler.reconcile();
+
+        // then
+        assertThat(result).isNull();
+        verifyNoInteractions(pixelRepository);
+        verify(redisTemplate, never()).execute(eq(RankingReconciler.SWAP_SCRIPT), ArgumentMatchers.<List<String>>any(), any(Object[].class));
+    }
+
+    // BEGIN/SWAP 스크립트(길드 보정 포함), 파이프라인 ZINCRBY/ZSCORE, ZSCAN을 zsets 위에서 흉내냄
+    private RankingReconciler reconcilerWithFakeRedis(long version) {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(redisTemplate.execute(eq(RankingReconciler.BEGIN_SCRIPT), eq(BEGIN_KEYS), any(), any())).thenAnswer(invocation -> {
+            zsets.remove(RankingService.REBUILD_KEY);
+            return 1L;
+        });
+        when(redisTemplate.execute(eq(RankingReconciler.SWAP_SCRIPT), eq(SWAP_KEYS), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] users = invocation.getRawArguments()[2] instanceof Object[] args ? args : new Object[0];
+            swappedUsers.addAll(List.of(users));
+            for (Object user : users) {
+                String guild = guildOf.get((String) user);
+                if (guild == null || guild.isEmpty()) continue;
+                double rebuilt = zsets.getOrDefault(RankingService.REBUILD_KEY, Map.of()).getOrDefault(user, 0.0);
+                double live = zsets.get(RankingService.RANKING_KEY).getOrDefault(user, 0.0);
+                incr(GuildRankingService.GUILD_RANKING_KEY, guild, rebuilt - live);
+            }
+            zsets.put(RankingService.RANKING_KEY, zsets.remove(RankingService.REBUILD_KEY));
+            return version;
+        });
+        when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<Object>>any())).thenAnswer(invocation -> {
+            List<Object> results = new ArrayList<>();
+            StringRedisConnection connection = mock(StringRedisConnection.class, call -> {
+                String key = call.getArgument(0);
+                switch (call.getMethod().getName()) {
+                    case "zIncrBy" -> results.add(incr(key, call.getArgument(2), call.<Double>getArgument(1)));
+                    case "zScore" -> results.add(zsets.getOrDefault(key, Map.of()).get(call.<String>getArgument(1)));
+                    default -> throw new UnsupportedOperationException(call.getMethod().getName());
+                }
+                return null;
+            });
+            RedisCallback<Object> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return results;
+        });
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.scan(eq(RankingService.RANKING_KEY), any(ScanOptions.class))).thenAnswer(invocation -> {
+            Iterator<ZSetOperations.TypedTuple<String>> tuples = zsets.get(RankingService.RANKING_KEY).entrySet().stream()
+                    .map(entry -> ZSetOperations.TypedTuple.of(entry.getKey(), entry.getValue()))
+                    .toList().iterator();
+            when(cursor.hasNext()).thenAnswer(call -> tuples.hasNext());
+            when(cursor.next()).thenAnswer(call -> tuples.next());
+            return cursor;
+        });
+        return new RankingReconciler(pixelRepository, redisTemplate, transactionManager);
+    }
+
+    private double incr(String key, String member, double delta) {
+        return zsets.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).merge(member, delta, Double::sum);
+    }
+}
@@ -0,0 +1,82 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.dto.RankAround;
+import com.thepixelwar.dto.RankResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RankingServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private GuildRankingService guildRankingService;
+
+    @InjectMocks
+    private RankingService rankingService;
+
+    @Test
+    @DisplayName("내 순위: 스크립트 결과(시작 위치 + 멤버/점수)를 순위와 함께 돌려준다")
+    void getRanksAround_ShouldNumberFromStartPosition() {
+        // given: 0부터 센 시작 위치 3 → 4등부터
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<List>>any(), eq(List.of("pixel-war:ranking")), eq("UserD"), eq("1")))
+                .thenReturn(List.of("3", "UserC", "12", "UserD", "10", "UserE", "9"));
+
+        // when
+        RankAround around = rankingService.getRanksAround("UserD", 1);
+
+        // then
+        assertThat(around.myRank()).isEqualTo(5);
+        assertThat(around.ranks()).extracting(RankResponse::getRank).containsExactly(4, 5, 6);
+        assertThat(around.ranks()).extracting(RankResponse::getScore).containsExactly(12L, 10L, 9L);
+    }
+
+    @Test
+    @DisplayName("내 순위: 랭킹에 없으면 0등과 빈 목록, k는 최대치로 자른다")
+    void getRanksAround_ShouldHandleUnrankedUser() {
+        // given
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<List>>any(), any(), eq("Nobody"), eq(String.valueOf(RankingService.MAX_AROUND))))
+                .thenReturn(List.of());
+
+        // when
+        RankAround around = rankingService.getRanksAround("Nobody", 1000);
+
+        // then
+        assertThat(around.myRank()).isZero();
+        assertThat(around.ranks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("변화량 반영: 파티션별 다음 오프셋을 변화량 앞에 붙여 스크립트 한 번으로 보낸다 (재전달 배치는 스크립트가 건너뜀)")
+    void applyDeltas_ShouldSendOffsetsBeforeDeltas() {
+        // given
+        RankingDeltaAccumulator deltas = new RankingDeltaAccumulator();
+        deltas.increase("UserA");
+
+        // when
+        rankingService.applyDeltas(deltas, Map.of(2, 41L));
+
+        // then
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisScript<List>>any(),
+                eq(List.of(RankingService.RANKING_KEY, RankingService.VERSION_KEY, GuildRankingService.GUILD_RANKING_KEY,
+                        GuildRankingService.GUILD_OF_KEY, RankingService.REBUILD_FLAG_KEY, RankingService.REBUILD_KEY,
+                        RankingService.APPLIED_OFFSETS_KEY)),
+                eq("1"), eq("2"), eq("41"), eq("UserA"), eq("1"));
+    }
+}
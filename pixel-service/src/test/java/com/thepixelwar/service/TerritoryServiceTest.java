@@ -0,0 +1,138 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.entity.PixelEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TerritoryServiceTest {
+
+    @Mock
+    private CanvasStore canvasStore;
+    @Mock
+    private GuildRankingService guildRankingService;
+
+    @InjectMocks
+    private TerritoryService territoryService;
+
+    @Test
+    @DisplayName("길드 이동: 이 인스턴스에서 가입/탈퇴하면 그 유저의 칸이 길드 땅으로 옮겨진다")
+    void changeGuild_ShouldMoveUserCells() {
+        // given: 길드 7의 UserA 3칸, UserB(길드 없음) 2칸이 한 줄로 이어짐
+        when(guildRankingService.findGuildIds(anyList())).thenReturn(Map.of("UserA", 7L, "UserB", 0L));
+        territoryService.apply(row("UserA", "UserA", "UserA", "UserB", "UserB"));
+        assertThat(territoryService.largestOfGuild(7L)).isEqualTo(3);
+
+        // when: UserB가 길드 7에 가입
+        territoryService.changeGuild("UserB", 7L);
+
+        // then
+        assertThat(territoryService.largestOfGuild(7L)).isEqualTo(5);
+        assertThat(territoryService.largestOf("UserB")).isEqualTo(2);
+
+        // when: UserA가 탈퇴
+        territoryService.changeGuild("UserA", null);
+
+        // then
+        assertThat(territoryService.largestOfGuild(7L)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("길드 이동: 다른 인스턴스의 가입은 매핑 버전이 바뀌었을 때 바뀐 유저만 다시 읽어 옮긴다")
+    void syncGuilds_ShouldApplyRemoteChanges() {
+        // given
+        when(guildRankingService.findGuildIds(List.of("UserA", "UserB"))).thenReturn(Map.of("UserA", 7L, "UserB", 0L));
+        territoryService.apply(row("UserA", "UserA", "UserB", "UserB"));
+        when(guildRankingService.guildOfVersion()).thenReturn(3L);
+        when(guildRankingService.changedSince(-1L)).thenReturn(Set.of("UserB", "Stranger"));
+        when(guildRankingService.findGuildIds(List.of("UserB"))).thenReturn(Map.of("UserB", 7L));
+
+        // when: 다른 인스턴스에서 UserB가 길드 7에 가입
+        territoryService.syncGuilds();
+        territoryService.syncGuilds(); // 버전이 그대로면 다시 읽지 않음
+
+        // then: 이 인스턴스가 모르는 유저(Stranger)는 읽지 않음
+        assertThat(territoryService.largestOfGuild(7L)).isEqualTo(4);
+        verify(guildRankingService, times(1)).changedSince(anyLong());
+        verify(guildRankingService, times(1)).findGuildIds(List.of("UserB"));
+    }
+
+    @Test
+    @DisplayName("길드 이동: 매핑을 읽다 실패하면 버전을 넘기지 않고 다음 주기에 같은 구간을 다시 읽는다")
+    void syncGuilds_ShouldRetry_WhenLookupFails() {
+        // given
+        when(guildRankingService.findGuildIds(List.of("UserA"))).thenReturn(Map.of("UserA", 0L));
+        territoryService.apply(row("UserA", "UserA"));
+        when(guildRankingService.guildOfVersion()).thenReturn(1L);
+        when(guildRankingService.changedSince(-1L)).thenReturn(Set.of("UserA"));
+        when(guildRankingService.findGuildIds(List.of("UserA")))
+                .thenThrow(new IllegalStateException("Redis 연결 끊김"))
+                .thenReturn(Map.of("UserA", 9L));
+
+        // when
+        territoryService.syncGuilds();
+        assertThat(territoryService.largestOfGuild(9L)).isZero();
+        territoryService.syncGuilds();
+
+        // then
+        assertThat(territoryService.largestOfGuild(9L)).isEqualTo(2);
+        verify(guildRankingService, times(2)).changedSince(-1L);
+    }
+
+    @Test
+    @DisplayName("연결된 땅 반영: 처음 보는 주인의 길드는 락을 잡지 않은 채 Redis에서 읽는다")
+    void apply_ShouldLookupGuildsOutsideLock() {
+        // given: 조회하는 동안 인덱스 락을 잡고 있는지 기록
+        List<Boolean> heldDuringLookup = new ArrayList<>();
+        when(guildRankingService.findGuildIds(List.of("UserA"))).thenAnswer(invocation -> {
+            heldDuringLookup.add(Thread.holdsLock(territoryService));
+            return Map.of("UserA", 7L);
+        });
+
+        // when
+        territoryService.apply(row("UserA", "UserA"));
+        territoryService.apply(row("UserA")); // 이미 아는 유저는 다시 읽지 않음
+
+        // then
+        assertThat(heldDuringLookup).containsExactly(false);
+        assertThat(territoryService.largestOfGuild(7L)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("연결된 땅 반영: 길드를 읽는 사이 가입/탈퇴가 먼저 기록됐으면 읽어 온 옛 매핑으로 덮지 않는다")
+    void apply_ShouldKeepNewerGuild_WhenChangedDuringLookup() {
+        // given: 조회 도중 UserA가 길드 9에 가입
+        when(guildRankingService.findGuildIds(List.of("UserA"))).thenAnswer(invocation -> {
+            territoryService.changeGuild("UserA", 9L);
+            return Map.of("UserA", 7L);
+        });
+
+        // when
+        territoryService.apply(row("UserA", "UserA"));
+
+        // then
+        assertThat(territoryService.largestOfGuild(9L)).isEqualTo(2);
+        assertThat(territoryService.largestOfGuild(7L)).isZero();
+    }
+
+    // (0, 0)부터 가로로 한 칸씩
+    private static List<PixelEntity> row(String... owners) {
+        PixelEntity[] pixels = new PixelEntity[owners.length];
+        for (int x = 0; x < owners.length; x++) pixels[x] = new PixelEntity(x, 0, 1, owners[x]);
+        return List.of(pixels);
+    }
+}
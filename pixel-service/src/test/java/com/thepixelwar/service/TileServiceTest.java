@@ -0,0 +1,79 @@
+package com.thepixelwar.service;
+
+import com.thepixelwar.canvas.CanvasGrid;
+import com.thepixelwar.canvas.CanvasStore;
+import com.thepixelwar.canvas.Palette;
+import com.thepixelwar.dto.TileChangesResponse;
+import com.thepixelwar.repository.PixelRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TileServiceTest {
+
+    // 실제 메모리 캔버스 위에서 렌더링 (DB는 쓰지 않음)
+    private final CanvasStore canvasStore = new CanvasStore(mock(PixelRepository.class));
+    private final TileService tileService = new TileService(canvasStore);
+
+    @Test
+    @DisplayName("렌더 캐시: 타일 버전이 그대로면 같은 결과를 재사용하고, 바뀌면 다시 그린다")
+    void render_ShouldReuseCacheUntilTileChanges() {
+        // given
+        canvasStore.set(1, 2, 2, "UserA");
+        TileService.RenderedTile first = tileService.render(0, 0, TileService.Format.RAW);
+
+        // when & then: 다른 타일이 바뀌어도 재사용
+        canvasStore.set(CanvasGrid.TILE_SIZE, 0, 6, "UserB");
+        assertThat(tileService.render(0, 0, TileService.Format.RAW)).isSameAs(first);
+
+        // when & then: 이 타일이 바뀌면 새로 그림
+        canvasStore.set(1, 3, 13, "UserB");
+        TileService.RenderedTile second = tileService.render(0, 0, TileService.Format.RAW);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.version()).isEqualTo(first.version() + 1);
+        assertThat(second.body()[CanvasGrid.TILE_SIZE + 3]).isEqualTo((byte) 13);
+    }
+
+    @Test
+    @DisplayName("PNG: 위쪽이 북쪽인 팔레트 이미지로 그리고, 빈 칸은 투명하게 둔다")
+    void render_ShouldDrawPngNorthUp() throws Exception {
+        // given: 타일 맨 남서쪽 칸 (dx 0, dy 0)
+        canvasStore.set(0, 0, 2, "UserA");
+
+        // when
+        byte[] png = tileService.render(0, 0, TileService.Format.PNG).body();
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+
+        // then
+        int last = CanvasGrid.TILE_SIZE - 1;
+        assertThat(image.getWidth()).isEqualTo(CanvasGrid.TILE_SIZE);
+        assertThat(image.getRGB(0, last) & 0xFFFFFF).isEqualTo(Palette.rgb(2)); // 왼쪽 아래
+        assertThat(image.getRGB(0, 0) >>> 24).isZero(); // 빈 칸 → 투명
+    }
+
+    @Test
+    @DisplayName("변경분: 재시작 전 epoch의 버전이면 이어받지 않고 타일 전체를 준다")
+    void changesSince_ShouldFallBackToFullTile_WhenEpochDiffers() {
+        // given
+        canvasStore.set(0, 1, 2, "UserA");
+        canvasStore.set(0, 2, 6, "UserA");
+
+        // when
+        TileChangesResponse sameEpoch = tileService.changesSince(0, 0, canvasStore.epoch(), 1);
+        TileChangesResponse otherEpoch = tileService.changesSince(0, 0, canvasStore.epoch() - 1, 1);
+
+        // then
+        assertThat(sameEpoch.full()).isFalse();
+        assertThat(sameEpoch.cell()).containsExactly(2);
+        assertThat(sameEpoch.color()).containsExactly(6);
+        assertThat(otherEpoch.full()).isTrue();
+        assertThat(otherEpoch.cell()).containsExactly(1, 2);
+        assertThat(otherEpoch.epoch()).isEqualTo(canvasStore.epoch());
+    }
+}
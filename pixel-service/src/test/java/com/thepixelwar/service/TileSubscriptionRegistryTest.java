@@ -0,0 +1,102 @@
+package com.thepixelwar.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TileSubscriptionRegistryTest {
+
+    private final TileSubscriptionRegistry registry = new TileSubscriptionRegistry();
+
+    @Test
+    @DisplayName("타일 구독 수: 같은 타일을 두 세션이 보면 둘 다 나가야 0이 된다")
+    void unsubscribe_ShouldKeepTile_WhileAnotherSessionWatches() {
+        // given
+        subscribe("s1", "sub-0", PixelBroadcaster.tileDestination(3, 4));
+        subscribe("s2", "sub-0", PixelBroadcaster.tileDestination(3, 4));
+
+        // when & then
+        unsubscribe("s1", "sub-0");
+        assertThat(registry.hasSubscribers(3, 4)).isTrue();
+        unsubscribe("s2", "sub-0");
+        assertThat(registry.hasSubscribers(3, 4)).isFalse();
+        unsubscribe("s2", "sub-0"); // 두 번 나가도 음수가 되지 않음
+        subscribe("s3", "sub-0", PixelBroadcaster.tileDestination(3, 4));
+        assertThat(registry.hasSubscribers(3, 4)).isTrue();
+    }
+
+    @Test
+    @DisplayName("타일 구독 수: 같은 구독 id로 다시 구독하면 옛 타일은 빠지고 새 타일만 센다")
+    void subscribe_ShouldReplacePreviousTile_WhenSubscriptionIdReused() {
+        // given
+        subscribe("s1", "sub-0", PixelBroadcaster.tileDestination(3, 4));
+
+        // when
+        subscribe("s1", "sub-0", PixelBroadcaster.tileDestination(5, 6));
+
+        // then
+        assertThat(registry.hasSubscribers(3, 4)).isFalse();
+        assertThat(registry.hasSubscribers(5, 6)).isTrue();
+        unsubscribe("s1", "sub-0");
+        assertThat(registry.hasSubscribers(5, 6)).isFalse();
+    }
+
+    @Test
+    @DisplayName("타일 구독 수: JSON과 바이너리는 따로 세고, 연결이 끊기면 그 세션의 구독이 모두 빠진다")
+    void disconnect_ShouldReleaseAllFormats() {
+        // given
+        subscribe("s1", "sub-0", PixelBroadcaster.tileDestination(1, 1));
+        subscribe("s1", "sub-1", PixelBroadcaster.binaryTileDestination(1, 1));
+        subscribe("s2", "sub-0", PixelBroadcaster.binaryTileDestination(1, 1));
+        subscribe("s1", "sub-2", "/sub/chat/room/1"); // 타일 토픽이 아니면 세지 않음
+
+        assertThat(registry.hasSubscribers(TileSubscriptionRegistry.Format.JSON, 1, 1)).isTrue();
+        assertThat(registry.hasSubscribers(TileSubscriptionRegistry.Format.BINARY, 1, 1)).isTrue();
+
+        // when
+        disconnect("s1");
+
+        // then: s2의 바이너리 구독만 남음
+        assertThat(registry.hasSubscribers(TileSubscriptionRegistry.Format.JSON, 1, 1)).isFalse();
+        assertThat(registry.hasSubscribers(TileSubscriptionRegistry.Format.BINARY, 1, 1)).isTrue();
+        assertThat(registry.hasSubscribers(1, 1)).isTrue();
+
+        disconnect("s2");
+        assertThat(registry.hasSubscribers(1, 1)).isFalse();
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = headers(StompCommand.SUBSCRIBE, sessionId, subscriptionId);
+        accessor.setDestination(destination);
+        registry.onSubscribe(new SessionSubscribeEvent(this, message(accessor)));
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        registry.onUnsubscribe(new SessionUnsubscribeEvent(this, message(headers(StompCommand.UNSUBSCRIBE, sessionId, subscriptionId))));
+    }
+
+    private void disconnect(String sessionId) {
+        StompHeaderAccessor accessor = headers(StompCommand.DISCONNECT, sessionId, null);
+        registry.onDisconnect(new SessionDisconnectEvent(this, message(accessor), sessionId, CloseStatus.NORMAL));
+    }
+
+    private static StompHeaderAccessor headers(StompCommand command, String sessionId, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        if (subscriptionId != null) accessor.setSubscriptionId(subscriptionId);
+        return accessor;
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor accessor) {
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}